@@ -0,0 +1,58 @@
+package net.codingworks.sudoku.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import net.codingworks.sudoku.Analyzer;
+import net.codingworks.sudoku.Board;
+import net.codingworks.sudoku.Engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of Analyzer.getReport for each puzzle set and engine. One
+ * operation analyzes every puzzle of the set once.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+	@Param({ "EASY", "HARD", "MINIMAL", "MULTIPLE", "UNSOLVABLE" })
+	public Puzzles puzzles;
+
+	@Param({ "COPY", "TRAIL", "DLX" })
+	public Engine engine;
+
+	private String[] inputs;
+
+	@Setup
+	public void setUp() {
+		inputs = puzzles.getInputs();
+	}
+
+	@Benchmark
+	public int getReport() throws Exception {
+		int length = 0;
+		for (String input : inputs) {
+			length += new Analyzer(new Board(input)).getReport(engine)
+					.length();
+		}
+		return length;
+	}
+}
@@ -0,0 +1,110 @@
+package net.codingworks.sudoku.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.codingworks.sudoku.BatchSolver;
+import net.codingworks.sudoku.Board;
+import net.codingworks.sudoku.Engine;
+import net.codingworks.sudoku.Generator;
+import net.codingworks.sudoku.Solver;
+import net.codingworks.sudoku.Symmetry;
+import net.codingworks.sudoku.TrailSolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of solving many easy to medium puzzles, generated with 30 givens
+ * and a unique solution. One operation solves every puzzle once, with a Solver
+ * per puzzle, with a reused TrailSolver and with a BatchSolver in batches of
+ * the given size.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchSolverBenchmark {
+
+	/**
+	 * Number of puzzles
+	 */
+	private static final int PUZZLES = 1 << 12;
+
+	/**
+	 * Number of givens of each puzzle
+	 */
+	private static final int CLUES = 30;
+
+	@Param({ "64", "1024" })
+	public int batchSize;
+
+	private Board[] boards;
+
+	private BatchSolver batchSolver;
+
+	private TrailSolver trailSolver = new TrailSolver();
+
+	@Setup
+	public void setUp() throws Exception {
+		List<String> inputs = Generator.generate(PUZZLES, Symmetry.NONE,
+				CLUES, 1, 24);
+		boards = new Board[PUZZLES];
+		for (int i = 0; i < PUZZLES; i++) {
+			boards[i] = new Board(inputs.get(i));
+		}
+		batchSolver = new BatchSolver(batchSize);
+	}
+
+	@Benchmark
+	public int solver() throws Exception {
+		int solved = 0;
+		for (Board board : boards) {
+			if (new Solver(board).solve(Engine.TRAIL) != null) {
+				solved++;
+			}
+		}
+		return solved;
+	}
+
+	@Benchmark
+	public int trail() throws Exception {
+		int solved = 0;
+		for (Board board : boards) {
+			board.updateCells();
+			trailSolver.load(board);
+			if (trailSolver.solve()) {
+				solved++;
+			}
+		}
+		return solved;
+	}
+
+	@Benchmark
+	public int batch() throws Exception {
+		int solved = 0;
+		for (int i = 0; i < PUZZLES; i += batchSize) {
+			batchSolver.clear();
+			int end = Math.min(i + batchSize, PUZZLES);
+			for (int j = i; j < end; j++) {
+				batchSolver.add(boards[j]);
+			}
+			solved += batchSolver.solve();
+		}
+		return solved;
+	}
+}
@@ -0,0 +1,65 @@
+package net.codingworks.sudoku.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import net.codingworks.sudoku.Board;
+import net.codingworks.sudoku.Solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the Board primitives used at every search node.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	private String input;
+
+	private Board board;
+
+	@Setup
+	public void setUp() throws Exception {
+		input = Puzzles.MINIMAL.getInputs()[0];
+		board = new Board(input);
+		board.updateCells();
+	}
+
+	@Benchmark
+	public Board parse() {
+		return new Board(input);
+	}
+
+	@Benchmark
+	public Board copy() {
+		return board.copy(false);
+	}
+
+	@Benchmark
+	public Board updateCells() throws Exception {
+		Board b = new Board(input);
+		b.updateCells();
+		return b;
+	}
+
+	@Benchmark
+	public int[] selectCell() {
+		return Solver.selectCell(board);
+	}
+}
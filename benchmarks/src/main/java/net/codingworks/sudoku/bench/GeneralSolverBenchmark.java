@@ -0,0 +1,181 @@
+package net.codingworks.sudoku.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.codingworks.sudoku.Board;
+import net.codingworks.sudoku.Engine;
+import net.codingworks.sudoku.GeneralBoard;
+import net.codingworks.sudoku.GeneralSolver;
+import net.codingworks.sudoku.Solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of GeneralSolver. One operation of scaling solves a fixed set of
+ * puzzles made from shuffled grids of N = box * box with 45% of the cells
+ * removed, showing how the solve time grows with N. Around 55% such puzzles
+ * are hardest to search and the times of single puzzles vary widely. The other
+ * two compare the GeneralSolver with the specialized TRAIL engine on the hard
+ * 9 x 9 set. The GeneralSolver would hand 9 x 9 puzzles over to the TRAIL
+ * engine, so every benchmark of it turns that off and searches all sizes
+ * with the general engine.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+@BenchmarkMode({ Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneralSolverBenchmark {
+
+	/**
+	 * Number of puzzles of each size
+	 */
+	private static final int PUZZLES = 16;
+
+	@State(Scope.Thread)
+	public static class Sizes {
+
+		@Param({ "3", "4", "5" })
+		public int box;
+
+		private String[] inputs;
+
+		@Setup
+		public void setUp() {
+			Random random = new Random(box);
+			inputs = new String[PUZZLES];
+			for (int i = 0; i < PUZZLES; i++) {
+				inputs[i] = puzzle(box, random);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Standard {
+
+		private String[] inputs = Puzzles.HARD.getInputs();
+	}
+
+	/**
+	 * Make a puzzle from a valid grid with its symbols, the rows of each band
+	 * and the columns of each stack shuffled, and 45% of the cells removed.
+	 * 
+	 * @param box
+	 *            number of rows and columns of a box
+	 * @param random
+	 *            the source of randomness
+	 * @return a string listing cell values in row order
+	 */
+	private static String puzzle(int box, Random random) {
+		int n = box * box;
+		int[] symbols = shuffled(0, n, random);
+		int[] rows = new int[n];
+		int[] cols = new int[n];
+		for (int b = 0; b < box; b++) {
+			System.arraycopy(shuffled(b * box, box, random), 0, rows, b * box,
+					box);
+			System.arraycopy(shuffled(b * box, box, random), 0, cols, b * box,
+					box);
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				int r = rows[i];
+				int v = symbols[(box * (r % box) + r / box + cols[j]) % n] + 1;
+				sb.append(random.nextInt(100) < 45 ? '0' : (char) (v < 10
+						? '0' + v : 'A' + v - 10));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Shuffle a range of numbers.
+	 * 
+	 * @param from
+	 *            the first number
+	 * @param count
+	 *            number of numbers
+	 * @param random
+	 *            the source of randomness
+	 * @return the numbers in random order
+	 */
+	private static int[] shuffled(int from, int count, Random random) {
+		int[] a = new int[count];
+		for (int i = 0; i < count; i++) {
+			a[i] = from + i;
+		}
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+		return a;
+	}
+
+	/**
+	 * Solve a puzzle with the general engine, whatever its size.
+	 * 
+	 * @param box
+	 *            number of rows and columns of a box
+	 * @param input
+	 *            a string listing cell values in row order
+	 * @return a solution, or null if there is none
+	 * @throws Exception
+	 */
+	private static GeneralBoard solve(int box, String input) throws Exception {
+		GeneralSolver solver = new GeneralSolver(new GeneralBoard(box, box,
+				input));
+		solver.setSpecialized(false);
+		return solver.solve();
+	}
+
+	@Benchmark
+	public int scaling(Sizes sizes) throws Exception {
+		int solved = 0;
+		int box = sizes.box;
+		for (String input : sizes.inputs) {
+			if (solve(box, input) != null) {
+				solved++;
+			}
+		}
+		return solved;
+	}
+
+	@Benchmark
+	public int general(Standard standard) throws Exception {
+		int solved = 0;
+		for (String input : standard.inputs) {
+			if (solve(3, input) != null) {
+				solved++;
+			}
+		}
+		return solved;
+	}
+
+	@Benchmark
+	public int trail(Standard standard) throws Exception {
+		int solved = 0;
+		for (String input : standard.inputs) {
+			if (new Solver(new Board(input)).solve(Engine.TRAIL) != null) {
+				solved++;
+			}
+		}
+		return solved;
+	}
+}
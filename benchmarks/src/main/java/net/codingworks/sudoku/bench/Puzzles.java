@@ -0,0 +1,73 @@
+package net.codingworks.sudoku.bench;
+
+/**
+ * Puzzles lists the graded puzzle sets used by the benchmarks.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public enum Puzzles {
+
+	/**
+	 * Puzzles solved by naked and hidden singles alone
+	 */
+	EASY(new String[] {
+			"003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+			"200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+			"000000907000420180000705026100904000050000040000507009920108000034059000507000000" }),
+
+	/**
+	 * Puzzles needing a deep search
+	 */
+	HARD(new String[] {
+			"800000000003600000070090200050007000000045700000100030001000068008500010090000400",
+			"000000039000001005003050800008090006070002000100400000009080050020000600400700000",
+			"1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3.." }),
+
+	/**
+	 * Puzzles with the minimum number of clues (17)
+	 */
+	MINIMAL(new String[] {
+			"000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+			"4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+			"52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+			"....14....3....2...7..........9...3.6.1.............8.2.....1.4....5.6.....7.8..." }),
+
+	/**
+	 * Puzzles with more than one solution
+	 */
+	MULTIPLE(new String[] {
+			"000006000007089100000000056010700000000000300078460020600005000002000000804301070",
+			".......39.....1..5..3.5.8....8.9...6.7...2..1..4.......9.8..5..2....6..4..7....." }),
+
+	/**
+	 * Puzzles without a solution
+	 */
+	UNSOLVABLE(new String[] {
+			"840009002500000070007000800900030005000010730260005000000860000000500040008200509",
+			".....5.8....6.1.43..........1.5........1.6...3.......553.....61........4........." });
+
+	/**
+	 * Input strings listing cell values in row order
+	 */
+	private String[] inputs;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param inputs
+	 *            input strings listing cell values in row order
+	 */
+	private Puzzles(String[] inputs) {
+		this.inputs = inputs;
+	}
+
+	/**
+	 * Get the input strings of this set.
+	 * 
+	 * @return input strings listing cell values in row order
+	 */
+	public String[] getInputs() {
+		return inputs.clone();
+	}
+}
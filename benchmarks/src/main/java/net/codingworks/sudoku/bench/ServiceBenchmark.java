@@ -0,0 +1,101 @@
+package net.codingworks.sudoku.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import net.codingworks.sudoku.Board;
+import net.codingworks.sudoku.SolverResult;
+import net.codingworks.sudoku.SolverService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of SolverService.analyze on a fixed pool of platform threads
+ * against a virtual thread per request. One operation submits a burst of
+ * requests cycling through a mixed workload of easy and hard puzzles, each
+ * with a deadline, and waits for all of them. Before Java 21 the VIRTUAL
+ * service falls back to a pool of platform threads.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+	@Param({ "PLATFORM", "VIRTUAL" })
+	public String threads;
+
+	@Param({ "EASY", "MIXED", "HARD" })
+	public String workload;
+
+	@Param({ "1000", "10000" })
+	public int burst;
+
+	private SolverService service;
+
+	private Board[] boards;
+
+	@Setup
+	public void setUp() {
+		if (threads.equals("VIRTUAL")) {
+			service = SolverService.withVirtualThreads(burst);
+		} else {
+			service = new SolverService(Runtime.getRuntime()
+					.availableProcessors(), burst);
+		}
+		List<String> inputs = new ArrayList<String>();
+		for (Puzzles puzzles : new Puzzles[] { Puzzles.EASY, Puzzles.HARD,
+				Puzzles.MINIMAL }) {
+			boolean easy = puzzles == Puzzles.EASY;
+			if (workload.equals("MIXED") || workload.equals("EASY") == easy) {
+				for (String input : puzzles.getInputs()) {
+					inputs.add(input);
+				}
+			}
+		}
+		boards = new Board[inputs.size()];
+		for (int i = 0; i < boards.length; i++) {
+			boards[i] = new Board(inputs.get(i));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		service.shutdown();
+	}
+
+	@Benchmark
+	public int analyze() throws Exception {
+		List<CompletableFuture<SolverResult>> futures;
+		futures = new ArrayList<CompletableFuture<SolverResult>>(burst);
+		for (int i = 0; i < burst; i++) {
+			futures.add(service.analyze(boards[i % boards.length], 10,
+					TimeUnit.SECONDS));
+		}
+		int solved = 0;
+		for (CompletableFuture<SolverResult> future : futures) {
+			if (future.get().getStatus() == SolverResult.Status.SOLVED) {
+				solved++;
+			}
+		}
+		return solved;
+	}
+}
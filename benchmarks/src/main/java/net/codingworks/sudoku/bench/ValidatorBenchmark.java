@@ -0,0 +1,112 @@
+package net.codingworks.sudoku.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.codingworks.sudoku.Board;
+import net.codingworks.sudoku.Engine;
+import net.codingworks.sudoku.GridValidator;
+import net.codingworks.sudoku.Solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of validating submitted solution grids, 90% of them with two
+ * cells swapped. One operation checks every grid once, with Board.validate(),
+ * with GridValidator.check() and with a GridValidator batch, including the
+ * transposition of the grids as they are added. The batch uses the Vector API
+ * kernel when the forked JVM gets --add-modules=jdk.incubator.vector.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorBenchmark {
+
+	/**
+	 * Number of grids
+	 */
+	private static final int GRIDS = 1 << 12;
+
+	private Board[] boards;
+
+	private byte[][] grids;
+
+	private GridValidator validator;
+
+	private int[] codes;
+
+	@Setup
+	public void setUp() throws Exception {
+		Random random = new Random(23);
+		String[] inputs = Puzzles.HARD.getInputs();
+		boards = new Board[GRIDS];
+		grids = new byte[GRIDS][];
+		validator = new GridValidator(GRIDS);
+		codes = new int[GRIDS];
+		for (int g = 0; g < GRIDS; g++) {
+			char[] chars = new Solver(new Board(inputs[g % inputs.length]))
+					.solve(Engine.TRAIL).toString().toCharArray();
+			if (random.nextInt(10) != 0) {
+				int a = random.nextInt(chars.length);
+				int b = (a + 1 + random.nextInt(chars.length - 1))
+						% chars.length;
+				char t = chars[a];
+				chars[a] = chars[b];
+				chars[b] = t;
+			}
+			boards[g] = new Board(new String(chars));
+			grids[g] = new byte[chars.length];
+			for (int k = 0; k < chars.length; k++) {
+				grids[g][k] = (byte) (chars[k] - '0');
+			}
+		}
+	}
+
+	@Benchmark
+	public int exceptions() {
+		int invalid = 0;
+		for (Board board : boards) {
+			try {
+				board.validate();
+			} catch (Exception e) {
+				invalid++;
+			}
+		}
+		return invalid;
+	}
+
+	@Benchmark
+	public int scalar() {
+		int invalid = 0;
+		for (byte[] grid : grids) {
+			if (GridValidator.check(grid) != GridValidator.VALID) {
+				invalid++;
+			}
+		}
+		return invalid;
+	}
+
+	@Benchmark
+	public int batch() {
+		validator.clear();
+		for (byte[] grid : grids) {
+			validator.add(grid);
+		}
+		return validator.validate(codes);
+	}
+}
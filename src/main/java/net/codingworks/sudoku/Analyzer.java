@@ -1,9 +1,13 @@
 package net.codingworks.sudoku;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Based on the solver implementation, this class uses a similar backtracking
  * algorithm to determine one of 3 properties for a Sudoku puzzle: (1) it has a
- * unique solution, (2) it has multiple solutions, (3) it has no solution.
+ * unique solution, (2) it has multiple solutions, (3) it has no solution. The
+ * search can be run on a single thread or split into tasks on a ForkJoinPool.
  * 
  * @author Rongqin Sheng
  * @version 1.0
@@ -16,9 +20,14 @@ public class Analyzer implements Stoppable {
 	private Board input;
 
 	/**
-	 * An solution counter
+	 * Depth up to which a parallel analysis splits the search into tasks
+	 */
+	static final int SPLIT_DEPTH = 4;
+
+	/**
+	 * An solution counter, shared by all tasks of a parallel analysis
 	 */
-	private int solutionCounter = 0;
+	private AtomicInteger solutionCounter = new AtomicInteger();
 
 	/**
 	 * An array to store the first 2 solutions
@@ -26,9 +35,20 @@ public class Analyzer implements Stoppable {
 	private Board[] output = new Board[2];
 
 	/**
-	 * Flag to stop the analyzer
+	 * Collector of search statistics, or null
 	 */
-	private boolean stopped = false;
+	private SearchStats stats;
+
+	/**
+	 * The token telling the analyzer when to give up, shared with the engine
+	 * and forked for the tasks of a parallel analysis
+	 */
+	private CancellationToken token = new CancellationToken();
+
+	/**
+	 * Flag set when the solution limit has been reached
+	 */
+	private volatile boolean finished = false;
 
 	/**
 	 * Constructor
@@ -45,49 +65,105 @@ public class Analyzer implements Stoppable {
 	 * 
 	 * @param input
 	 *            input Board object
-	 * @param numberOfEmptyCells
-	 *            number of empty cells
-	 * @return a Board object (a solution or null)
+	 * @param depth
+	 *            number of values chosen along the current path
+	 * @param visitor
+	 *            the visitor receiving solutions
+	 * @param stats
+	 *            the collector of search statistics, or null
+	 * @param token
+	 *            the token polled by the current thread
+	 * @return false if the analysis is to be stopped and true otherwise
 	 */
-	private Board analyze(Board input, int numberOfEmptyCells) {
-		if (stopped) {
-			return null;
+	boolean analyze(Board input, int depth, SolutionVisitor visitor,
+			SearchStats stats, CancellationToken token) {
+		if (finished || token.poll()) {
+			return false;
 		}
-		Board ret = null;
-		if (numberOfEmptyCells == 0) {
-			if (solutionCounter < 2) {
-				output[solutionCounter] = input;
-			}
-			solutionCounter++;
-			return input;
+		if (input.getNumberOfEmptyCells() == 0) {
+			return visitor.visit(input.getValues());
 		}
-		int[] idx = Solver.selectCell(input);
-		if (idx == null)
-			return input;
-		Cell cell = input.getCell(idx);
+		int k = Solver.selectCell(input, null);
+		short mask = input.getCandidates(k);
 
 		for (byte v = 1; v <= 9; v++) {
-			if (cell.getAvailable(v)) {
-				Board board = input.copy(false);
-				if (Solver.updateBoard(board, idx, v)) {
-					Board result = analyze(board, numberOfEmptyCells - 1);
-					if (result != null) {
-						if (numberOfEmptyCells == input.getNumberOfEmptyCells()
-								&& solutionCounter > 1) {
-							return result;
-						}
-					}
+			if ((mask & Board.bit(v)) != 0) {
+				Board board = branch(input, k, v, depth, stats);
+				if (board != null
+						&& !analyze(board, depth + 1, visitor, stats, token)) {
+					return false;
 				}
 			}
 		}
-		return ret;
+		return true;
+	}
+
+	/**
+	 * Fill a cell of a copy of a Board and apply forced moves to it.
+	 * 
+	 * @param input
+	 *            input Board object
+	 * @param k
+	 *            cell index in row order
+	 * @param v
+	 *            the value (1-9)
+	 * @param depth
+	 *            number of values chosen along the path to the input Board
+	 * @param stats
+	 *            the collector of search statistics, or null
+	 * @return the updated copy, or null if a contradiction was found
+	 */
+	static Board branch(Board input, int k, byte v, int depth,
+			SearchStats stats) {
+		if (stats != null) {
+			stats.node(depth + 1);
+			stats.copy();
+		}
+		Board board = input.copy(false);
+		if (Solver.updateBoard(board, k, v, null, stats)
+				&& Propagator.propagate(board, null, stats)) {
+			return board;
+		}
+		if (stats != null) {
+			stats.backtrack();
+		}
+		return null;
+	}
+
+	/**
+	 * Check if the analysis is to be stopped, either because the analyzer was
+	 * stopped or because the solution limit has been reached.
+	 * 
+	 * @return true for stopping and false otherwise
+	 */
+	boolean cancelled() {
+		return finished || token.isCancelled();
+	}
+
+	/**
+	 * Set the token telling the analyzer when to give up.
+	 * 
+	 * @param token
+	 *            the token, shared with the caller
+	 */
+	public void setToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Get the token telling the analyzer when to give up.
+	 * 
+	 * @return the token
+	 */
+	public CancellationToken getToken() {
+		return token;
 	}
 
 	/**
 	 * Function called by a different thread to stop the analyzer.
 	 */
-	public synchronized void stop() {
-		stopped = true;
+	public void stop() {
+		token.cancel();
 	}
 
 	/**
@@ -96,7 +172,7 @@ public class Analyzer implements Stoppable {
 	 * @return true for stopped and false otherwise
 	 */
 	public boolean stopped() {
-		return stopped;
+		return token.isCancelled();
 	}
 
 	/**
@@ -106,18 +182,213 @@ public class Analyzer implements Stoppable {
 	 * @throws Exception
 	 */
 	public String getReport() throws Exception {
-		input.updateCells();
-		analyze(input, input.getNumberOfEmptyCells());
+		return getReport(Engine.COPY);
+	}
+
+	/**
+	 * Get the report using a given search engine
+	 * 
+	 * @param engine
+	 *            the search engine
+	 * @return the report
+	 * @throws Exception
+	 */
+	public String getReport(Engine engine) throws Exception {
+		countSolutions(2, engine);
+		return report();
+	}
+
+	/**
+	 * Get the report, analyzing the puzzle in parallel on a ForkJoinPool
+	 * 
+	 * @param pool
+	 *            the pool to run the analysis on
+	 * @return the report
+	 * @throws Exception
+	 */
+	public String getReport(ForkJoinPool pool) throws Exception {
+		countSolutions(2, pool);
+		return report();
+	}
+
+	/**
+	 * Format the report from the solutions found.
+	 * 
+	 * @return the report
+	 */
+	private String report() {
+		return report(getSolutions());
+	}
+
+	/**
+	 * Format a report.
+	 * 
+	 * @param solutions
+	 *            the first solutions found, at most 2
+	 * @return the report
+	 */
+	static String report(Board[] solutions) {
 		String ret = "No solution";
-		if (solutionCounter == 1) {
-			ret = "Unique solution\n" + output[0].toString();
-		} else if (solutionCounter > 1) {
+		if (solutions.length == 1) {
+			ret = "Unique solution\n" + solutions[0].toString();
+		} else if (solutions.length > 1) {
 			ret = "Multiple solutions (show 2 of them)\n"
-					+ output[0].toString() + "\n" + output[1].toString();
+					+ solutions[0].toString() + "\n" + solutions[1].toString();
+		}
+		return ret;
+	}
+
+	/**
+	 * Count the solutions of the puzzle, stopping the search as soon as a
+	 * limit is reached. The first 2 solutions are kept for the report.
+	 * 
+	 * @param limit
+	 *            the maximum number of solutions to count
+	 * @return the number of solutions found, which is the limit if there are
+	 *         at least that many solutions
+	 * @throws Exception
+	 */
+	public int countSolutions(int limit) throws Exception {
+		return countSolutions(limit, Engine.COPY);
+	}
+
+	/**
+	 * Count the solutions of the puzzle using a given search engine, stopping
+	 * the search as soon as a limit is reached. The first 2 solutions are
+	 * kept for the report.
+	 * 
+	 * @param limit
+	 *            the maximum number of solutions to count
+	 * @param engine
+	 *            the search engine
+	 * @return the number of solutions found, which is the limit if there are
+	 *         at least that many solutions
+	 * @throws Exception
+	 * @see #getStats()
+	 */
+	public int countSolutions(int limit, Engine engine) throws Exception {
+		SolutionVisitor collector = start(limit);
+		if (limit <= 0) {
+			// nothing to count
+		} else if (engine == Engine.TRAIL) {
+			TrailSolver t = new TrailSolver();
+			t.setStats(stats);
+			t.setToken(token);
+			t.load(input);
+			while (t.solve()) {
+				if (!collector.visit(t.getBoard().getValues())) {
+					break;
+				}
+			}
+		} else if (engine == Engine.DLX) {
+			DancingLinks d = new DancingLinks();
+			d.setStats(stats);
+			d.setToken(token);
+			d.load(input);
+			d.solve(collector);
+		} else {
+			Board board = input.copy(false);
+			if (Propagator.propagate(board, null, stats)) {
+				analyze(board, 0, collector, stats, token);
+			}
+		}
+		if (stats != null) {
+			stats.finish();
+		}
+		return Math.min(solutionCounter.get(), limit);
+	}
+
+	/**
+	 * Count the solutions of the puzzle in parallel on a ForkJoinPool. The
+	 * first levels of the search are split into tasks sharing one solution
+	 * counter, and all tasks stop as soon as the limit is reached.
+	 * 
+	 * @param limit
+	 *            the maximum number of solutions to count
+	 * @param pool
+	 *            the pool to run the analysis on
+	 * @return the number of solutions found, which is the limit if there are
+	 *         at least that many solutions
+	 * @throws Exception
+	 * @see #getStats()
+	 */
+	public int countSolutions(int limit, ForkJoinPool pool) throws Exception {
+		SolutionVisitor collector = start(limit);
+		if (limit > 0) {
+			Board board = input.copy(false);
+			if (Propagator.propagate(board, null, stats)) {
+				pool.invoke(new AnalyzerTask(this, board, 0, collector));
+			}
 		}
+		if (stats != null) {
+			stats.finish();
+		}
+		return Math.min(solutionCounter.get(), limit);
+	}
+
+	/**
+	 * Prepare an analysis.
+	 * 
+	 * @param limit
+	 *            the maximum number of solutions to count
+	 * @return a visitor counting solutions and keeping the first 2 of them
+	 * @throws Exception
+	 */
+	private SolutionVisitor start(final int limit) throws Exception {
+		input.updateCells();
+		solutionCounter.set(0);
+		finished = limit <= 0;
+		output[0] = null;
+		output[1] = null;
+		if (stats != null) {
+			stats.start();
+		}
+		return new SolutionVisitor() {
+			public boolean visit(byte[] values) {
+				int n = solutionCounter.incrementAndGet();
+				if (n <= 2) {
+					output[n - 1] = new Board(values);
+				}
+				if (n >= limit) {
+					finished = true;
+					return false;
+				}
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Get the solutions kept by the last analysis.
+	 * 
+	 * @return the first solutions found, at most 2
+	 */
+	Board[] getSolutions() {
+		int n = Math.min(solutionCounter.get(), output.length);
+		Board[] ret = new Board[n];
+		System.arraycopy(output, 0, ret, 0, n);
 		return ret;
 	}
 
+	/**
+	 * Set the collector of search statistics. It is reset by every analysis.
+	 * 
+	 * @param stats
+	 *            the collector, or null to collect nothing
+	 */
+	public void setStats(SearchStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Get the collector of search statistics.
+	 * 
+	 * @return the collector, or null if none was set
+	 */
+	public SearchStats getStats() {
+		return stats;
+	}
+
 	public static void main(String[] args) {
 		if (args.length != 1) {
 			System.err
@@ -0,0 +1,111 @@
+package net.codingworks.sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * AnalyzerTask is a fork/join task exploring one branch of the search of a
+ * parallel analysis. Up to the split depth, a task forks one subtask per value
+ * of the selected cell; below it, the branch is analyzed sequentially.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see Analyzer#countSolutions(int, java.util.concurrent.ForkJoinPool)
+ */
+@SuppressWarnings("serial")
+class AnalyzerTask extends RecursiveAction {
+
+	/**
+	 * The Analyzer owning the analysis
+	 */
+	private Analyzer analyzer;
+
+	/**
+	 * The Board to explore
+	 */
+	private Board board;
+
+	/**
+	 * Number of values chosen along the path to the Board
+	 */
+	private int depth;
+
+	/**
+	 * The visitor receiving solutions
+	 */
+	private SolutionVisitor visitor;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param analyzer
+	 *            the Analyzer owning the analysis
+	 * @param board
+	 *            the Board to explore, owned by this task
+	 * @param depth
+	 *            number of values chosen along the path to the Board
+	 * @param visitor
+	 *            the visitor receiving solutions
+	 */
+	AnalyzerTask(Analyzer analyzer, Board board, int depth,
+			SolutionVisitor visitor) {
+		this.analyzer = analyzer;
+		this.board = board;
+		this.depth = depth;
+		this.visitor = visitor;
+	}
+
+	/**
+	 * Explore the Board.
+	 */
+	protected void compute() {
+		if (analyzer.cancelled()) {
+			return;
+		}
+		SearchStats total = analyzer.getStats();
+		SearchStats stats = null;
+		if (total != null) {
+			stats = new SearchStats();
+			stats.start();
+		}
+		if (depth >= Analyzer.SPLIT_DEPTH
+				|| board.getNumberOfEmptyCells() == 0) {
+			analyzer.analyze(board, depth, visitor, stats, analyzer
+					.getToken().fork());
+			add(total, stats);
+			return;
+		}
+
+		int k = Solver.selectCell(board, null);
+		short mask = board.getCandidates(k);
+		List<AnalyzerTask> tasks = new ArrayList<AnalyzerTask>();
+		for (byte v = 1; v <= 9; v++) {
+			if ((mask & Board.bit(v)) != 0) {
+				Board b = Analyzer.branch(board, k, v, depth, stats);
+				if (b != null) {
+					tasks.add(new AnalyzerTask(analyzer, b, depth + 1,
+							visitor));
+				}
+			}
+		}
+		add(total, stats);
+		board = null;
+		invokeAll(tasks);
+	}
+
+	/**
+	 * Add the statistics of this task to those of the analysis.
+	 * 
+	 * @param total
+	 *            the collector of the analysis, or null
+	 * @param stats
+	 *            the collector of this task, or null
+	 */
+	private static void add(SearchStats total, SearchStats stats) {
+		if (total != null) {
+			stats.finish();
+			total.add(stats);
+		}
+	}
+}
@@ -0,0 +1,387 @@
+package net.codingworks.sudoku;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Batch solves or analyzes a stream of puzzles, one input string per line, on
+ * a pool of worker threads. Results are written one line per puzzle in input
+ * order: the solution string or "No solution" when solving as
+ * {@link Solver#getSolution(String, Engine)} does, the report with
+ * line breaks replaced by spaces when analyzing, or the error message for an
+ * invalid puzzle. Blank lines are skipped. With a SolutionCache, a puzzle
+ * equivalent to a recent one is answered from the cache without a search.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class Batch {
+
+	/**
+	 * Number of pending puzzles allowed per worker thread
+	 */
+	private static final int WINDOW = 64;
+
+	/**
+	 * True to analyze puzzles and false to solve them
+	 */
+	private boolean analyze;
+
+	/**
+	 * The search engine
+	 */
+	private Engine engine;
+
+	/**
+	 * Number of worker threads
+	 */
+	private int threads;
+
+	/**
+	 * The cache of recent solutions, or null
+	 */
+	private SolutionCache cache;
+
+	/**
+	 * Latency of each puzzle in nanoseconds
+	 */
+	private long[] latencies = new long[1024];
+
+	/**
+	 * Number of puzzles processed
+	 */
+	private int count = 0;
+
+	/**
+	 * Start time of the last run in nanoseconds
+	 */
+	private long startTime = 0;
+
+	/**
+	 * Elapsed time of the last run in nanoseconds
+	 */
+	private long elapsedTime = 0;
+
+	/**
+	 * The worker threads of the current run
+	 */
+	private ExecutorService pool;
+
+	/**
+	 * Pending results in input order
+	 */
+	private Deque<Future<String>> pending;
+
+	/**
+	 * Latencies of the pending results
+	 */
+	private Deque<long[]> times;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param analyze
+	 *            true to analyze puzzles and false to solve them
+	 * @param engine
+	 *            the search engine
+	 * @param threads
+	 *            number of worker threads
+	 */
+	public Batch(boolean analyze, Engine engine, int threads) {
+		this.analyze = analyze;
+		this.engine = engine;
+		this.threads = threads;
+	}
+
+	/**
+	 * Set the cache of recent solutions, shared by the worker threads. Its
+	 * own search engine is used on misses.
+	 * 
+	 * @param cache
+	 *            the cache, or null to search every puzzle
+	 */
+	public void setCache(SolutionCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Get the cache of recent solutions.
+	 * 
+	 * @return the cache, or null if every puzzle is searched
+	 */
+	public SolutionCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Process all puzzles from a reader.
+	 * 
+	 * @param in
+	 *            the reader of input strings, one per line
+	 * @param out
+	 *            the writer of results, one per line
+	 * @return the number of puzzles processed
+	 * @throws Exception
+	 */
+	public int run(BufferedReader in, Writer out) throws Exception {
+		start();
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0) {
+					submit(new Board(line), out);
+				}
+			}
+			finish(out);
+		} finally {
+			pool.shutdownNow();
+		}
+		return count;
+	}
+
+	/**
+	 * Process all puzzles from a memory-mapped file. Puzzles are parsed from
+	 * the mapped bytes without creating strings.
+	 * 
+	 * @param in
+	 *            the reader of the file
+	 * @param out
+	 *            the writer of results, one per line
+	 * @return the number of puzzles processed
+	 * @throws Exception
+	 */
+	public int run(CorpusReader in, Writer out) throws Exception {
+		start();
+		try {
+			for (CorpusRegion region : in.split(1)) {
+				Board board = new Board("");
+				while (region.next(board)) {
+					submit(board, out);
+					board = new Board("");
+				}
+			}
+			finish(out);
+		} finally {
+			pool.shutdownNow();
+		}
+		return count;
+	}
+
+	/**
+	 * Start a run.
+	 */
+	private void start() {
+		count = 0;
+		startTime = System.nanoTime();
+		pool = Executors.newFixedThreadPool(threads);
+		pending = new ArrayDeque<Future<String>>();
+		times = new ArrayDeque<long[]>();
+	}
+
+	/**
+	 * Submit a puzzle to the worker threads, writing the oldest result first
+	 * if too many are pending.
+	 * 
+	 * @param board
+	 *            the puzzle, owned by the worker from now on
+	 * @param out
+	 *            the writer of results
+	 * @throws Exception
+	 */
+	private void submit(final Board board, Writer out) throws Exception {
+		if (pending.size() >= WINDOW * threads) {
+			write(pending.poll(), times.poll(), out);
+		}
+		final long[] latency = new long[1];
+		times.add(latency);
+		pending.add(pool.submit(new Callable<String>() {
+			public String call() {
+				long startTime = System.nanoTime();
+				String ret = process(board);
+				latency[0] = System.nanoTime() - startTime;
+				return ret;
+			}
+		}));
+	}
+
+	/**
+	 * Write all pending results and finish a run.
+	 * 
+	 * @param out
+	 *            the writer of results
+	 * @throws Exception
+	 */
+	private void finish(Writer out) throws Exception {
+		while (!pending.isEmpty()) {
+			write(pending.poll(), times.poll(), out);
+		}
+		out.flush();
+		elapsedTime = System.nanoTime() - startTime;
+	}
+
+	/**
+	 * Write the result of a puzzle and record its latency.
+	 * 
+	 * @param result
+	 *            the pending result
+	 * @param latency
+	 *            the latency in nanoseconds, set when the result is ready
+	 * @param out
+	 *            the writer of results
+	 * @throws Exception
+	 */
+	private void write(Future<String> result, long[] latency, Writer out)
+			throws Exception {
+		String str = result.get();
+		if (count == latencies.length) {
+			latencies = Arrays.copyOf(latencies, 2 * count);
+		}
+		latencies[count++] = latency[0];
+		out.write(str);
+		out.write('\n');
+	}
+
+	/**
+	 * Solve or analyze a puzzle.
+	 * 
+	 * @param board
+	 *            the puzzle
+	 * @return the result
+	 */
+	private String process(Board board) {
+		String ret;
+		try {
+			if (analyze) {
+				String report = cache != null ? cache.getReport(board
+						.toString()) : new Analyzer(board).getReport(engine);
+				ret = report.replace('\n', ' ');
+			} else if (cache != null) {
+				ret = cache.getSolution(board.toString());
+				if (ret == null) {
+					ret = "No solution";
+				}
+			} else {
+				Board result = new Solver(board).solve(engine);
+				ret = result != null ? result.toString() : "No solution";
+			}
+		} catch (Exception e) {
+			ret = e.getMessage() != null ? e.getMessage() : e.toString();
+		}
+		return ret;
+	}
+
+	/**
+	 * Get the throughput and latency statistics of the last run.
+	 * 
+	 * @return a one-line summary
+	 */
+	public String getSummary() {
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		double seconds = elapsedTime / 1e9;
+		return String.format("%d puzzles in %.3f s (%.1f puzzles/s), "
+				+ "latency p50=%dus p90=%dus p99=%dus max=%dus", count,
+				seconds, count / Math.max(seconds, 1e-9),
+				percentile(sorted, 50), percentile(sorted, 90),
+				percentile(sorted, 99), percentile(sorted, 100));
+	}
+
+	/**
+	 * Get a percentile of sorted latencies.
+	 * 
+	 * @param sorted
+	 *            latencies in nanoseconds in ascending order
+	 * @param p
+	 *            the percentile (0-100)
+	 * @return the latency in microseconds
+	 */
+	private static long percentile(long[] sorted, int p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(idx, 0)] / 1000;
+	}
+
+	public static void main(String[] args) {
+		boolean analyze = false;
+		Engine engine = Engine.COPY;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int cacheSize = 0;
+		String inputFile = null;
+		String outputFile = null;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-a")) {
+					analyze = true;
+				} else if (args[i].equals("-e")) {
+					engine = Engine.valueOf(args[++i].toUpperCase());
+				} else if (args[i].equals("-t")) {
+					threads = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-c")) {
+					cacheSize = Integer.parseInt(args[++i]);
+					if (cacheSize <= 0) {
+						throw new IllegalArgumentException(args[i]);
+					}
+				} else if (args[i].equals("-o")) {
+					outputFile = args[++i];
+				} else if (inputFile == null && !args[i].startsWith("-")) {
+					inputFile = args[i];
+				} else {
+					throw new IllegalArgumentException(args[i]);
+				}
+			}
+		} catch (RuntimeException e) {
+			System.err.println("Usage: java net.codingworks.sudoku.Batch [-a] "
+					+ "[-e COPY|TRAIL|DLX] [-t <threads>] [-c <cache size>] "
+					+ "[-o <output file>] [<input file>]");
+			System.exit(1);
+		}
+
+		try {
+			Writer out = new BufferedWriter(new OutputStreamWriter(
+					outputFile == null ? System.out : new FileOutputStream(
+							outputFile), "US-ASCII"), 1 << 16);
+			Batch batch = new Batch(analyze, engine, threads);
+			if (cacheSize > 0) {
+				batch.setCache(new SolutionCache(cacheSize, engine));
+			}
+			try {
+				if (inputFile == null) {
+					batch.run(new BufferedReader(new InputStreamReader(
+							System.in, "US-ASCII")), out);
+				} else {
+					CorpusReader in = new CorpusReader(new File(inputFile));
+					try {
+						batch.run(in, out);
+					} finally {
+						in.close();
+					}
+				}
+			} finally {
+				out.close();
+			}
+			System.err.println(batch.getSummary());
+			if (batch.getCache() != null) {
+				System.err.println("cache " + batch.getCache());
+			}
+		} catch (Exception e) {
+			System.err.println(e.getMessage() != null ? e.getMessage() : e
+					.toString());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,547 @@
+package net.codingworks.sudoku;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchSolver solves many puzzles at once. The puzzles of a batch are stored
+ * as a struct of arrays, the masks of a cell in all puzzles next to one
+ * another, and forced moves are applied to all of them in lockstep: each
+ * round recomputes the candidates, finds the naked and hidden singles and
+ * fills them. The loops over the puzzles select with masks instead of
+ * branching on the state of a puzzle, so a solved puzzle costs no more than
+ * the others and C2 can vectorize the rounds. Rounds go on while any puzzle
+ * makes progress. Most easy and medium puzzles are solved by forced moves
+ * alone; only the puzzles left with empty cells fall back to a TrailSolver,
+ * one at a time. The summary of the last batch gives its throughput and the
+ * number of puzzles which needed the fallback.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class BatchSolver {
+
+	/**
+	 * Maximum number of puzzles of a batch
+	 */
+	private int capacity;
+
+	/**
+	 * Number of puzzles of the batch
+	 */
+	private int size = 0;
+
+	/**
+	 * Filled values, with the bit of the value of cell k of puzzle p at k *
+	 * capacity + p, or 0 for an empty cell
+	 */
+	private short[] placed;
+
+	/**
+	 * Candidate masks of the empty cells in the same layout, 0 for a filled
+	 * cell
+	 */
+	private short[] candidates;
+
+	/**
+	 * Masks of the values filled in each unit, the mask of unit u of puzzle p
+	 * at u * capacity + p
+	 */
+	private char[] used;
+
+	/**
+	 * Masks of the values filled more than once in each unit
+	 */
+	private char[] duplicates;
+
+	/**
+	 * Masks of the candidates of each unit, then of its hidden singles
+	 */
+	private char[] once;
+
+	/**
+	 * Masks of the candidates of more than one cell of each unit
+	 */
+	private char[] twice;
+
+	/**
+	 * Values forced in each cell during a round, in the layout of the values
+	 */
+	private short[] forced;
+
+	/**
+	 * Nonzero for each puzzle found to have no solution
+	 */
+	private short[] errors;
+
+	/**
+	 * Nonzero for each puzzle having filled a cell during a round
+	 */
+	private char[] progress;
+
+	/**
+	 * True for each puzzle of the last batch having a solution
+	 */
+	private boolean[] solved;
+
+	/**
+	 * The solver of the puzzles left with empty cells
+	 */
+	private TrailSolver fallback = new TrailSolver();
+
+	/**
+	 * Number of rounds of the last batch
+	 */
+	private int rounds = 0;
+
+	/**
+	 * Number of puzzles of the last batch which needed the fallback
+	 */
+	private int fallbacks = 0;
+
+	/**
+	 * Number of puzzles of the last batch without solution
+	 */
+	private int unsolved = 0;
+
+	/**
+	 * Elapsed time of the last batch in nanoseconds
+	 */
+	private long elapsedTime = 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity
+	 *            maximum number of puzzles of a batch
+	 */
+	public BatchSolver(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity " + capacity);
+		}
+		this.capacity = capacity;
+		placed = new short[Board.CELLS * capacity];
+		candidates = new short[Board.CELLS * capacity];
+		used = new char[Board.UNITS * capacity];
+		duplicates = new char[Board.UNITS * capacity];
+		once = new char[Board.UNITS * capacity];
+		twice = new char[Board.UNITS * capacity];
+		forced = new short[Board.CELLS * capacity];
+		errors = new short[capacity];
+		progress = new char[capacity];
+		solved = new boolean[capacity];
+	}
+
+	/**
+	 * Add a puzzle to the batch.
+	 * 
+	 * @param input
+	 *            an input Board object, which is validated and updated as by
+	 *            {@link Solver#solve()}
+	 * @return the index of the puzzle in the batch
+	 * @throws IllegalStateException
+	 *             if the batch is full
+	 * @throws Exception
+	 *             if the puzzle is invalid
+	 */
+	public int add(Board input) throws Exception {
+		if (size == capacity) {
+			throw new IllegalStateException("The batch is full");
+		}
+		input.updateCells();
+		for (int k = 0; k < Board.CELLS; k++) {
+			byte v = input.getValue(k);
+			placed[k * capacity + size] = v != 0 ? Board.bit(v) : 0;
+		}
+		solved[size] = false;
+		return size++;
+	}
+
+	/**
+	 * Get the number of puzzles of the batch.
+	 * 
+	 * @return the number of puzzles
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Empty the batch.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Solve the puzzles of the batch.
+	 * 
+	 * @return the number of puzzles solved
+	 */
+	public int solve() {
+		long startTime = System.nanoTime();
+		int n = size;
+		for (int p = 0; p < n; p++) {
+			errors[p] = 0;
+		}
+		rounds = 0;
+		boolean again = true;
+		while (again) {
+			rounds++;
+			updateUnits(n);
+			updateCandidates(n);
+			findHiddenSingles(n);
+			fillSingles(n);
+			again = false;
+			for (int p = 0; p < n; p++) {
+				if (progress[p] != 0 && errors[p] == 0) {
+					again = true;
+				}
+			}
+		}
+		fallbacks = 0;
+		unsolved = 0;
+		for (int p = 0; p < n; p++) {
+			solved[p] = errors[p] == 0 && (isFilled(p) || search(p));
+			if (!solved[p]) {
+				unsolved++;
+			}
+		}
+		elapsedTime = System.nanoTime() - startTime;
+		return n - unsolved;
+	}
+
+	/**
+	 * Rebuild the masks of the values filled in each unit.
+	 * 
+	 * @param n
+	 *            the number of puzzles
+	 */
+	private void updateUnits(int n) {
+		// in each loop, the arrays of the same element type are accessed at
+		// the same offset, which the compiler needs to vectorize the loop
+		for (int u = 0; u < Board.UNITS; u++) {
+			int row = u * capacity;
+			int[] cells = Board.UNIT_CELLS[u];
+			int base = cells[0] * capacity;
+			for (int p = 0; p < n; p++) {
+				used[row + p] = (char) placed[base + p];
+				duplicates[row + p] = 0;
+			}
+			for (int i = 1; i < Board.SIZE; i++) {
+				base = cells[i] * capacity;
+				for (int p = 0; p < n; p++) {
+					duplicates[row + p] = (char) (duplicates[row + p]
+							| used[row + p] & placed[base + p]);
+					used[row + p] = (char) (used[row + p] | placed[base + p]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rebuild the candidate masks of the empty cells.
+	 * 
+	 * @param n
+	 *            the number of puzzles
+	 */
+	private void updateCandidates(int n) {
+		for (int k = 0; k < Board.CELLS; k++) {
+			int base = k * capacity;
+			int row = Board.ROW[k] * capacity;
+			int col = Board.COL[k] * capacity;
+			int box = Board.BOX[k] * capacity;
+			// negative for an empty cell only, then shifted into all ones or
+			// zero: a shift of the difference itself is not vectorized
+			for (int p = 0; p < n; p++) {
+				candidates[base + p] = (short) (placed[base + p] - 1);
+			}
+			for (int p = 0; p < n; p++) {
+				candidates[base + p] = (short) (candidates[base + p] >> 15
+						& ~used[row + p] & Board.ALL);
+			}
+			for (int p = 0; p < n; p++) {
+				candidates[base + p] = (short) (candidates[base + p]
+						& ~used[col + p]);
+			}
+			for (int p = 0; p < n; p++) {
+				candidates[base + p] = (short) (candidates[base + p]
+						& ~used[box + p]);
+			}
+		}
+	}
+
+	/**
+	 * Find the values having a single place left in each unit, marking the
+	 * puzzles with duplicates or with a value without any place in a unit.
+	 * 
+	 * @param n
+	 *            the number of puzzles
+	 */
+	private void findHiddenSingles(int n) {
+		for (int u = 0; u < Board.UNITS; u++) {
+			int row = u * capacity;
+			int[] cells = Board.UNIT_CELLS[u];
+			int base = cells[0] * capacity;
+			for (int p = 0; p < n; p++) {
+				once[row + p] = (char) candidates[base + p];
+				twice[row + p] = 0;
+			}
+			for (int i = 1; i < Board.SIZE; i++) {
+				base = cells[i] * capacity;
+				for (int p = 0; p < n; p++) {
+					twice[row + p] = (char) (twice[row + p]
+							| once[row + p] & candidates[base + p]);
+					once[row + p] = (char) (once[row + p]
+							| candidates[base + p]);
+				}
+			}
+			for (int p = 0; p < n; p++) {
+				duplicates[row + p] = (char) (duplicates[row + p]
+						| (once[row + p] | used[row + p]) ^ Board.ALL);
+				once[row + p] = (char) (once[row + p] & ~twice[row + p]);
+			}
+			for (int p = 0; p < n; p++) {
+				errors[p] = (short) (errors[p] | duplicates[row + p]);
+			}
+		}
+	}
+
+	/**
+	 * Fill the naked and hidden singles. A cell forced to two values makes
+	 * duplicates, found in the next round.
+	 * 
+	 * @param n
+	 *            the number of puzzles
+	 */
+	private void fillSingles(int n) {
+		for (int p = 0; p < n; p++) {
+			progress[p] = 0;
+		}
+		for (int k = 0; k < Board.CELLS; k++) {
+			int base = k * capacity;
+			int row = Board.ROW[k] * capacity;
+			int col = Board.COL[k] * capacity;
+			int box = Board.BOX[k] * capacity;
+			// the candidate mask if it has a single bit and zero otherwise
+			for (int p = 0; p < n; p++) {
+				forced[base + p] = (short) ((candidates[base + p]
+						& candidates[base + p] - 1) - 1);
+			}
+			for (int p = 0; p < n; p++) {
+				forced[base + p] = (short) (candidates[base + p]
+						& forced[base + p] >> 15 | candidates[base + p]
+						& once[row + p]);
+			}
+			for (int p = 0; p < n; p++) {
+				forced[base + p] = (short) (forced[base + p]
+						| candidates[base + p] & once[col + p]);
+			}
+			for (int p = 0; p < n; p++) {
+				forced[base + p] = (short) (forced[base + p]
+						| candidates[base + p] & once[box + p]);
+			}
+			for (int p = 0; p < n; p++) {
+				placed[base + p] = (short) (placed[base + p]
+						| forced[base + p]);
+				progress[p] = (char) (progress[p] | forced[base + p]);
+			}
+		}
+	}
+
+	/**
+	 * Check if all cells of a puzzle are filled.
+	 * 
+	 * @param p
+	 *            the index of the puzzle
+	 * @return true if no cell is empty
+	 */
+	private boolean isFilled(int p) {
+		for (int k = 0; k < Board.CELLS; k++) {
+			if (placed[k * capacity + p] == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Search for a solution of a puzzle left with empty cells, storing it
+	 * into the batch.
+	 * 
+	 * @param p
+	 *            the index of the puzzle
+	 * @return true if a solution was found
+	 */
+	private boolean search(int p) {
+		fallbacks++;
+		Board board = new Board(getValues(p));
+		try {
+			board.updateCells();
+		} catch (Exception e) {
+			return false;
+		}
+		fallback.load(board);
+		if (!fallback.solve()) {
+			return false;
+		}
+		byte[] values = fallback.getBoard().getValues();
+		for (int k = 0; k < Board.CELLS; k++) {
+			placed[k * capacity + p] = Board.bit(values[k]);
+		}
+		return true;
+	}
+
+	/**
+	 * Get the cell values of a puzzle of the batch.
+	 * 
+	 * @param p
+	 *            the index of the puzzle
+	 * @return the cell values in row order
+	 */
+	private byte[] getValues(int p) {
+		byte[] values = new byte[Board.CELLS];
+		for (int k = 0; k < Board.CELLS; k++) {
+			short bit = placed[k * capacity + p];
+			if (bit != 0) {
+				values[k] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Get the solution of a puzzle of the last batch.
+	 * 
+	 * @param p
+	 *            the index of the puzzle
+	 * @return a solved Board, or null if the puzzle has no solution
+	 */
+	public Board getSolution(int p) {
+		return solved[p] ? new Board(getValues(p)) : null;
+	}
+
+	/**
+	 * Get the number of rounds of forced moves of the last batch.
+	 * 
+	 * @return the number of rounds
+	 */
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Get the number of puzzles of the last batch which needed a search.
+	 * 
+	 * @return the number of puzzles
+	 */
+	public int getFallbacks() {
+		return fallbacks;
+	}
+
+	/**
+	 * Get the elapsed time of the last batch.
+	 * 
+	 * @return the elapsed time in nanoseconds
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * Get the throughput statistics of the last batch.
+	 * 
+	 * @return a one-line summary
+	 */
+	public String getSummary() {
+		double seconds = elapsedTime / 1e9;
+		return String.format("%d puzzles in %.3f ms (%.1f puzzles/s), "
+				+ "%d rounds, %d needed a search, %d without solution", size,
+				seconds * 1e3, size / Math.max(seconds, 1e-9), rounds,
+				fallbacks, unsolved);
+	}
+
+	public static void main(String[] args) {
+		int capacity = 1024;
+		String inputFile = null;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-k")) {
+					capacity = Integer.parseInt(args[++i]);
+					if (capacity <= 0) {
+						throw new IllegalArgumentException(args[i]);
+					}
+				} else if (inputFile == null && !args[i].startsWith("-")) {
+					inputFile = args[i];
+				} else {
+					throw new IllegalArgumentException(args[i]);
+				}
+			}
+		} catch (RuntimeException e) {
+			System.err.println("Usage: java net.codingworks.sudoku.BatchSolver "
+					+ "[-k <batch size>] [<input file>]");
+			System.exit(1);
+		}
+
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					inputFile == null ? System.in : new FileInputStream(
+							inputFile), "US-ASCII"));
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out,
+					"US-ASCII"), 1 << 16);
+			try {
+				BatchSolver solver = new BatchSolver(capacity);
+				// results in input order, null for a puzzle of the batch
+				List<String> results = new ArrayList<String>();
+				String line;
+				while (true) {
+					line = in.readLine();
+					if (line == null || solver.size() == capacity) {
+						solver.solve();
+						int p = 0;
+						for (String result : results) {
+							if (result == null) {
+								Board solution = solver.getSolution(p++);
+								result = solution != null ? solution
+										.toString() : "No solution";
+							}
+							out.write(result);
+							out.write('\n');
+						}
+						if (solver.size() > 0) {
+							System.err.println(solver.getSummary());
+						}
+						solver.clear();
+						results.clear();
+					}
+					if (line == null) {
+						break;
+					}
+					line = line.trim();
+					if (line.length() > 0) {
+						try {
+							solver.add(new Board(line));
+							results.add(null);
+						} catch (IllegalStateException e) {
+							throw e;
+						} catch (Exception e) {
+							results.add(e.getMessage());
+						}
+					}
+				}
+			} finally {
+				in.close();
+				out.close();
+			}
+		} catch (Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -1,8 +1,14 @@
 package net.codingworks.sudoku;
 
+import java.nio.ByteBuffer;
+
 /**
- * Board is the class for Sudoku puzzles. A Board object contains a
- * two-dimensional array of Cell objects.
+ * Board is the class for Sudoku puzzles. A Board object keeps its state in
+ * compact arrays: cell values in a byte array and available values
+ * (candidates) in a short array of 9-bit masks, both indexed by
+ * {@code 9 * row + column}. The digits used in each row, column and box are
+ * kept as masks as well, so that candidates can be computed with a few bitwise
+ * operations. Cell objects obtained from a Board are views of these arrays.
  * 
  * @author Rongqin Sheng
  * @version 1.0
@@ -10,18 +16,122 @@ package net.codingworks.sudoku;
 public class Board {
 
 	/**
-	 * A two-dimensional array of Cell objects
+	 * Board size
+	 */
+	static final int SIZE = 9;
+
+	/**
+	 * Number of cells
+	 */
+	static final int CELLS = 81;
+
+	/**
+	 * Candidate mask with all values 1-9 available
+	 */
+	static final short ALL = 0x1FF;
+
+	/**
+	 * Number of units (9 rows, 9 columns and 9 boxes)
+	 */
+	static final int UNITS = 27;
+
+	/**
+	 * Row unit of each cell (0-8)
+	 */
+	static final int[] ROW = new int[CELLS];
+
+	/**
+	 * Column unit of each cell (9-17)
+	 */
+	static final int[] COL = new int[CELLS];
+
+	/**
+	 * Box unit of each cell (18-26)
+	 */
+	static final int[] BOX = new int[CELLS];
+
+	/**
+	 * Cells of each unit in row order
+	 */
+	static final int[][] UNIT_CELLS = new int[UNITS][SIZE];
+
+	/**
+	 * The 20 peers of each cell, i.e. the other cells in its row, column and
+	 * box
+	 */
+	static final int[][] PEERS = new int[CELLS][20];
+
+	static {
+		int[] unitSize = new int[UNITS];
+		for (int k = 0; k < CELLS; k++) {
+			int i = k / SIZE;
+			int j = k % SIZE;
+			ROW[k] = i;
+			COL[k] = SIZE + j;
+			BOX[k] = 2 * SIZE + 3 * (i / 3) + j / 3;
+			UNIT_CELLS[ROW[k]][unitSize[ROW[k]]++] = k;
+			UNIT_CELLS[COL[k]][unitSize[COL[k]]++] = k;
+			UNIT_CELLS[BOX[k]][unitSize[BOX[k]]++] = k;
+		}
+		for (int k = 0; k < CELLS; k++) {
+			int n = 0;
+			for (int p = 0; p < CELLS; p++) {
+				if (p != k && (ROW[p] == ROW[k] || COL[p] == COL[k]
+						|| BOX[p] == BOX[k])) {
+					PEERS[k][n++] = p;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cell values in row order. 1-9 for filled cells, 0 for empty cells.
+	 */
+	private byte[] values;
+
+	/**
+	 * Candidate masks in row order. Bit v - 1 is set iff value v can be
+	 * filled in the cell.
+	 */
+	private short[] candidates;
+
+	/**
+	 * Masks of the values filled in each unit, indexed by unit (see ROW, COL
+	 * and BOX)
+	 */
+	private short[] used;
+
+	/**
+	 * Number of empty cells
+	 */
+	private int empty;
+
+	/**
+	 * Index of empty cells by rank, or null if not attached
 	 */
-	private Cell[][] cells;
+	private RankIndex rankIndex;
+
+	/**
+	 * Cell views, created on demand
+	 */
+	private Cell[] views;
 
 	/**
 	 * Constructor
 	 * 
 	 * @param cells
-	 *            a given two-dimensional array of Cell objects
+	 *            a given two-dimensional array of Cell objects. The state of
+	 *            the cells is copied into this Board.
 	 */
 	public Board(Cell[][] cells) {
-		this.cells = cells;
+		this(new byte[CELLS], new short[CELLS], new short[UNITS], CELLS);
+		for (int i = 0; i < SIZE; i++) {
+			for (int j = 0; j < SIZE; j++) {
+				Cell c = cells[i][j];
+				setValue(SIZE * i + j, c.getValue());
+				candidates[SIZE * i + j] = c.getCandidates();
+			}
+		}
 	}
 
 	/**
@@ -32,24 +142,94 @@ public class Board {
 	 *            than 1-9 can be used for an empty cell.
 	 */
 	public Board(String inp) {
-		cells = new Cell[9][9];
-		int idx = 0;
-		for (byte i = 0; i < 9; i++) {
-			for (byte j = 0; j < 9; j++) {
-				byte val = 0;
-				if (idx < inp.length()) {
-					try {
-						val = Byte.parseByte(inp.substring(idx, idx + 1));
-					} catch (NumberFormatException nfe) {
-						val = 0;
-					}
-				}
-				cells[i][j] = new Cell(val);
-				idx++;
+		this(new byte[CELLS], new short[CELLS], new short[UNITS], CELLS);
+		int len = Math.min(inp.length(), CELLS);
+		for (int k = 0; k < len; k++) {
+			char ch = inp.charAt(k);
+			if (ch >= '1' && ch <= '9') {
+				setValue(k, (byte) (ch - '0'));
+			}
+		}
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param vals
+	 *            cell values in row order, which are copied
+	 */
+	Board(byte[] vals) {
+		this(new byte[CELLS], new short[CELLS], new short[UNITS], CELLS);
+		for (int k = 0; k < CELLS; k++) {
+			if (vals[k] != 0) {
+				setValue(k, vals[k]);
 			}
 		}
 	}
 
+	/**
+	 * Constructor
+	 * 
+	 * @param values
+	 *            cell values in row order
+	 * @param candidates
+	 *            candidate masks in row order
+	 * @param used
+	 *            masks of the values filled in each unit
+	 * @param empty
+	 *            number of empty cells
+	 */
+	private Board(byte[] values, short[] candidates, short[] used, int empty) {
+		this.values = values;
+		this.candidates = candidates;
+		this.used = used;
+		this.empty = empty;
+	}
+
+	/**
+	 * Get the candidate mask of a value.
+	 * 
+	 * @param val
+	 *            cell value (1-9)
+	 * @return a mask with only bit val - 1 set
+	 */
+	static short bit(int val) {
+		return (short) (1 << (val - 1));
+	}
+
+	/**
+	 * Overwrite the state of this Board with a puzzle read from a buffer,
+	 * using the same format as {@link #Board(String)}. Candidates are
+	 * cleared.
+	 * 
+	 * @param buf
+	 *            the buffer
+	 * @param start
+	 *            index of the first character of the puzzle
+	 * @param end
+	 *            index after the last character of the puzzle
+	 */
+	void load(ByteBuffer buf, int start, int end) {
+		for (int k = 0; k < CELLS; k++) {
+			values[k] = 0;
+			candidates[k] = 0;
+		}
+		for (int u = 0; u < UNITS; u++) {
+			used[u] = 0;
+		}
+		empty = CELLS;
+		int len = Math.min(end - start, CELLS);
+		for (int k = 0; k < len; k++) {
+			int ch = buf.get(start + k);
+			if (ch >= '1' && ch <= '9') {
+				setValue(k, (byte) (ch - '0'));
+			}
+		}
+		if (rankIndex != null) {
+			rankIndex.build(this);
+		}
+	}
+
 	/**
 	 * Get a cell
 	 * 
@@ -58,7 +238,7 @@ public class Board {
 	 * @return a Cell object
 	 */
 	public Cell getCell(int[] idx) {
-		return cells[idx[0]][idx[1]];
+		return getCell(idx[0], idx[1]);
 	}
 
 	/**
@@ -71,114 +251,225 @@ public class Board {
 	 * @return a Cell object
 	 */
 	public Cell getCell(int i, int j) {
-		return cells[i][j];
+		if (views == null) {
+			views = new Cell[CELLS];
+		}
+		int k = SIZE * i + j;
+		Cell c = views[k];
+		if (c == null) {
+			c = new Cell(this, values, candidates, k);
+			views[k] = c;
+		}
+		return c;
 	}
 
 	/**
-	 * Get a copy of this Board.
+	 * Get a cell value
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @return cell value
+	 */
+	byte getValue(int k) {
+		return values[k];
+	}
+
+	/**
+	 * Get the cell values in row order. The array is owned by this Board.
+	 * 
+	 * @return cell values
+	 */
+	byte[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Set a cell value and update the masks of its row, column and box.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param val
+	 *            cell value
+	 */
+	void setValue(int k, byte val) {
+		byte old = values[k];
+		if (old > 0) {
+			int m = ~mask(old);
+			used[ROW[k]] &= m;
+			used[COL[k]] &= m;
+			used[BOX[k]] &= m;
+		} else {
+			empty--;
+		}
+		if (val > 0) {
+			int m = mask(val);
+			used[ROW[k]] |= m;
+			used[COL[k]] |= m;
+			used[BOX[k]] |= m;
+		} else {
+			empty++;
+		}
+		values[k] = val;
+		if (rankIndex != null) {
+			rankIndex.update(k, val == 0 ? getRank(k) : -1);
+		}
+	}
+
+	/**
+	 * Get the mask of the values filled in a unit
+	 * 
+	 * @param unit
+	 *            unit index (see ROW, COL and BOX)
+	 * @return a mask of filled values
+	 */
+	short getUsed(int unit) {
+		return used[unit];
+	}
+
+	/**
+	 * Get the candidate mask of a cell
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @return candidate mask
+	 */
+	short getCandidates(int k) {
+		return candidates[k];
+	}
+
+	/**
+	 * Set the candidate mask of a cell
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param mask
+	 *            candidate mask
+	 */
+	void setCandidates(int k, short mask) {
+		candidates[k] = mask;
+		if (rankIndex != null && values[k] == 0) {
+			rankIndex.update(k, Integer.bitCount(mask));
+		}
+	}
+
+	/**
+	 * Get the rank (number of candidates) of a cell
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @return rank
+	 */
+	int getRank(int k) {
+		return Integer.bitCount(candidates[k]);
+	}
+
+	/**
+	 * Attach an index of empty cells by rank. The index is rebuilt from the
+	 * current state and kept up to date until another index is attached.
+	 * Copies of this Board do not share the index.
+	 * 
+	 * @param index
+	 *            the index, or null to detach the current one
+	 */
+	void setRankIndex(RankIndex index) {
+		rankIndex = index;
+		if (index != null) {
+			index.build(this);
+		}
+	}
+
+	/**
+	 * Get the attached index of empty cells by rank.
+	 * 
+	 * @return the index, or null if none is attached
+	 */
+	RankIndex getRankIndex() {
+		return rankIndex;
+	}
+
+	/**
+	 * Get a copy of this Board. The compact state is always copied in full,
+	 * so both kinds of copies are independent of this Board.
 	 * 
 	 * @param independent
-	 *            true to create a deep copy, false to create a partially deep
-	 *            copy where filled Cell objects are not duplicated.
+	 *            kept for compatibility. Filled cells used to be shared by
+	 *            partially deep copies.
 	 * @return a Board object
 	 */
 	public Board copy(boolean independent) {
-		Cell[][] cs = new Cell[9][9];
-		for (byte m = 0; m < 9; m++) {
-			for (byte n = 0; n < 9; n++) {
-				Cell c = cells[m][n];
-				if (independent) {
-					cs[m][n] = c.copy();
-				} else {
-					if (!c.isEmpty()) {
-
-						cs[m][n] = c;
-					}
+		return new Board(values.clone(), candidates.clone(), used.clone(),
+				empty);
+	}
 
-					else {
-						cs[m][n] = c.copy();
-					}
-				}
-			}
+	/**
+	 * Overwrite the state of this Board with the state of another Board. An
+	 * attached index is rebuilt.
+	 * 
+	 * @param other
+	 *            the Board to copy from
+	 */
+	void copyFrom(Board other) {
+		System.arraycopy(other.values, 0, values, 0, CELLS);
+		System.arraycopy(other.candidates, 0, candidates, 0, CELLS);
+		System.arraycopy(other.used, 0, used, 0, UNITS);
+		empty = other.empty;
+		if (rankIndex != null) {
+			rankIndex.build(this);
 		}
-		return new Board(cs);
 	}
 
 	/**
-	 * Validate this Board
+	 * Validate this Board. The masks of filled values are rebuilt if it is
+	 * valid, and left as they were otherwise.
 	 * 
 	 * @throws Exception
 	 */
 	public void validate() throws Exception {
-		// check rows
-		boolean[] inRow = new boolean[10];
-		for (byte i = 0; i < 9; i++) {
-			for (byte v = 1; v <= 9; v++) {
-				inRow[v] = false;
-			}
-			for (byte j = 0; j < 9; j++) {
-				Cell c = cells[i][j];
-				byte val = c.getValue();
-				if (val > 0) {
-					if (val < 1 || val > 9) {
-						throw new Exception("Invalid cell value " + val
-								+ " at row " + (i + 1));
-					}
-					if (inRow[val]) {
-						throw new Exception("Duplicates at row " + (i + 1));
-					} else {
-						inRow[val] = true;
-					}
+		// units having duplicates, one bit per unit
+		int dup = 0;
+		// masks built aside, so that a failure leaves the Board unchanged
+		short[] used = new short[UNITS];
+		for (int k = 0; k < CELLS; k++) {
+			byte val = values[k];
+			if (val > 0) {
+				if (val > 9) {
+					throw new Exception("Invalid cell value " + val
+							+ " at row " + (ROW[k] + 1));
 				}
-			}
-		}
-
-		// check columns
-		boolean[] inCol = new boolean[10];
-		for (byte j = 0; j < 9; j++) {
-			for (byte v = 1; v <= 9; v++) {
-				inCol[v] = false;
-			}
-			for (byte i = 0; i < 9; i++) {
-				Cell c = cells[i][j];
-				byte val = c.getValue();
-				if (val > 0) {
-					if (inCol[val]) {
-						throw new Exception("Duplicates at column " + (j + 1));
-					} else {
-						inCol[val] = true;
-					}
+				short m = bit(val);
+				if ((used[ROW[k]] & m) != 0) {
+					dup |= 1 << ROW[k];
+				}
+				if ((used[COL[k]] & m) != 0) {
+					dup |= 1 << COL[k];
 				}
+				if ((used[BOX[k]] & m) != 0) {
+					dup |= 1 << BOX[k];
+				}
+				used[ROW[k]] |= m;
+				used[COL[k]] |= m;
+				used[BOX[k]] |= m;
 			}
 		}
-
-		// check boxes
-		boolean[] inBox = new boolean[10];
-		for (byte hShift = 0; hShift < 3; hShift++) {
-			for (byte vShift = 0; vShift < 3; vShift++) {
-				for (byte v = 1; v <= 9; v++) {
-					inBox[v] = false;
-				}
-				for (byte i = 0; i < 3; i++) {
-					for (byte j = 0; j < 3; j++) {
-						int m = i + 3 * hShift;
-						int n = j + 3 * vShift;
-						Cell c = cells[m][n];
-						byte val = c.getValue();
-						if (val > 0) {
-							if (inBox[val]) {
-								throw new Exception(
-										"Duplicates in box having row "
-												+ (m + 1) + " and column "
-												+ (n + 1));
-							} else {
-								inBox[val] = true;
-							}
-						}
-					}
+		if (dup != 0) {
+			int u = Integer.numberOfTrailingZeros(dup);
+			if (u < SIZE) {
+				throw new Exception("Duplicates at row " + (u + 1));
+			} else if (u < 2 * SIZE) {
+				throw new Exception("Duplicates at column " + (u - SIZE + 1));
+			}
+			// find the cell where the duplicate shows up
+			int inBox = 0;
+			for (int k : UNIT_CELLS[u]) {
+				int m = mask(values[k]);
+				if ((inBox & m) != 0) {
+					throw new Exception("Duplicates in box having row "
+							+ (k / SIZE + 1) + " and column " + (k % SIZE + 1));
 				}
+				inBox |= m;
 			}
 		}
+		System.arraycopy(used, 0, this.used, 0, UNITS);
 	}
 
 	/**
@@ -188,11 +479,9 @@ public class Board {
 	 */
 	public void updateCells() throws Exception {
 		validate();
-		for (byte i = 0; i < 9; i++) {
-			for (byte j = 0; j < 9; j++) {
-				if (cells[i][j].isEmpty()) {
-					updateCell(i, j);
-				}
+		for (int k = 0; k < CELLS; k++) {
+			if (values[k] == 0) {
+				updateCell(k);
 			}
 		}
 	}
@@ -200,106 +489,39 @@ public class Board {
 	/**
 	 * Update an empty cell.
 	 * 
-	 * @param i
-	 *            the first array index
-	 * @param j
-	 *            the second array index
+	 * @param k
+	 *            cell index in row order
 	 * @throws Exception
 	 */
-	private void updateCell(byte i, byte j) throws Exception {
-		Cell cell = cells[i][j];
-		if (cell.isEmpty()) {
-			// check row
-			boolean[] inRow = new boolean[10];
-			for (byte n = 0; n < 9; n++) {
-				if (n != j) {
-					Cell c = cells[i][n];
-					if (!c.isEmpty()) {
-						byte v = c.getValue();
-						if (inRow[v]) {
-							throw new Exception("Duplicates at row " + (i + 1));
-						} else {
-							inRow[v] = true;
-						}
-					}
-				}
-			}
-
-			// check column
-			boolean[] inCol = new boolean[10];
-			for (byte m = 0; m < 9; m++) {
-				if (m != i) {
-					Cell c = cells[m][j];
-					if (!c.isEmpty()) {
-						byte v = c.getValue();
-						if (inCol[v]) {
-							throw new Exception("Duplicates at column "
-									+ (j + 1));
-						} else {
-							inCol[v] = true;
-						}
-					}
-				}
-			}
-
-			// check box
-			boolean[] inBox = new boolean[10];
-			int qRow = i / 3;
-			int qCol = j / 3;
-
-			for (int m = 3 * qRow; m < 3 * qRow + 3; m++) {
-				for (int n = 3 * qCol; n < 3 * qCol + 3; n++) {
-					if (m != i || n != j) {
-						Cell c = cells[m][n];
-						if (!c.isEmpty()) {
-							byte v = c.getValue();
-							if (inBox[v]) {
-								throw new Exception(
-										"Duplicates in box having row "
-												+ (i + 1) + " and column "
-												+ (j + 1));
-							} else {
-								inBox[v] = true;
-							}
-						}
-					}
-				}
-			}
-
-			byte rank = 0;
-			for (byte v = 1; v <= 9; v++) {
-				if (inRow[v] || inCol[v] || inBox[v]) {
-					cell.setAvailable(v, false);
-				} else {
-					cell.setAvailable(v, true);
-					rank++;
-				}
-			}
-
-			if (rank > 0) {
-				cell.setRank(rank);
-			} else {
-				throw new Exception("No value can be set at row " + (i + 1)
-						+ " and column " + (j + 1));
-			}
+	private void updateCell(int k) throws Exception {
+		short available = (short) (ALL & ~(used[ROW[k]] | used[COL[k]]
+				| used[BOX[k]]));
+		if (available != 0) {
+			candidates[k] = available;
+		} else {
+			throw new Exception("No value can be set at row " + (k / SIZE + 1)
+					+ " and column " + (k % SIZE + 1));
 		}
 	}
 
+	/**
+	 * Get the candidate mask of a cell value, or 0 for an empty cell.
+	 * 
+	 * @param val
+	 *            cell value (0-9)
+	 * @return a mask with bit val - 1 set, or 0
+	 */
+	private static int mask(byte val) {
+		return val > 0 ? bit(val) : 0;
+	}
+
 	/**
 	 * Get the number of empty cells.
 	 * 
 	 * @return the number of empty cells
 	 */
 	public int getNumberOfEmptyCells() {
-		int numberOfCellsToFill = 81;
-		for (byte i = 0; i < 9; i++) {
-			for (byte j = 0; j < 9; j++) {
-				if (!cells[i][j].isEmpty()) {
-					numberOfCellsToFill--;
-				}
-			}
-		}
-		return numberOfCellsToFill;
+		return empty;
 	}
 
 	/**
@@ -308,10 +530,9 @@ public class Board {
 	public void print() {
 		for (byte m = 0; m < 9; m++) {
 			for (byte n = 0; n < 9; n++) {
-				Cell c = cells[m][n];
-				byte val = c.getValue();
+				byte val = values[SIZE * m + n];
 				if (val > 0) {
-					System.out.print(c.getValue() + "  ");
+					System.out.print(val + "  ");
 				} else {
 					System.out.print("*  ");
 				}
@@ -334,12 +555,10 @@ public class Board {
 	 * @return a string representation
 	 */
 	public String toString() {
-		StringBuilder sb = new StringBuilder();
-		for (byte m = 0; m < 9; m++) {
-			for (byte n = 0; n < 9; n++) {
-				sb.append(cells[m][n].getValue());
-			}
+		char[] chars = new char[CELLS];
+		for (int k = 0; k < CELLS; k++) {
+			chars[k] = (char) ('0' + values[k]);
 		}
-		return sb.toString();
+		return new String(chars);
 	}
 }
@@ -0,0 +1,333 @@
+package net.codingworks.sudoku;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * BoardCodec encodes puzzles and solved grids in a compact binary form. A
+ * puzzle takes 4 bits per cell, {@value #PUZZLE_BYTES} bytes in row order with
+ * the first cell of each pair in the high nibble. A solved grid is encoded by
+ * the rank of each of its first 8 rows among the permutations of 1-9 (its
+ * Lehmer code), on 19 bits per row, {@value #SOLUTION_BYTES} bytes in all; the
+ * last row is implied by the columns. A solution with all bits set stands for
+ * no solution.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class BoardCodec {
+
+	/**
+	 * Number of bytes of an encoded puzzle
+	 */
+	public static final int PUZZLE_BYTES = (Board.CELLS + 1) / 2;
+
+	/**
+	 * Number of bytes of an encoded solved grid
+	 */
+	public static final int SOLUTION_BYTES = 19;
+
+	/**
+	 * Number of bits of the rank of a row
+	 */
+	private static final int RANK_BITS = 19;
+
+	/**
+	 * Factorials of 0-8
+	 */
+	private static final int[] FACTORIAL = { 1, 1, 2, 6, 24, 120, 720, 5040,
+			40320 };
+
+	/**
+	 * Encode a puzzle.
+	 * 
+	 * @param board
+	 *            the puzzle
+	 * @param buf
+	 *            the buffer written at its position
+	 */
+	public static void writePuzzle(Board board, ByteBuffer buf) {
+		byte[] values = board.getValues();
+		for (int k = 0; k < Board.CELLS; k += 2) {
+			int lo = k + 1 < Board.CELLS ? values[k + 1] : 0;
+			buf.put((byte) (values[k] << 4 | lo));
+		}
+	}
+
+	/**
+	 * Decode a puzzle.
+	 * 
+	 * @param buf
+	 *            the buffer read at its position
+	 * @return the puzzle
+	 * @throws IllegalArgumentException
+	 *             if a cell value is greater than 9
+	 */
+	public static Board readPuzzle(ByteBuffer buf) {
+		byte[] values = new byte[Board.CELLS];
+		for (int k = 0; k < Board.CELLS; k += 2) {
+			int b = buf.get() & 0xFF;
+			values[k] = digit(b >>> 4);
+			if (k + 1 < Board.CELLS) {
+				values[k + 1] = digit(b & 0xF);
+			}
+		}
+		return new Board(values);
+	}
+
+	/**
+	 * Check a decoded cell value.
+	 * 
+	 * @param v
+	 *            the value
+	 * @return the value
+	 */
+	private static byte digit(int v) {
+		if (v > Board.SIZE) {
+			throw new IllegalArgumentException("Invalid cell value " + v);
+		}
+		return (byte) v;
+	}
+
+	/**
+	 * Encode a solved grid.
+	 * 
+	 * @param solution
+	 *            the grid, or null for no solution
+	 * @param buf
+	 *            the buffer written at its position
+	 * @throws IllegalArgumentException
+	 *             if a row or a column of the grid is not a permutation of 1-9
+	 */
+	public static void writeSolution(Board solution, ByteBuffer buf) {
+		if (solution == null) {
+			for (int i = 0; i < SOLUTION_BYTES; i++) {
+				buf.put((byte) 0xFF);
+			}
+			return;
+		}
+		byte[] values = solution.getValues();
+		int[] cols = new int[Board.SIZE];
+		for (int k = 0; k < Board.CELLS; k++) {
+			if (values[k] == 0) {
+				throw new IllegalArgumentException("Not a solved grid");
+			}
+			cols[k % Board.SIZE] |= Board.bit(values[k]);
+		}
+		for (int c : cols) {
+			if (c != Board.ALL) {
+				throw new IllegalArgumentException("Not a solved grid");
+			}
+		}
+		long acc = 0;
+		int bits = 0;
+		for (int i = 0; i < Board.SIZE - 1; i++) {
+			acc = acc << RANK_BITS | rank(values, i * Board.SIZE);
+			bits += RANK_BITS;
+			while (bits >= 8) {
+				bits -= 8;
+				buf.put((byte) (acc >>> bits));
+			}
+		}
+	}
+
+	/**
+	 * Compute the rank of a row among the permutations of 1-9.
+	 * 
+	 * @param values
+	 *            the cell values of the grid
+	 * @param start
+	 *            the first cell of the row
+	 * @return the rank
+	 * @throws IllegalArgumentException
+	 *             if the row is not a permutation of 1-9
+	 */
+	private static int rank(byte[] values, int start) {
+		int rank = 0;
+		int seen = 0;
+		for (int j = 0; j < Board.SIZE; j++) {
+			int bit = Board.bit(values[start + j]);
+			if ((seen & bit) != 0) {
+				throw new IllegalArgumentException("Not a solved grid");
+			}
+			seen |= bit;
+			// the smaller digits not seen on the left are on the right
+			int smaller = values[start + j] - 1
+					- Integer.bitCount(seen & (bit - 1));
+			rank += smaller * FACTORIAL[Board.SIZE - 1 - j];
+		}
+		return rank;
+	}
+
+	/**
+	 * Decode a solved grid.
+	 * 
+	 * @param buf
+	 *            the buffer read at its position
+	 * @return the grid, or null for no solution
+	 * @throws IllegalArgumentException
+	 *             if the encoding is not that of a solved grid
+	 */
+	public static Board readSolution(ByteBuffer buf) {
+		int none = 0;
+		for (int i = 0; i < SOLUTION_BYTES; i++) {
+			none += buf.get(buf.position() + i) == (byte) 0xFF ? 1 : 0;
+		}
+		if (none == SOLUTION_BYTES) {
+			buf.position(buf.position() + SOLUTION_BYTES);
+			return null;
+		}
+		byte[] values = new byte[Board.CELLS];
+		int[] cols = new int[Board.SIZE];
+		long acc = 0;
+		int bits = 0;
+		for (int i = 0; i < Board.SIZE - 1; i++) {
+			while (bits < RANK_BITS) {
+				acc = acc << 8 | (buf.get() & 0xFF);
+				bits += 8;
+			}
+			bits -= RANK_BITS;
+			int rank = (int) (acc >>> bits) & ((1 << RANK_BITS) - 1);
+			unrank(rank, values, i * Board.SIZE);
+		}
+		for (int k = 0; k < Board.CELLS - Board.SIZE; k++) {
+			cols[k % Board.SIZE] |= Board.bit(values[k]);
+		}
+		int seen = 0;
+		for (int j = 0; j < Board.SIZE; j++) {
+			int rest = Board.ALL & ~cols[j];
+			if (Integer.bitCount(rest) != 1 || (seen & rest) != 0) {
+				throw new IllegalArgumentException("Not a solved grid");
+			}
+			seen |= rest;
+			values[Board.CELLS - Board.SIZE + j] = (byte) (Integer
+					.numberOfTrailingZeros(rest) + 1);
+		}
+		return new Board(values);
+	}
+
+	/**
+	 * Fill a row with the permutation of 1-9 of a given rank.
+	 * 
+	 * @param rank
+	 *            the rank
+	 * @param values
+	 *            the cell values of the grid
+	 * @param start
+	 *            the first cell of the row
+	 * @throws IllegalArgumentException
+	 *             if the rank is out of range
+	 */
+	private static void unrank(int rank, byte[] values, int start) {
+		if (rank >= FACTORIAL[Board.SIZE - 1] * Board.SIZE) {
+			throw new IllegalArgumentException("Invalid row rank " + rank);
+		}
+		int left = Board.ALL;
+		for (int j = 0; j < Board.SIZE; j++) {
+			int f = FACTORIAL[Board.SIZE - 1 - j];
+			int smaller = rank / f;
+			rank %= f;
+			// the digit with this many smaller digits left
+			int m = left;
+			for (int s = 0; s < smaller; s++) {
+				m &= m - 1;
+			}
+			int bit = m & -m;
+			left &= ~bit;
+			values[start + j] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+		}
+	}
+
+	/**
+	 * Encode a puzzle to a stream.
+	 * 
+	 * @param board
+	 *            the puzzle
+	 * @param out
+	 *            the stream
+	 * @throws IOException
+	 */
+	public static void writePuzzle(Board board, OutputStream out)
+			throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(PUZZLE_BYTES);
+		writePuzzle(board, buf);
+		out.write(buf.array());
+	}
+
+	/**
+	 * Decode a puzzle from a stream.
+	 * 
+	 * @param in
+	 *            the stream
+	 * @return the puzzle, or null if the stream ended before it
+	 * @throws IOException
+	 *             if the stream ended inside the puzzle
+	 */
+	public static Board readPuzzle(InputStream in) throws IOException {
+		byte[] bytes = new byte[PUZZLE_BYTES];
+		if (!read(in, bytes)) {
+			return null;
+		}
+		return readPuzzle(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Encode a solved grid to a stream.
+	 * 
+	 * @param solution
+	 *            the grid, or null for no solution
+	 * @param out
+	 *            the stream
+	 * @throws IOException
+	 */
+	public static void writeSolution(Board solution, OutputStream out)
+			throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(SOLUTION_BYTES);
+		writeSolution(solution, buf);
+		out.write(buf.array());
+	}
+
+	/**
+	 * Decode a solved grid from a stream.
+	 * 
+	 * @param in
+	 *            the stream
+	 * @return the grid, or null for no solution
+	 * @throws IOException
+	 *             if the stream ended before the end of the grid
+	 */
+	public static Board readSolution(InputStream in) throws IOException {
+		byte[] bytes = new byte[SOLUTION_BYTES];
+		if (!read(in, bytes)) {
+			throw new EOFException();
+		}
+		return readSolution(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Read a whole record from a stream.
+	 * 
+	 * @param in
+	 *            the stream
+	 * @param bytes
+	 *            the record
+	 * @return true if the record was read and false if the stream ended
+	 *         before it
+	 * @throws IOException
+	 *             if the stream ended inside the record
+	 */
+	private static boolean read(InputStream in, byte[] bytes)
+			throws IOException {
+		int first = in.read();
+		if (first < 0) {
+			return false;
+		}
+		bytes[0] = (byte) first;
+		new DataInputStream(in).readFully(bytes, 1, bytes.length - 1);
+		return true;
+	}
+}
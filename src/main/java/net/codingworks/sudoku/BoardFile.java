@@ -0,0 +1,280 @@
+package net.codingworks.sudoku;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * BoardFile reads a file of puzzles written by a BoardFileWriter, with random
+ * access to any record. The file starts with a header giving the format
+ * version, whether every puzzle is followed by its solution and the number of
+ * records per frame. Frames follow, each made of its number of records, the
+ * CRC-32 of its records and the records, encoded by the BoardCodec. The
+ * offsets of the frames and a footer giving the offset of this index and the
+ * number of records end the file. A record is read by locating its frame in
+ * the index; the last frame read is kept after its checksum has been checked.
+ * A BoardFile is thread-safe.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see BoardFileWriter
+ */
+public class BoardFile implements Closeable {
+
+	/**
+	 * The magic number starting and ending a file, "SDKB"
+	 */
+	static final int MAGIC = 0x53444B42;
+
+	/**
+	 * The format version
+	 */
+	static final int VERSION = 1;
+
+	/**
+	 * Flag set in the header if every puzzle is followed by its solution
+	 */
+	static final int SOLUTIONS = 1;
+
+	/**
+	 * Number of bytes of the header
+	 */
+	static final int HEADER_BYTES = 8;
+
+	/**
+	 * Number of bytes of the header of a frame
+	 */
+	static final int FRAME_HEADER_BYTES = 8;
+
+	/**
+	 * Number of bytes of the footer
+	 */
+	static final int FOOTER_BYTES = 16;
+
+	/**
+	 * The file channel
+	 */
+	private FileChannel channel;
+
+	/**
+	 * True if every puzzle is followed by its solution
+	 */
+	private boolean solutions;
+
+	/**
+	 * Number of records per frame
+	 */
+	private int frameRecords;
+
+	/**
+	 * Number of bytes of a record
+	 */
+	private int recordBytes;
+
+	/**
+	 * Number of records
+	 */
+	private int records;
+
+	/**
+	 * Offsets of the frames
+	 */
+	private long[] index;
+
+	/**
+	 * The number of the last frame read, or -1
+	 */
+	private int cached = -1;
+
+	/**
+	 * The records of the last frame read
+	 */
+	private ByteBuffer frame;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param file
+	 *            the file
+	 * @throws IOException
+	 *             if the file cannot be read or is not in this format
+	 */
+	public BoardFile(File file) throws IOException {
+		channel = new RandomAccessFile(file, "r").getChannel();
+		try {
+			ByteBuffer header = read(0, HEADER_BYTES);
+			if (header.getInt() != MAGIC || header.get() != VERSION) {
+				throw new IOException("Not a board file: " + file);
+			}
+			solutions = (header.get() & SOLUTIONS) != 0;
+			frameRecords = header.getShort() & 0xFFFF;
+			recordBytes = recordBytes(solutions);
+			ByteBuffer footer = read(channel.size() - FOOTER_BYTES,
+					FOOTER_BYTES);
+			long indexOffset = footer.getLong();
+			records = footer.getInt();
+			if (footer.getInt() != MAGIC || frameRecords == 0) {
+				throw new IOException("Truncated board file: " + file);
+			}
+			int frames = (records + frameRecords - 1) / frameRecords;
+			ByteBuffer buf = read(indexOffset, frames * 8);
+			index = new long[frames];
+			for (int f = 0; f < frames; f++) {
+				index[f] = buf.getLong();
+			}
+			frame = ByteBuffer.allocate(frameRecords * recordBytes);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the number of bytes of a record.
+	 * 
+	 * @param solutions
+	 *            true if every puzzle is followed by its solution
+	 * @return the number of bytes
+	 */
+	static int recordBytes(boolean solutions) {
+		return BoardCodec.PUZZLE_BYTES
+				+ (solutions ? BoardCodec.SOLUTION_BYTES : 0);
+	}
+
+	/**
+	 * Read bytes of the file.
+	 * 
+	 * @param pos
+	 *            the position in the file
+	 * @param length
+	 *            the number of bytes
+	 * @return a buffer holding the bytes
+	 * @throws IOException
+	 */
+	private ByteBuffer read(long pos, int length) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(length);
+		read(pos, buf);
+		return buf;
+	}
+
+	/**
+	 * Fill a buffer from the file.
+	 * 
+	 * @param pos
+	 *            the position in the file
+	 * @param buf
+	 *            the buffer, filled up to its limit and flipped
+	 * @throws IOException
+	 */
+	private void read(long pos, ByteBuffer buf) throws IOException {
+		while (buf.hasRemaining()) {
+			int n = channel.read(buf, pos);
+			if (n < 0) {
+				throw new EOFException();
+			}
+			pos += n;
+		}
+		buf.flip();
+	}
+
+	/**
+	 * Get the number of records.
+	 * 
+	 * @return the number of records
+	 */
+	public int size() {
+		return records;
+	}
+
+	/**
+	 * Check if every puzzle is followed by its solution.
+	 * 
+	 * @return true if the file holds solutions
+	 */
+	public boolean hasSolutions() {
+		return solutions;
+	}
+
+	/**
+	 * Read a puzzle.
+	 * 
+	 * @param i
+	 *            the index of the record
+	 * @return the puzzle
+	 * @throws IOException
+	 *             if the file cannot be read or its frame is corrupt
+	 */
+	public synchronized Board getPuzzle(int i) throws IOException {
+		return BoardCodec.readPuzzle(record(i));
+	}
+
+	/**
+	 * Read a solution.
+	 * 
+	 * @param i
+	 *            the index of the record
+	 * @return the solution, or null if the puzzle has no solution
+	 * @throws IOException
+	 *             if the file cannot be read or its frame is corrupt
+	 * @throws IllegalStateException
+	 *             if the file holds no solutions
+	 */
+	public synchronized Board getSolution(int i) throws IOException {
+		if (!solutions) {
+			throw new IllegalStateException("No solutions in the file");
+		}
+		ByteBuffer buf = record(i);
+		buf.position(buf.position() + BoardCodec.PUZZLE_BYTES);
+		return BoardCodec.readSolution(buf);
+	}
+
+	/**
+	 * Locate a record, reading and checking its frame unless cached.
+	 * 
+	 * @param i
+	 *            the index of the record
+	 * @return the frame, positioned at the record
+	 * @throws IOException
+	 */
+	private ByteBuffer record(int i) throws IOException {
+		if (i < 0 || i >= records) {
+			throw new IndexOutOfBoundsException("record " + i + " of "
+					+ records);
+		}
+		int f = i / frameRecords;
+		if (f != cached) {
+			cached = -1;
+			ByteBuffer header = read(index[f], FRAME_HEADER_BYTES);
+			int count = header.getInt();
+			int crc = header.getInt();
+			if (count != Math.min(frameRecords, records - f * frameRecords)) {
+				throw new IOException("Corrupt frame " + f);
+			}
+			frame.clear();
+			frame.limit(count * recordBytes);
+			read(index[f] + FRAME_HEADER_BYTES, frame);
+			CRC32 check = new CRC32();
+			check.update(frame.array(), 0, frame.limit());
+			if ((int) check.getValue() != crc) {
+				throw new IOException("Checksum mismatch in frame " + f);
+			}
+			cached = f;
+		}
+		frame.position((i - f * frameRecords) * recordBytes);
+		return frame;
+	}
+
+	/**
+	 * Close the file.
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,272 @@
+package net.codingworks.sudoku;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * BoardFileWriter writes a file of puzzles, each optionally followed by its
+ * solution, encoded by the BoardCodec in the framed format read by
+ * BoardFile. Records are grouped into frames checked by a CRC-32, and the
+ * offsets of the frames are written as an index when the file is closed.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see BoardFile
+ */
+public class BoardFileWriter implements Closeable {
+
+	/**
+	 * Default number of records per frame
+	 */
+	public static final int DEFAULT_FRAME_RECORDS = 1 << 10;
+
+	/**
+	 * The stream written to
+	 */
+	private DataOutputStream out;
+
+	/**
+	 * True if every puzzle is followed by its solution
+	 */
+	private boolean solutions;
+
+	/**
+	 * Number of records per frame
+	 */
+	private int frameRecords;
+
+	/**
+	 * The records of the current frame
+	 */
+	private ByteBuffer frame;
+
+	/**
+	 * Number of records in the current frame
+	 */
+	private int count = 0;
+
+	/**
+	 * Number of records written
+	 */
+	private int records = 0;
+
+	/**
+	 * Offset of the next frame
+	 */
+	private long offset;
+
+	/**
+	 * Offsets of the frames written
+	 */
+	private long[] index = new long[16];
+
+	/**
+	 * Number of frames written
+	 */
+	private int frames = 0;
+
+	/**
+	 * Constructor. Frames hold {@value #DEFAULT_FRAME_RECORDS} records.
+	 * 
+	 * @param file
+	 *            the file, which is overwritten
+	 * @param solutions
+	 *            true if every puzzle is followed by its solution
+	 * @throws IOException
+	 */
+	public BoardFileWriter(File file, boolean solutions) throws IOException {
+		this(file, solutions, DEFAULT_FRAME_RECORDS);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param file
+	 *            the file, which is overwritten
+	 * @param solutions
+	 *            true if every puzzle is followed by its solution
+	 * @param frameRecords
+	 *            number of records per frame (1-65535)
+	 * @throws IOException
+	 */
+	public BoardFileWriter(File file, boolean solutions, int frameRecords)
+			throws IOException {
+		if (frameRecords <= 0 || frameRecords > 0xFFFF) {
+			throw new IllegalArgumentException("frame records " + frameRecords);
+		}
+		this.solutions = solutions;
+		this.frameRecords = frameRecords;
+		frame = ByteBuffer.allocate(frameRecords
+				* BoardFile.recordBytes(solutions));
+		out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), 1 << 16));
+		out.writeInt(BoardFile.MAGIC);
+		out.writeByte(BoardFile.VERSION);
+		out.writeByte(solutions ? BoardFile.SOLUTIONS : 0);
+		out.writeShort(frameRecords);
+		offset = BoardFile.HEADER_BYTES;
+	}
+
+	/**
+	 * Write a puzzle.
+	 * 
+	 * @param puzzle
+	 *            the puzzle
+	 * @throws IOException
+	 * @throws IllegalStateException
+	 *             if the file holds solutions
+	 */
+	public void add(Board puzzle) throws IOException {
+		if (solutions) {
+			throw new IllegalStateException("A solution is expected");
+		}
+		BoardCodec.writePuzzle(puzzle, frame);
+		added();
+	}
+
+	/**
+	 * Write a puzzle and its solution.
+	 * 
+	 * @param puzzle
+	 *            the puzzle
+	 * @param solution
+	 *            the solution, or null for no solution
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if the solution is not a solved grid, in which case nothing
+	 *             is written
+	 * @throws IllegalStateException
+	 *             if the file holds no solutions
+	 */
+	public void add(Board puzzle, Board solution) throws IOException {
+		if (!solutions) {
+			throw new IllegalStateException("No solution is expected");
+		}
+		int start = frame.position();
+		try {
+			BoardCodec.writePuzzle(puzzle, frame);
+			BoardCodec.writeSolution(solution, frame);
+		} catch (RuntimeException e) {
+			// drop the part of the record already encoded
+			frame.position(start);
+			throw e;
+		}
+		added();
+	}
+
+	/**
+	 * Count a record and write the frame once it is full.
+	 * 
+	 * @throws IOException
+	 */
+	private void added() throws IOException {
+		records++;
+		if (++count == frameRecords) {
+			flushFrame();
+		}
+	}
+
+	/**
+	 * Write the current frame, if not empty.
+	 * 
+	 * @throws IOException
+	 */
+	private void flushFrame() throws IOException {
+		if (count == 0) {
+			return;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(frame.array(), 0, frame.position());
+		out.writeInt(count);
+		out.writeInt((int) crc.getValue());
+		out.write(frame.array(), 0, frame.position());
+		if (frames == index.length) {
+			long[] a = new long[frames * 2];
+			System.arraycopy(index, 0, a, 0, frames);
+			index = a;
+		}
+		index[frames++] = offset;
+		offset += BoardFile.FRAME_HEADER_BYTES + frame.position();
+		frame.clear();
+		count = 0;
+	}
+
+	/**
+	 * Get the number of records written.
+	 * 
+	 * @return the number of records
+	 */
+	public int size() {
+		return records;
+	}
+
+	/**
+	 * Write the last frame, the index and the footer, and close the file.
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		try {
+			flushFrame();
+			long indexOffset = offset;
+			for (int f = 0; f < frames; f++) {
+				out.writeLong(index[f]);
+			}
+			out.writeLong(indexOffset);
+			out.writeInt(records);
+			out.writeInt(BoardFile.MAGIC);
+		} finally {
+			out.close();
+		}
+	}
+
+	public static void main(String[] args) {
+		boolean solve = args.length == 3 && args[0].equals("-s");
+		if (args.length != (solve ? 3 : 2)) {
+			System.err.println("Usage: java net.codingworks.sudoku.BoardFileWriter "
+					+ "[-s] <input file> <output file>");
+			System.exit(1);
+		}
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					new FileInputStream(args[args.length - 2]), "US-ASCII"));
+			try {
+				BoardFileWriter out = new BoardFileWriter(new File(
+						args[args.length - 1]), solve);
+				try {
+					String line;
+					while ((line = in.readLine()) != null) {
+						line = line.trim();
+						if (line.length() == 0) {
+							continue;
+						}
+						Board puzzle = new Board(line);
+						if (solve) {
+							out.add(puzzle, new Solver(puzzle.copy(false))
+									.solve(Engine.TRAIL));
+						} else {
+							out.add(puzzle);
+						}
+					}
+				} finally {
+					out.close();
+				}
+				System.err.println(out.size() + " puzzles written");
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
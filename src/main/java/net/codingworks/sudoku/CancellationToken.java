@@ -0,0 +1,187 @@
+package net.codingworks.sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CancellationToken tells a search when to give up: when it is cancelled from
+ * another thread, or when its deadline has passed. The cancelled flag is
+ * volatile, so a searching thread sees a cancellation at its next check. The
+ * deadline is compared with {@link System#nanoTime()} only every
+ * {@value #CHECK_INTERVAL} polls, so no timer thread is involved and a check
+ * costs a counter increment in most nodes. A token is polled by one thread;
+ * threads of a parallel search poll forks of it sharing its flag and deadline.
+ * A yielding token also yields the polling thread at every check of the
+ * deadline, so that searches on virtual threads, which are never preempted,
+ * take turns on the carrier threads. As a Stoppable, a token can be stopped
+ * wherever a search used to be.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class CancellationToken implements Stoppable {
+
+	/**
+	 * Number of polls between two checks of the deadline, a power of 2
+	 */
+	public static final int CHECK_INTERVAL = 1 << 10;
+
+	/**
+	 * The token holding the flag and the deadline, this one unless forked
+	 */
+	private final CancellationToken root;
+
+	/**
+	 * True once cancelled or once the deadline has been seen to pass
+	 */
+	private volatile boolean cancelled = false;
+
+	/**
+	 * True if there is a deadline
+	 */
+	private final boolean timed;
+
+	/**
+	 * The deadline in nanoseconds, as given by System.nanoTime
+	 */
+	private final long deadline;
+
+	/**
+	 * True if the polling thread yields at every check of the deadline
+	 */
+	private boolean yielding = false;
+
+	/**
+	 * Number of polls of this token
+	 */
+	private int polls = 0;
+
+	/**
+	 * Constructor. The token has no deadline.
+	 */
+	public CancellationToken() {
+		root = this;
+		timed = false;
+		deadline = 0;
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param timeout
+	 *            the time from now after which the token is cancelled
+	 * @param unit
+	 *            the unit of the timeout
+	 */
+	public CancellationToken(long timeout, TimeUnit unit) {
+		root = this;
+		timed = true;
+		deadline = System.nanoTime() + unit.toNanos(timeout);
+	}
+
+	/**
+	 * Constructor of a fork
+	 * 
+	 * @param root
+	 *            the token holding the flag and the deadline
+	 */
+	private CancellationToken(CancellationToken root) {
+		this.root = root;
+		timed = root.timed;
+		deadline = root.deadline;
+		yielding = root.yielding;
+	}
+
+	/**
+	 * Create a token for another thread of the same search. Cancelling either
+	 * token cancels both.
+	 * 
+	 * @return the fork
+	 */
+	public CancellationToken fork() {
+		return new CancellationToken(root);
+	}
+
+	/**
+	 * Set whether the polling thread yields every {@value #CHECK_INTERVAL}
+	 * polls. Forks made afterwards inherit the setting.
+	 * 
+	 * @param yielding
+	 *            true to yield and false otherwise
+	 */
+	public void setYielding(boolean yielding) {
+		this.yielding = yielding;
+	}
+
+	/**
+	 * Cancel the token. This can be called from any thread.
+	 */
+	public void cancel() {
+		root.cancelled = true;
+	}
+
+	/**
+	 * Cancel the token.
+	 */
+	public void stop() {
+		cancel();
+	}
+
+	/**
+	 * Check if the token has been cancelled, or its deadline has been seen to
+	 * pass by a poll.
+	 * 
+	 * @return true for cancelled and false otherwise
+	 */
+	public boolean isCancelled() {
+		return root.cancelled;
+	}
+
+	/**
+	 * Check if the search is to be stopped, comparing the deadline with the
+	 * clock every {@value #CHECK_INTERVAL} calls. A yielding token yields the
+	 * current thread before comparing.
+	 * 
+	 * @return true if the search is to be stopped and false otherwise
+	 */
+	public boolean poll() {
+		if (root.cancelled) {
+			return true;
+		}
+		if ((++polls & (CHECK_INTERVAL - 1)) != 0) {
+			return false;
+		}
+		if (yielding) {
+			Thread.yield();
+		}
+		return check();
+	}
+
+	/**
+	 * Check if the search is to be stopped, comparing the deadline with the
+	 * clock.
+	 * 
+	 * @return true if the search is to be stopped and false otherwise
+	 */
+	public boolean check() {
+		if (timed && System.nanoTime() - deadline >= 0) {
+			root.cancelled = true;
+		}
+		return root.cancelled;
+	}
+
+	/**
+	 * Get the time left before the deadline.
+	 * 
+	 * @param unit
+	 *            the unit of the result
+	 * @return the time left, 0 if the deadline has passed, or Long.MAX_VALUE
+	 *         if there is no deadline
+	 */
+	public long getRemaining(TimeUnit unit) {
+		if (!timed) {
+			return Long.MAX_VALUE;
+		}
+		return unit.convert(Math.max(deadline - System.nanoTime(), 0),
+				TimeUnit.NANOSECONDS);
+	}
+}
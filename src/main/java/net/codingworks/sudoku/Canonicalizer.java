@@ -0,0 +1,407 @@
+package net.codingworks.sudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Canonicalizer maps a puzzle to a canonical form shared by all puzzles
+ * obtained from it by relabeling digits, permuting rows within bands, columns
+ * within stacks, bands and stacks, and transposing. The canonical form is the
+ * least string of cell values, with digits relabeled in order of first
+ * appearance, among the arrangements consistent with invariant keys of the
+ * rows and columns: the number of givens of a line, how they spread over the
+ * boxes it crosses and how often their digits occur in the whole puzzle.
+ * Lines are sorted by key, so only lines with equal keys are permuted, and a
+ * candidate arrangement is abandoned at the first cell where it exceeds the
+ * best one. The number of arrangements tried is capped, so puzzles with many
+ * equal keys, such as near-empty ones, may not reach the canonical form; the
+ * form returned is still the image of the puzzle by a known transform, which
+ * maps solutions back. A Canonicalizer is not thread-safe.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class Canonicalizer {
+
+	/**
+	 * Default maximum number of arrangements tried
+	 */
+	public static final int DEFAULT_LIMIT = 1 << 12;
+
+	/**
+	 * The 6 permutations of 3 elements
+	 */
+	private static final int[][] PERMUTATIONS = { { 0, 1, 2 }, { 0, 2, 1 },
+			{ 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 } };
+
+	/**
+	 * Maximum number of arrangements tried
+	 */
+	private int limit;
+
+	/**
+	 * Source cell of each cell of the canonical form, for the last puzzle
+	 */
+	private int[] cells = new int[Board.CELLS];
+
+	/**
+	 * Canonical digit of each digit of the last puzzle, 0 for 0
+	 */
+	private byte[] labels = new byte[Board.SIZE + 1];
+
+	/**
+	 * True if the last puzzle reached its canonical form
+	 */
+	private boolean exact;
+
+	/**
+	 * Constructor. At most {@value #DEFAULT_LIMIT} arrangements are tried.
+	 */
+	public Canonicalizer() {
+		this(DEFAULT_LIMIT);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param limit
+	 *            maximum number of arrangements tried per puzzle, at least 1
+	 */
+	public Canonicalizer(int limit) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("limit " + limit);
+		}
+		this.limit = limit;
+	}
+
+	/**
+	 * Map a puzzle to its canonical form and remember the transform.
+	 * 
+	 * @param input
+	 *            an input Board object, which is not modified
+	 * @return the canonical form
+	 * @see #restore(Board)
+	 */
+	public Board canonicalize(Board input) {
+		byte[] values = input.getValues();
+		int[] frequency = new int[Board.SIZE + 1];
+		for (int k = 0; k < Board.CELLS; k++) {
+			frequency[values[k]]++;
+		}
+		long[] rowKeys = new long[Board.SIZE];
+		long[] colKeys = new long[Board.SIZE];
+		for (int i = 0; i < Board.SIZE; i++) {
+			rowKeys[i] = key(values, frequency, i * Board.SIZE, 1);
+			colKeys[i] = key(values, frequency, i, Board.SIZE);
+		}
+		long[] rowSignature = signature(rowKeys);
+		long[] colSignature = signature(colKeys);
+		int c = compare(rowSignature, colSignature);
+
+		byte[] best = null;
+		byte[] label = new byte[Board.SIZE + 1];
+		int tries = 0;
+		exact = true;
+		search: for (int transpose = 0; transpose < 2; transpose++) {
+			// the orientation with the lesser rows comes first; both are
+			// tried when they tie
+			if (transpose == 0 ? c > 0 : c < 0) {
+				continue;
+			}
+			long[] lineKeys = transpose == 0 ? rowKeys : colKeys;
+			long[] crossKeys = transpose == 0 ? colKeys : rowKeys;
+			List<int[]> rowOrders = arrangements(lineKeys);
+			List<int[]> colOrders = arrangements(crossKeys);
+			for (int[] rows : rowOrders) {
+				for (int[] cols : colOrders) {
+					if (++tries > limit) {
+						exact = false;
+						break search;
+					}
+					if (best == null) {
+						best = new byte[Board.CELLS];
+					} else if (!better(values, rows, cols, transpose == 1,
+							best, label)) {
+						continue;
+					}
+					apply(values, rows, cols, transpose == 1, best);
+				}
+			}
+		}
+		return new Board(best);
+	}
+
+	/**
+	 * Check if an arrangement gives a lesser string than the best one so far.
+	 * 
+	 * @param values
+	 *            the cell values of the puzzle
+	 * @param rows
+	 *            source line of each row
+	 * @param cols
+	 *            source line of each column
+	 * @param transpose
+	 *            true if rows are taken from columns
+	 * @param best
+	 *            the best string so far
+	 * @param label
+	 *            scratch digit labels
+	 * @return true if the arrangement is better
+	 */
+	private static boolean better(byte[] values, int[] rows, int[] cols,
+			boolean transpose, byte[] best, byte[] label) {
+		for (int d = 0; d <= Board.SIZE; d++) {
+			label[d] = 0;
+		}
+		byte next = 1;
+		for (int i = 0, k = 0; i < Board.SIZE; i++) {
+			for (int j = 0; j < Board.SIZE; j++, k++) {
+				byte v = values[source(rows[i], cols[j], transpose)];
+				if (v != 0) {
+					if (label[v] == 0) {
+						label[v] = next++;
+					}
+					v = label[v];
+				}
+				if (v != best[k]) {
+					return v < best[k];
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Build the string of an arrangement and remember its transform.
+	 * 
+	 * @param values
+	 *            the cell values of the puzzle
+	 * @param rows
+	 *            source line of each row
+	 * @param cols
+	 *            source line of each column
+	 * @param transpose
+	 *            true if rows are taken from columns
+	 * @param out
+	 *            the string
+	 */
+	private void apply(byte[] values, int[] rows, int[] cols,
+			boolean transpose, byte[] out) {
+		for (int d = 0; d <= Board.SIZE; d++) {
+			labels[d] = 0;
+		}
+		byte next = 1;
+		for (int i = 0, k = 0; i < Board.SIZE; i++) {
+			for (int j = 0; j < Board.SIZE; j++, k++) {
+				int p = source(rows[i], cols[j], transpose);
+				byte v = values[p];
+				if (v != 0 && labels[v] == 0) {
+					labels[v] = next++;
+				}
+				cells[k] = p;
+				out[k] = labels[v];
+			}
+		}
+		// digits absent from the puzzle take the remaining labels
+		for (int d = 1; d <= Board.SIZE; d++) {
+			if (labels[d] == 0) {
+				labels[d] = next++;
+			}
+		}
+	}
+
+	/**
+	 * Get the source cell of a cell of an arrangement.
+	 * 
+	 * @param row
+	 *            the source line of the row
+	 * @param col
+	 *            the source line of the column
+	 * @param transpose
+	 *            true if rows are taken from columns
+	 * @return the source cell index in row order
+	 */
+	private static int source(int row, int col, boolean transpose) {
+		return transpose ? col * Board.SIZE + row : row * Board.SIZE + col;
+	}
+
+	/**
+	 * Map a Board in canonical coordinates and labels, such as a solution of
+	 * the canonical form, back to the last puzzle canonicalized.
+	 * 
+	 * @param canonical
+	 *            a Board in canonical form
+	 * @return the Board in the coordinates and labels of the puzzle
+	 */
+	public Board restore(Board canonical) {
+		byte[] digits = new byte[Board.SIZE + 1];
+		for (byte d = 1; d <= Board.SIZE; d++) {
+			digits[labels[d]] = d;
+		}
+		byte[] in = canonical.getValues();
+		byte[] out = new byte[Board.CELLS];
+		for (int k = 0; k < Board.CELLS; k++) {
+			out[cells[k]] = digits[in[k]];
+		}
+		return new Board(out);
+	}
+
+	/**
+	 * Check if the last puzzle reached its canonical form, i.e. all
+	 * arrangements were tried within the limit.
+	 * 
+	 * @return true if the form returned is canonical
+	 */
+	public boolean isExact() {
+		return exact;
+	}
+
+	/**
+	 * Compute the invariant key of a line: its number of givens, the sorted
+	 * numbers of givens in each of the boxes it crosses, and the sorted
+	 * frequencies of its digits in the puzzle.
+	 * 
+	 * @param values
+	 *            the cell values of the puzzle
+	 * @param frequency
+	 *            number of occurrences of each digit in the puzzle
+	 * @param start
+	 *            the first cell of the line
+	 * @param step
+	 *            the distance between two cells of the line
+	 * @return the key
+	 */
+	private static long key(byte[] values, int[] frequency, int start,
+			int step) {
+		int[] boxes = new int[3];
+		int[] freqs = new int[Board.SIZE];
+		int n = 0;
+		for (int j = 0; j < Board.SIZE; j++) {
+			byte v = values[start + j * step];
+			if (v != 0) {
+				boxes[j / 3]++;
+				freqs[n++] = Math.min(frequency[v], 15);
+			}
+		}
+		Arrays.sort(boxes);
+		Arrays.sort(freqs);
+		long key = n;
+		for (int b : boxes) {
+			key = key << 2 | b;
+		}
+		for (int f : freqs) {
+			key = key << 4 | f;
+		}
+		return key;
+	}
+
+	/**
+	 * Compute the signature of one direction: the keys of the lines sorted
+	 * within bands, then bands sorted.
+	 * 
+	 * @param keys
+	 *            the keys of the lines
+	 * @return the signature
+	 */
+	private static long[] signature(long[] keys) {
+		long[][] bands = new long[3][];
+		for (int b = 0; b < 3; b++) {
+			bands[b] = bandKey(keys, b);
+		}
+		for (int i = 1; i < 3; i++) {
+			for (int j = i; j > 0 && compare(bands[j - 1], bands[j]) > 0; j--) {
+				long[] t = bands[j];
+				bands[j] = bands[j - 1];
+				bands[j - 1] = t;
+			}
+		}
+		long[] ret = new long[Board.SIZE];
+		for (int b = 0; b < 3; b++) {
+			System.arraycopy(bands[b], 0, ret, b * 3, 3);
+		}
+		return ret;
+	}
+
+	/**
+	 * Get the sorted keys of the lines of a band.
+	 * 
+	 * @param keys
+	 *            the keys of the lines
+	 * @param band
+	 *            the band (0-2)
+	 * @return the key of the band
+	 */
+	private static long[] bandKey(long[] keys, int band) {
+		long[] ret = { keys[band * 3], keys[band * 3 + 1], keys[band * 3 + 2] };
+		Arrays.sort(ret);
+		return ret;
+	}
+
+	/**
+	 * List the orders of lines consistent with their keys: bands in
+	 * non-decreasing order of band key and lines within each band in
+	 * non-decreasing order of key.
+	 * 
+	 * @param keys
+	 *            the keys of the lines
+	 * @return the orders, giving the source line at each position
+	 */
+	private static List<int[]> arrangements(long[] keys) {
+		long[][] bandKeys = new long[3][];
+		List<List<int[]>> inner = new ArrayList<List<int[]>>();
+		for (int b = 0; b < 3; b++) {
+			bandKeys[b] = bandKey(keys, b);
+			List<int[]> orders = new ArrayList<int[]>();
+			for (int[] p : PERMUTATIONS) {
+				long k0 = keys[b * 3 + p[0]];
+				long k1 = keys[b * 3 + p[1]];
+				long k2 = keys[b * 3 + p[2]];
+				if (k0 <= k1 && k1 <= k2) {
+					orders.add(p);
+				}
+			}
+			inner.add(orders);
+		}
+		List<int[]> ret = new ArrayList<int[]>();
+		for (int[] p : PERMUTATIONS) {
+			if (compare(bandKeys[p[0]], bandKeys[p[1]]) > 0
+					|| compare(bandKeys[p[1]], bandKeys[p[2]]) > 0) {
+				continue;
+			}
+			for (int[] a : inner.get(p[0])) {
+				for (int[] b : inner.get(p[1])) {
+					for (int[] c : inner.get(p[2])) {
+						int[] order = new int[Board.SIZE];
+						for (int i = 0; i < 3; i++) {
+							order[i] = p[0] * 3 + a[i];
+							order[3 + i] = p[1] * 3 + b[i];
+							order[6 + i] = p[2] * 3 + c[i];
+						}
+						ret.add(order);
+					}
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Compare 2 arrays of keys lexicographically.
+	 * 
+	 * @param a
+	 *            the first array
+	 * @param b
+	 *            the second array, of the same length
+	 * @return a negative number, 0 or a positive number if the first array is
+	 *         less than, equal to or greater than the second one
+	 */
+	private static int compare(long[] a, long[] b) {
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] != b[i]) {
+				return a[i] < b[i] ? -1 : 1;
+			}
+		}
+		return 0;
+	}
+}
@@ -3,7 +3,9 @@ package net.codingworks.sudoku;
 /**
  * Cell is the class for all units (cells) on a Sudoku board. A Cell object
  * encapsulates the state information needed to support exploration of Sudoku
- * puzzles.
+ * puzzles. The state lives in compact arrays: a Cell obtained from a Board is
+ * a view of the Board's arrays, while a Cell created by its constructor owns
+ * arrays of its own.
  * 
  * @author Rongqin Sheng
  * @version 1.0
@@ -11,21 +13,27 @@ package net.codingworks.sudoku;
 public class Cell {
 
 	/**
-	 * Cell value. 1-9 for filled cells, 0 for empty cells.
+	 * The Board this cell belongs to, or null for a standalone cell
 	 */
-	private byte value;
+	private Board board;
 
 	/**
-	 * This boolean array is indexed by cell values. A value i between 1 and 9
-	 * can be filled in this cell iff available[i] = true. In addition,
-	 * available[0] = true iff this cell is empty.
+	 * Cell values. values[index] is 1-9 for a filled cell, 0 for an empty
+	 * cell.
 	 */
-	private boolean[] available;
+	private byte[] values;
 
 	/**
-	 * Number of values (1-9) that can be filled in this cell.
+	 * Candidate masks. Bit i - 1 of candidates[index] is set iff a value i
+	 * between 1 and 9 can be filled in this cell. The rank of the cell is the
+	 * number of bits set.
 	 */
-	private byte rank;
+	private short[] candidates;
+
+	/**
+	 * Index of this cell in the arrays
+	 */
+	private int index;
 
 	/**
 	 * Constructor
@@ -34,11 +42,26 @@ public class Cell {
 	 *            cell value
 	 */
 	public Cell(byte value) {
-		this.value = value;
-		available = new boolean[10];
-		if (value == 0) {
-			available[0] = true;
-		}
+		this(null, new byte[] { value }, new short[1], 0);
+	}
+
+	/**
+	 * Constructor for a view of a Board's arrays
+	 * 
+	 * @param board
+	 *            the Board this cell belongs to, or null
+	 * @param values
+	 *            cell values
+	 * @param candidates
+	 *            candidate masks
+	 * @param index
+	 *            index of this cell in the arrays
+	 */
+	Cell(Board board, byte[] values, short[] candidates, int index) {
+		this.board = board;
+		this.values = values;
+		this.candidates = candidates;
+		this.index = index;
 	}
 
 	/**
@@ -48,7 +71,11 @@ public class Cell {
 	 *            cell value
 	 */
 	public void setValue(byte value) {
-		this.value = value;
+		if (board != null) {
+			board.setValue(index, value);
+		} else {
+			values[index] = value;
+		}
 	}
 
 	/**
@@ -57,17 +84,20 @@ public class Cell {
 	 * @return cell value
 	 */
 	public byte getValue() {
-		return value;
+		return values[index];
 	}
 
 	/**
-	 * Set cell rank
+	 * Set cell rank. The rank is derived from the available values, so this
+	 * method has no effect and is kept for compatibility.
 	 * 
 	 * @param rank
 	 *            cell rank
+	 * @deprecated The rank is the number of available values; set those with
+	 *             {@link #setAvailable(byte, boolean)} instead.
 	 */
+	@Deprecated
 	public void setRank(byte rank) {
-		this.rank = rank;
 	}
 
 	/**
@@ -76,30 +106,49 @@ public class Cell {
 	 * @return cell rank
 	 */
 	public byte getRank() {
-		return rank;
+		return (byte) Integer.bitCount(candidates[index]);
 	}
 
 	/**
 	 * Set availability of a cell value for filling this cell
 	 * 
 	 * @param val
-	 *            cell value
+	 *            cell value (1-9)
 	 * @param b
 	 *            true for available and false otherwise
 	 */
 	public void setAvailable(byte val, boolean b) {
-		available[val] = b;
+		if (val > 0) {
+			if (b) {
+				candidates[index] |= Board.bit(val);
+			} else {
+				candidates[index] &= ~Board.bit(val);
+			}
+		}
 	}
 
 	/**
-	 * Get availability of a cell value for filling this cell.
+	 * Get availability of a cell value for filling this cell. Value 0 is
+	 * available iff this cell is empty.
 	 * 
 	 * @param val
 	 *            cell value
 	 * @return available or not
 	 */
 	public boolean getAvailable(byte val) {
-		return available[val];
+		if (val == 0) {
+			return isEmpty();
+		}
+		return (candidates[index] & Board.bit(val)) != 0;
+	}
+
+	/**
+	 * Get the candidate mask of this cell
+	 * 
+	 * @return candidate mask
+	 */
+	short getCandidates() {
+		return candidates[index];
 	}
 
 	/**
@@ -108,7 +157,7 @@ public class Cell {
 	 * @return empty or not
 	 */
 	public boolean isEmpty() {
-		return available[0];
+		return values[index] == 0;
 	}
 
 	/**
@@ -117,11 +166,8 @@ public class Cell {
 	 * @return a copy of the Cell object
 	 */
 	public Cell copy() {
-		Cell c = new Cell(value);
-		for (byte val = 1; val <= 9; val++) {
-			c.setAvailable(val, available[val]);
-		}
-		c.setRank(rank);
+		Cell c = new Cell(values[index]);
+		c.candidates[0] = candidates[index];
 		return c;
 	}
 }
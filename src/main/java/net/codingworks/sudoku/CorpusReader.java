@@ -0,0 +1,120 @@
+package net.codingworks.sudoku;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * CorpusReader reads a file of puzzles, one input string per line, through
+ * memory-mapped regions. The file can be split into regions that start and end
+ * on line boundaries, so that several threads can each read one region.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see CorpusRegion
+ */
+public class CorpusReader implements Closeable {
+
+	/**
+	 * Maximum size of a mapped region
+	 */
+	static final long MAX_REGION = 1L << 30;
+
+	/**
+	 * The file channel
+	 */
+	private FileChannel channel;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param file
+	 *            the file of puzzles
+	 * @throws IOException
+	 */
+	public CorpusReader(File file) throws IOException {
+		channel = new RandomAccessFile(file, "r").getChannel();
+	}
+
+	/**
+	 * Get the size of the file.
+	 * 
+	 * @return the size in bytes
+	 * @throws IOException
+	 */
+	public long size() throws IOException {
+		return channel.size();
+	}
+
+	/**
+	 * Split the file into regions aligned to line boundaries. More regions
+	 * than requested are returned if the file is too large to be mapped in
+	 * that many regions, and fewer if some regions would be empty.
+	 * 
+	 * @param n
+	 *            the number of regions
+	 * @return the regions in file order
+	 * @throws IOException
+	 */
+	public CorpusRegion[] split(int n) throws IOException {
+		long size = channel.size();
+		n = (int) Math.max(n, (size + MAX_REGION / 2 - 1) / (MAX_REGION / 2));
+		long[] bounds = new long[n + 1];
+		int count = 0;
+		for (int i = 1; i <= n; i++) {
+			long b = i == n ? size : lineStart(size * i / n);
+			if (b > bounds[count]) {
+				bounds[++count] = b;
+			}
+		}
+		CorpusRegion[] regions = new CorpusRegion[count];
+		for (int i = 0; i < count; i++) {
+			regions[i] = new CorpusRegion(channel.map(
+					FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1]
+							- bounds[i]));
+		}
+		return regions;
+	}
+
+	/**
+	 * Find the start of the first line beginning at or after a position.
+	 * 
+	 * @param pos
+	 *            a position in the file
+	 * @return the position after the first line break at or after pos - 1,
+	 *         or the file size
+	 * @throws IOException
+	 */
+	private long lineStart(long pos) throws IOException {
+		if (pos == 0) {
+			return 0;
+		}
+		ByteBuffer buf = ByteBuffer.allocate(256);
+		long p = pos - 1;
+		while (true) {
+			buf.clear();
+			int n = channel.read(buf, p);
+			if (n <= 0) {
+				return channel.size();
+			}
+			for (int i = 0; i < n; i++) {
+				if (buf.get(i) == '\n') {
+					return p + i + 1;
+				}
+			}
+			p += n;
+		}
+	}
+
+	/**
+	 * Close the file. Regions already mapped stay readable.
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,76 @@
+package net.codingworks.sudoku;
+
+import java.nio.ByteBuffer;
+
+/**
+ * CorpusRegion is a mapped region of a file of puzzles. Puzzles are parsed
+ * directly from the mapped bytes into a Board, without creating strings.
+ * Blank lines are skipped. A region is meant to be read by one thread.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see CorpusReader#split(int)
+ */
+public class CorpusRegion {
+
+	/**
+	 * The mapped bytes
+	 */
+	private ByteBuffer buf;
+
+	/**
+	 * Position of the next line
+	 */
+	private int pos = 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param buf
+	 *            the mapped bytes, starting at the start of a line
+	 */
+	CorpusRegion(ByteBuffer buf) {
+		this.buf = buf;
+	}
+
+	/**
+	 * Read the next puzzle.
+	 * 
+	 * @param board
+	 *            the Board to overwrite with the puzzle
+	 * @return true if a puzzle was read and false at the end of the region
+	 */
+	public boolean next(Board board) {
+		int limit = buf.limit();
+		while (pos < limit) {
+			int start = pos;
+			int end = start;
+			while (end < limit && buf.get(end) != '\n') {
+				end++;
+			}
+			pos = end + 1;
+			if (end > start && buf.get(end - 1) == '\r') {
+				end--;
+			}
+			// trim blanks as the line-based reader does
+			while (start < end && buf.get(start) <= ' ') {
+				start++;
+			}
+			while (end > start && buf.get(end - 1) <= ' ') {
+				end--;
+			}
+			if (end > start) {
+				board.load(buf, start, end);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Go back to the start of the region.
+	 */
+	public void rewind() {
+		pos = 0;
+	}
+}
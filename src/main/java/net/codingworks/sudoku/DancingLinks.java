@@ -0,0 +1,293 @@
+package net.codingworks.sudoku;
+
+/**
+ * Implementation of Knuth's Algorithm X with Dancing Links. A Sudoku puzzle is
+ * modeled as an exact cover problem with 324 constraints (each cell is filled,
+ * and each value appears once in each row, column and box) and 729 choices
+ * (a value in a cell). The links are kept in preallocated int arrays, so a
+ * DancingLinks object can be reused for many puzzles without allocating.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class DancingLinks implements Stoppable {
+
+	/**
+	 * Number of constraints (columns)
+	 */
+	private static final int COLUMNS = 4 * Board.CELLS;
+
+	/**
+	 * Number of choices (rows)
+	 */
+	private static final int ROWS = Board.CELLS * Board.SIZE;
+
+	/**
+	 * Number of nodes: the root, the column headers and 4 nodes per row
+	 */
+	private static final int NODES = 1 + COLUMNS + 4 * ROWS;
+
+	/**
+	 * Initial links, copied when a puzzle is loaded
+	 */
+	private static final int[] LEFT = new int[NODES];
+	private static final int[] RIGHT = new int[NODES];
+	private static final int[] UP = new int[NODES];
+	private static final int[] DOWN = new int[NODES];
+	private static final int[] SIZES = new int[NODES];
+
+	/**
+	 * Column header of each node
+	 */
+	private static final int[] COLUMN = new int[NODES];
+
+	/**
+	 * Choice (9 * cell + value - 1) of each node
+	 */
+	private static final int[] CHOICE = new int[NODES];
+
+	static {
+		// the root and the column headers
+		for (int c = 0; c <= COLUMNS; c++) {
+			LEFT[c] = c == 0 ? COLUMNS : c - 1;
+			RIGHT[c] = c == COLUMNS ? 0 : c + 1;
+			UP[c] = c;
+			DOWN[c] = c;
+			COLUMN[c] = c;
+		}
+		int node = COLUMNS + 1;
+		for (int k = 0; k < Board.CELLS; k++) {
+			for (int d = 0; d < Board.SIZE; d++) {
+				int[] cols = {
+						1 + k,
+						1 + Board.CELLS + Board.SIZE * Board.ROW[k] + d,
+						1 + 2 * Board.CELLS + Board.SIZE
+								* (Board.COL[k] - Board.SIZE) + d,
+						1 + 3 * Board.CELLS + Board.SIZE
+								* (Board.BOX[k] - 2 * Board.SIZE) + d };
+				for (int n = 0; n < 4; n++) {
+					int c = cols[n];
+					int x = node + n;
+					LEFT[x] = node + (n + 3) % 4;
+					RIGHT[x] = node + (n + 1) % 4;
+					// append at the bottom of the column
+					UP[x] = UP[c];
+					DOWN[x] = c;
+					DOWN[UP[c]] = x;
+					UP[c] = x;
+					COLUMN[x] = c;
+					CHOICE[x] = Board.SIZE * k + d;
+					SIZES[c]++;
+				}
+				node += 4;
+			}
+		}
+	}
+
+	/**
+	 * Current links
+	 */
+	private int[] left = new int[NODES];
+	private int[] right = new int[NODES];
+	private int[] up = new int[NODES];
+	private int[] down = new int[NODES];
+	private int[] sizes = new int[NODES];
+
+	/**
+	 * Cell values of the current partial solution
+	 */
+	private byte[] values = new byte[Board.CELLS];
+
+	/**
+	 * The visitor receiving solutions
+	 */
+	private SolutionVisitor visitor;
+
+	/**
+	 * Number of solutions found by the current search
+	 */
+	private int solutionCounter;
+
+	/**
+	 * Collector of search statistics, or null
+	 */
+	private SearchStats stats;
+
+	/**
+	 * The token telling the search when to give up
+	 */
+	private CancellationToken token = new CancellationToken();
+
+	/**
+	 * Load a puzzle. The filled cells of the input Board are selected as part
+	 * of the cover, so the input must have been validated.
+	 * 
+	 * @param input
+	 *            an input Board object, which is not modified
+	 * @see Board#validate()
+	 */
+	public void load(Board input) {
+		System.arraycopy(LEFT, 0, left, 0, NODES);
+		System.arraycopy(RIGHT, 0, right, 0, NODES);
+		System.arraycopy(UP, 0, up, 0, NODES);
+		System.arraycopy(DOWN, 0, down, 0, NODES);
+		System.arraycopy(SIZES, 0, sizes, 0, NODES);
+		for (int k = 0; k < Board.CELLS; k++) {
+			byte v = input.getValue(k);
+			values[k] = v;
+			if (v > 0) {
+				int x = COLUMNS + 1 + 4 * (Board.SIZE * k + v - 1);
+				for (int n = 0; n < 4; n++) {
+					cover(COLUMN[x + n]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Set the collector of search statistics.
+	 * 
+	 * @param stats
+	 *            the collector, or null to collect nothing
+	 */
+	public void setStats(SearchStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Search for solutions of the loaded puzzle.
+	 * 
+	 * @param visitor
+	 *            the visitor receiving solutions
+	 * @return the number of solutions visited
+	 */
+	public int solve(SolutionVisitor visitor) {
+		this.visitor = visitor;
+		solutionCounter = 0;
+		search(0);
+		this.visitor = null;
+		return solutionCounter;
+	}
+
+	/**
+	 * Search recursively
+	 * 
+	 * @param depth
+	 *            number of choices made along the current path
+	 * @return false if the search is to be stopped and true otherwise
+	 */
+	private boolean search(int depth) {
+		if (token.poll()) {
+			return false;
+		}
+		if (right[0] == 0) {
+			solutionCounter++;
+			return visitor.visit(values);
+		}
+
+		// choose the column with the fewest rows
+		int c = right[0];
+		for (int j = right[c]; j != 0; j = right[j]) {
+			if (sizes[j] < sizes[c]) {
+				c = j;
+			}
+		}
+		if (sizes[c] == 0) {
+			if (stats != null) {
+				stats.backtrack();
+			}
+			return true;
+		}
+
+		cover(c);
+		boolean ret = true;
+		for (int r = down[c]; r != c && ret; r = down[r]) {
+			int choice = CHOICE[r];
+			values[choice / Board.SIZE] = (byte) (choice % Board.SIZE + 1);
+			for (int j = right[r]; j != r; j = right[j]) {
+				cover(COLUMN[j]);
+			}
+			if (stats != null) {
+				stats.node(depth + 1);
+			}
+			ret = search(depth + 1);
+			for (int j = left[r]; j != r; j = left[j]) {
+				uncover(COLUMN[j]);
+			}
+			values[choice / Board.SIZE] = 0;
+		}
+		uncover(c);
+		return ret;
+	}
+
+	/**
+	 * Remove a column and the rows intersecting it.
+	 * 
+	 * @param c
+	 *            column header
+	 */
+	private void cover(int c) {
+		left[right[c]] = left[c];
+		right[left[c]] = right[c];
+		for (int i = down[c]; i != c; i = down[i]) {
+			for (int j = right[i]; j != i; j = right[j]) {
+				up[down[j]] = up[j];
+				down[up[j]] = down[j];
+				sizes[COLUMN[j]]--;
+			}
+		}
+	}
+
+	/**
+	 * Restore a column removed by {@link #cover(int)}.
+	 * 
+	 * @param c
+	 *            column header
+	 */
+	private void uncover(int c) {
+		for (int i = up[c]; i != c; i = up[i]) {
+			for (int j = left[i]; j != i; j = left[j]) {
+				sizes[COLUMN[j]]++;
+				up[down[j]] = j;
+				down[up[j]] = j;
+			}
+		}
+		left[right[c]] = c;
+		right[left[c]] = c;
+	}
+
+	/**
+	 * Set the token telling the search when to give up.
+	 * 
+	 * @param token
+	 *            the token, shared with the caller
+	 */
+	public void setToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Get the token telling the search when to give up.
+	 * 
+	 * @return the token
+	 */
+	public CancellationToken getToken() {
+		return token;
+	}
+
+	/**
+	 * Function called by a different thread to stop the search.
+	 */
+	public void stop() {
+		token.cancel();
+	}
+
+	/**
+	 * Check if the search is stopped.
+	 * 
+	 * @return true for stopped and false otherwise
+	 */
+	public boolean stopped() {
+		return token.isCancelled();
+	}
+}
@@ -0,0 +1,26 @@
+package net.codingworks.sudoku;
+
+/**
+ * Engine lists the search engines available to Solver and Analyzer.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public enum Engine {
+
+	/**
+	 * Backtracking on a copy of the Board at every search node
+	 */
+	COPY,
+
+	/**
+	 * Backtracking on a single mutable Board. Changes are recorded on a Trail
+	 * and undone when the search backtracks.
+	 */
+	TRAIL,
+
+	/**
+	 * Algorithm X with Dancing Links on the exact cover model of the puzzle
+	 */
+	DLX
+}
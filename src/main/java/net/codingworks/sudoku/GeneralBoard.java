@@ -0,0 +1,394 @@
+package net.codingworks.sudoku;
+
+/**
+ * GeneralBoard is a Sudoku puzzle of any size N = boxRows * boxColumns up to
+ * {@value #MAX_SIZE}, e.g. 16 x 16 with 4 x 4 boxes or 25 x 25 with 5 x 5
+ * boxes. Like Board, it keeps cell values in an array and candidates in
+ * masks indexed by {@code N * row + column}, here long masks with bit v - 1
+ * set iff value v is available. The unit and peer tables of a geometry are
+ * built once and shared by the copies of a board. In strings, values 1-9 are
+ * written as digits and values from 10 as letters from A; any other character
+ * is an empty cell.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see GeneralSolver
+ */
+public class GeneralBoard {
+
+	/**
+	 * Maximum size, the number of values written as one character
+	 */
+	public static final int MAX_SIZE = 35;
+
+	/**
+	 * The unit and peer tables of a size and box shape
+	 */
+	static final class Geometry {
+
+		/**
+		 * Number of rows of a box
+		 */
+		final int boxRows;
+
+		/**
+		 * Number of columns of a box
+		 */
+		final int boxCols;
+
+		/**
+		 * Board size N
+		 */
+		final int size;
+
+		/**
+		 * Number of cells, N * N
+		 */
+		final int cells;
+
+		/**
+		 * Mask with all values 1-N available
+		 */
+		final long all;
+
+		/**
+		 * Units of each cell: its row (0 to N-1), column (N to 2N-1) and box
+		 * (2N to 3N-1)
+		 */
+		final int[][] cellUnits;
+
+		/**
+		 * Cells of each unit in row order
+		 */
+		final int[][] unitCells;
+
+		/**
+		 * The peers of each cell
+		 */
+		final int[][] peers;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param boxRows
+		 *            number of rows of a box
+		 * @param boxCols
+		 *            number of columns of a box
+		 */
+		Geometry(int boxRows, int boxCols) {
+			this.boxRows = boxRows;
+			this.boxCols = boxCols;
+			size = boxRows * boxCols;
+			cells = size * size;
+			all = (1L << size) - 1;
+			cellUnits = new int[cells][3];
+			unitCells = new int[3 * size][size];
+			int[] unitSize = new int[3 * size];
+			for (int k = 0; k < cells; k++) {
+				int i = k / size;
+				int j = k % size;
+				cellUnits[k][0] = i;
+				cellUnits[k][1] = size + j;
+				cellUnits[k][2] = 2 * size + boxRows * (i / boxRows) + j
+						/ boxCols;
+				for (int u : cellUnits[k]) {
+					unitCells[u][unitSize[u]++] = k;
+				}
+			}
+			int degree = 3 * size - boxRows - boxCols - 1;
+			peers = new int[cells][degree];
+			for (int k = 0; k < cells; k++) {
+				int n = 0;
+				for (int p = 0; p < cells; p++) {
+					if (p != k
+							&& (cellUnits[p][0] == cellUnits[k][0]
+									|| cellUnits[p][1] == cellUnits[k][1]
+									|| cellUnits[p][2] == cellUnits[k][2])) {
+						peers[k][n++] = p;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * The 9 x 9 tables
+	 */
+	private static final Geometry STANDARD = new Geometry(3, 3);
+
+	/**
+	 * The unit and peer tables
+	 */
+	final Geometry geometry;
+
+	/**
+	 * Cell values in row order, 0 for empty cells
+	 */
+	final byte[] values;
+
+	/**
+	 * Candidate masks in row order, 0 for filled cells
+	 */
+	final long[] candidates;
+
+	/**
+	 * Masks of the values filled in each unit
+	 */
+	final long[] used;
+
+	/**
+	 * Number of empty cells
+	 */
+	int empty;
+
+	/**
+	 * Constructor of an empty board
+	 * 
+	 * @param boxRows
+	 *            number of rows of a box
+	 * @param boxCols
+	 *            number of columns of a box
+	 */
+	public GeneralBoard(int boxRows, int boxCols) {
+		this(geometry(boxRows, boxCols));
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param boxRows
+	 *            number of rows of a box
+	 * @param boxCols
+	 *            number of columns of a box
+	 * @param inp
+	 *            a string listing cell values in row order
+	 */
+	public GeneralBoard(int boxRows, int boxCols, String inp) {
+		this(boxRows, boxCols);
+		int len = Math.min(inp.length(), geometry.cells);
+		for (int k = 0; k < len; k++) {
+			int v = value(inp.charAt(k));
+			if (v > 0 && v <= geometry.size) {
+				values[k] = (byte) v;
+				empty--;
+			}
+		}
+	}
+
+	/**
+	 * Constructor of an empty board
+	 * 
+	 * @param geometry
+	 *            the unit and peer tables
+	 */
+	private GeneralBoard(Geometry geometry) {
+		this.geometry = geometry;
+		values = new byte[geometry.cells];
+		candidates = new long[geometry.cells];
+		used = new long[3 * geometry.size];
+		empty = geometry.cells;
+	}
+
+	/**
+	 * Get the tables of a geometry, sharing the 9 x 9 ones.
+	 * 
+	 * @param boxRows
+	 *            number of rows of a box
+	 * @param boxCols
+	 *            number of columns of a box
+	 * @return the tables
+	 */
+	private static Geometry geometry(int boxRows, int boxCols) {
+		if (boxRows <= 0 || boxCols <= 0 || boxRows * boxCols > MAX_SIZE) {
+			throw new IllegalArgumentException("Invalid box " + boxRows + "x"
+					+ boxCols);
+		}
+		if (boxRows == 3 && boxCols == 3) {
+			return STANDARD;
+		}
+		return new Geometry(boxRows, boxCols);
+	}
+
+	/**
+	 * Convert a 9 x 9 Board.
+	 * 
+	 * @param board
+	 *            the Board
+	 * @return a 9 x 9 GeneralBoard with the same values
+	 */
+	public static GeneralBoard fromBoard(Board board) {
+		GeneralBoard ret = new GeneralBoard(STANDARD);
+		byte[] vals = board.getValues();
+		for (int k = 0; k < Board.CELLS; k++) {
+			if (vals[k] != 0) {
+				ret.values[k] = vals[k];
+				ret.empty--;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Convert to a Board.
+	 * 
+	 * @return a Board with the same values
+	 * @throws IllegalStateException
+	 *             if the board is not 9 x 9 with 3 x 3 boxes
+	 */
+	public Board toBoard() {
+		if (!isStandard()) {
+			throw new IllegalStateException("Not a 9x9 board");
+		}
+		return new Board(values);
+	}
+
+	/**
+	 * Check if the board is 9 x 9 with 3 x 3 boxes.
+	 * 
+	 * @return true for the standard geometry
+	 */
+	boolean isStandard() {
+		return geometry.boxRows == 3 && geometry.boxCols == 3;
+	}
+
+	/**
+	 * Get the value of a character.
+	 * 
+	 * @param ch
+	 *            the character
+	 * @return 1-9 for digits, 10 and above for letters, 0 otherwise
+	 */
+	private static int value(char ch) {
+		if (ch >= '1' && ch <= '9') {
+			return ch - '0';
+		} else if (ch >= 'A' && ch <= 'Z') {
+			return ch - 'A' + 10;
+		} else if (ch >= 'a' && ch <= 'z') {
+			return ch - 'a' + 10;
+		}
+		return 0;
+	}
+
+	/**
+	 * Get the character of a value.
+	 * 
+	 * @param v
+	 *            the value, 0 for an empty cell
+	 * @return the character
+	 */
+	private static char character(int v) {
+		return (char) (v < 10 ? '0' + v : 'A' + v - 10);
+	}
+
+	/**
+	 * Check the givens and compute the candidates of the empty cells.
+	 * 
+	 * @throws Exception
+	 *             if a unit has duplicates
+	 */
+	public void updateCells() throws Exception {
+		int n = geometry.size;
+		for (int u = 0; u < used.length; u++) {
+			used[u] = 0;
+		}
+		for (int k = 0; k < geometry.cells; k++) {
+			if (values[k] != 0) {
+				long m = 1L << (values[k] - 1);
+				for (int u : geometry.cellUnits[k]) {
+					if ((used[u] & m) != 0) {
+						throw new Exception(u < n ? "Duplicates at row "
+								+ (u + 1) : u < 2 * n ? "Duplicates at column "
+								+ (u - n + 1) : "Duplicates in box having row "
+								+ (k / n + 1) + " and column " + (k % n + 1));
+					}
+					used[u] |= m;
+				}
+			}
+		}
+		for (int k = 0; k < geometry.cells; k++) {
+			if (values[k] == 0) {
+				int[] units = geometry.cellUnits[k];
+				candidates[k] = geometry.all
+						& ~(used[units[0]] | used[units[1]] | used[units[2]]);
+			} else {
+				candidates[k] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Copy the board.
+	 * 
+	 * @return an independent copy sharing the geometry
+	 */
+	public GeneralBoard copy() {
+		GeneralBoard ret = new GeneralBoard(geometry);
+		System.arraycopy(values, 0, ret.values, 0, values.length);
+		System.arraycopy(candidates, 0, ret.candidates, 0, candidates.length);
+		System.arraycopy(used, 0, ret.used, 0, used.length);
+		ret.empty = empty;
+		return ret;
+	}
+
+	/**
+	 * Get the board size N.
+	 * 
+	 * @return the number of rows, columns and values
+	 */
+	public int getSize() {
+		return geometry.size;
+	}
+
+	/**
+	 * Get the number of rows of a box.
+	 * 
+	 * @return the box height
+	 */
+	public int getBoxRows() {
+		return geometry.boxRows;
+	}
+
+	/**
+	 * Get the number of columns of a box.
+	 * 
+	 * @return the box width
+	 */
+	public int getBoxColumns() {
+		return geometry.boxCols;
+	}
+
+	/**
+	 * Get the value of a cell.
+	 * 
+	 * @param row
+	 *            the row (0 to N-1)
+	 * @param col
+	 *            the column (0 to N-1)
+	 * @return the value (1-N), or 0 for an empty cell
+	 */
+	public int getValue(int row, int col) {
+		return values[row * geometry.size + col];
+	}
+
+	/**
+	 * Get the number of empty cells.
+	 * 
+	 * @return the number of empty cells
+	 */
+	public int getNumberOfEmptyCells() {
+		return empty;
+	}
+
+	/**
+	 * Get the string listing cell values in row order. Use 0 for empty cells.
+	 * 
+	 * @return a string representation
+	 */
+	public String toString() {
+		char[] chars = new char[geometry.cells];
+		for (int k = 0; k < chars.length; k++) {
+			chars[k] = character(values[k]);
+		}
+		return new String(chars);
+	}
+}
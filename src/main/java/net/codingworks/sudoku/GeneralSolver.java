@@ -0,0 +1,657 @@
+package net.codingworks.sudoku;
+
+import java.util.Random;
+
+/**
+ * GeneralSolver solves puzzles of any size held by a GeneralBoard. It follows
+ * the TrailSolver: depth-first search on a single working board, with the
+ * changes of each choice recorded on an undo trail, forced moves applied after
+ * every choice, and the empty cell with the fewest candidates chosen next.
+ * Candidates are long masks, so counting and removing them costs a few
+ * instructions whatever the size. Naked singles are queued as they appear
+ * instead of being searched for, and locked candidates are applied besides
+ * hidden singles. When every empty cell has more than two candidates, a value
+ * with two places left in a unit is branched on instead, as the DancingLinks
+ * would. Large puzzles with many empty cells make some searches run far longer
+ * than others from a few bad early choices, so ties are broken at random and
+ * the search restarts after a number of nodes which grows by half each time.
+ * A 9 x 9 puzzle with 3 x 3 boxes is handed over to the specialized
+ * TrailSolver, unless {@link #setSpecialized(boolean)} turns that off.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class GeneralSolver implements Stoppable {
+
+	/**
+	 * Flag of a trail entry recording a filled cell
+	 */
+	private static final int FILLED = 1 << 30;
+
+	/**
+	 * An input GeneralBoard object
+	 */
+	private GeneralBoard input;
+
+	/**
+	 * The working board
+	 */
+	private GeneralBoard board;
+
+	/**
+	 * Cells of the trail entries, with the FILLED flag for filled cells
+	 */
+	private int[] trailCells;
+
+	/**
+	 * Candidate masks before each trail entry
+	 */
+	private long[] trailMasks;
+
+	/**
+	 * Number of trail entries
+	 */
+	private int top = 0;
+
+	/**
+	 * Candidates of each segment of the lines of a band or stack
+	 */
+	private long[] segments;
+
+	/**
+	 * Cells which became naked singles
+	 */
+	private int[] queue;
+
+	/**
+	 * Number of queued cells
+	 */
+	private int queued = 0;
+
+	/**
+	 * The value bit selected with two places left in a unit
+	 */
+	private long pair;
+
+	/**
+	 * Source of random tie-breaking between cells and between values
+	 */
+	private Random random;
+
+	/**
+	 * Number of nodes left before the search restarts
+	 */
+	private long budget;
+
+	/**
+	 * True when the search ran out of nodes and has to restart
+	 */
+	private boolean restart;
+
+	/**
+	 * Collector of search statistics, or null
+	 */
+	private SearchStats stats;
+
+	/**
+	 * The token telling the solver when to give up
+	 */
+	private CancellationToken token = new CancellationToken();
+
+	/**
+	 * True if a 9 x 9 puzzle with 3 x 3 boxes goes to the TrailSolver
+	 */
+	private boolean specialized = true;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param input
+	 *            an input GeneralBoard object, which is not modified
+	 */
+	public GeneralSolver(GeneralBoard input) {
+		this(input, new Random(0));
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param input
+	 *            an input GeneralBoard object, which is not modified
+	 * @param random
+	 *            source of random tie-breaking between cells and between
+	 *            values
+	 */
+	public GeneralSolver(GeneralBoard input, Random random) {
+		this.input = input;
+		this.random = random;
+	}
+
+	/**
+	 * Solve the puzzle.
+	 * 
+	 * @return a solution, or null if there is none or the solver was stopped
+	 * @throws Exception
+	 *             if a unit of the puzzle has duplicates
+	 */
+	public GeneralBoard solve() throws Exception {
+		if (specialized && input.isStandard()) {
+			Board standard = input.toBoard();
+			standard.updateCells();
+			TrailSolver t = new TrailSolver();
+			t.setStats(stats);
+			t.setToken(token);
+			t.load(standard);
+			return t.solve() ? GeneralBoard.fromBoard(t.getBoard()) : null;
+		}
+		board = input.copy();
+		board.updateCells();
+		int cells = board.geometry.cells;
+		trailCells = new int[cells * (board.geometry.size + 1)];
+		trailMasks = new long[trailCells.length];
+		queue = new int[cells];
+		segments = new long[cells];
+		top = 0;
+		queued = 0;
+		for (int k = 0; k < cells; k++) {
+			long m = board.candidates[k];
+			if (board.values[k] == 0 && (m & (m - 1)) == 0) {
+				queue[queued++] = k;
+			}
+		}
+		if (!propagate()) {
+			return null;
+		}
+		int mark = top;
+		// the growing limit keeps the search complete
+		for (long limit = cells * 4; ; limit += limit / 2) {
+			budget = limit;
+			restart = false;
+			if (search(0)) {
+				return board;
+			}
+			if (!restart) {
+				return null;
+			}
+			undo(mark);
+		}
+	}
+
+	/**
+	 * Search recursively from the working board.
+	 * 
+	 * @param depth
+	 *            number of values chosen along the current path
+	 * @return true if a solution was found
+	 */
+	private boolean search(int depth) {
+		if (token.poll()) {
+			return false;
+		}
+		if (--budget < 0) {
+			restart = true;
+			return false;
+		}
+		int k = select();
+		if (k < 0) {
+			return true;
+		}
+		if (k >= board.values.length) {
+			// a value with two places left in a unit
+			int u = k - board.values.length;
+			long bit = pair;
+			int v = Long.numberOfTrailingZeros(bit) + 1;
+			for (int p : board.geometry.unitCells[u]) {
+				if ((board.candidates[p] & bit) != 0 && tryValue(p, v, depth)) {
+					return true;
+				}
+				if (restart) {
+					return false;
+				}
+			}
+			return false;
+		}
+		long mask = board.candidates[k];
+		int n = board.geometry.size;
+		// start from a random value and go round
+		int shift = random.nextInt(n);
+		mask = (mask >>> shift | mask << (n - shift)) & board.geometry.all;
+		while (mask != 0) {
+			long bit = mask & -mask;
+			mask &= ~bit;
+			int v = (Long.numberOfTrailingZeros(bit) + shift) % n + 1;
+			if (tryValue(k, v, depth)) {
+				return true;
+			}
+			if (restart) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Fill a cell with a value and search from there, undoing the changes
+	 * unless a solution was found.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param v
+	 *            the value (1-N)
+	 * @param depth
+	 *            number of values chosen along the current path
+	 * @return true if a solution was found
+	 */
+	private boolean tryValue(int k, int v, int depth) {
+		int mark = top;
+		queued = 0;
+		boolean ok = fill(k, v) && propagate();
+		if (stats != null) {
+			stats.node(depth + 1);
+			if (!ok) {
+				stats.backtrack();
+			}
+		}
+		if (ok && search(depth + 1)) {
+			return true;
+		}
+		undo(mark);
+		return false;
+	}
+
+	/**
+	 * Select what to branch on: the empty cell with the fewest candidates, or
+	 * a value with two places left in a unit when every empty cell has more
+	 * than two candidates. Singles have been applied, so no choice is forced.
+	 * 
+	 * @return the cell index in row order, N * N plus the unit of a value
+	 *         left in {@link #pair}, or -1 if the board is full
+	 */
+	private int select() {
+		if (board.empty == 0) {
+			return -1;
+		}
+		int best = -1;
+		int min = Integer.MAX_VALUE;
+		int ties = 0;
+		for (int k = 0; k < board.values.length; k++) {
+			if (board.values[k] == 0) {
+				int n = Long.bitCount(board.candidates[k]);
+				if (n < min) {
+					min = n;
+					best = k;
+					ties = 1;
+				} else if (n == min && random.nextInt(++ties) == 0) {
+					best = k;
+				}
+			}
+		}
+		if (min <= 2) {
+			return best;
+		}
+		int[][] unitCells = board.geometry.unitCells;
+		for (int u = 0; u < unitCells.length; u++) {
+			long once = 0;
+			long twice = 0;
+			long more = 0;
+			for (int k : unitCells[u]) {
+				long m = board.candidates[k];
+				more |= twice & m;
+				twice |= once & m;
+				once |= m;
+			}
+			long two = twice & ~more;
+			if (two != 0) {
+				pair = two & -two;
+				return board.values.length + u;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Fill a cell and remove its value from the candidates of its peers,
+	 * queueing the peers left with a single candidate.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param v
+	 *            the value (1-N)
+	 * @return false if a peer was left without candidates and true otherwise
+	 */
+	private boolean fill(int k, int v) {
+		GeneralBoard.Geometry g = board.geometry;
+		long bit = 1L << (v - 1);
+		push(k | FILLED, board.candidates[k]);
+		board.values[k] = (byte) v;
+		board.candidates[k] = 0;
+		board.empty--;
+		for (int u : g.cellUnits[k]) {
+			board.used[u] |= bit;
+		}
+		for (int p : g.peers[k]) {
+			if (!remove(p, bit)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Remove candidates of a cell, queueing it if a single one is left.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param bits
+	 *            mask of the values to be removed
+	 * @return false if the cell was left without candidates and true otherwise
+	 */
+	private boolean remove(int k, long bits) {
+		long m = board.candidates[k];
+		if ((m & bits) == 0) {
+			return true;
+		}
+		push(k, m);
+		m &= ~bits;
+		board.candidates[k] = m;
+		if (stats != null) {
+			stats.eliminate();
+		}
+		if (m == 0) {
+			return false;
+		}
+		if ((m & (m - 1)) == 0) {
+			queue[queued++] = k;
+		}
+		return true;
+	}
+
+	/**
+	 * Apply naked singles, hidden singles and locked candidates until none is
+	 * left.
+	 * 
+	 * @return false if a contradiction was found and true otherwise
+	 */
+	private boolean propagate() {
+		GeneralBoard.Geometry g = board.geometry;
+		while (true) {
+			while (queued > 0) {
+				int k = queue[--queued];
+				if (board.values[k] == 0) {
+					long m = board.candidates[k];
+					if (m == 0 || !fill(k, Long.numberOfTrailingZeros(m) + 1)) {
+						return false;
+					}
+				}
+			}
+			boolean changed = false;
+			for (int u = 0; u < g.unitCells.length; u++) {
+				long once = 0;
+				long twice = 0;
+				for (int k : g.unitCells[u]) {
+					long m = board.candidates[k];
+					twice |= once & m;
+					once |= m;
+				}
+				if ((once | board.used[u]) != g.all) {
+					return false;
+				}
+				long hidden = once & ~twice;
+				while (hidden != 0) {
+					long bit = hidden & -hidden;
+					hidden &= ~bit;
+					int cell = -1;
+					for (int k : g.unitCells[u]) {
+						if ((board.candidates[k] & bit) != 0) {
+							cell = k;
+							break;
+						}
+					}
+					// another hidden single of the unit took the cell
+					if (cell < 0 || !fill(cell,
+							Long.numberOfTrailingZeros(bit) + 1)) {
+						return false;
+					}
+					changed = true;
+				}
+			}
+			if (!changed && queued == 0) {
+				int removed = intersect(true);
+				if (removed == 0) {
+					removed = intersect(false);
+				}
+				if (removed < 0) {
+					return false;
+				} else if (removed == 0) {
+					return true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Apply locked candidates: a value which, within a box, can only be in
+	 * one row (or column) is removed from the rest of that row (or column),
+	 * and a value which, within a row (or column), can only be in one box is
+	 * removed from the rest of that box.
+	 * 
+	 * @param rows
+	 *            true for the rows and false for the columns
+	 * @return the number of cells changed, or -1 if a cell was left without
+	 *         candidates
+	 */
+	private int intersect(boolean rows) {
+		GeneralBoard.Geometry g = board.geometry;
+		int n = g.size;
+		// lines per band (or stack) and cells per segment
+		int h = rows ? g.boxRows : g.boxCols;
+		int w = rows ? g.boxCols : g.boxRows;
+		int segs = n / w;
+		int before = top;
+		for (int first = 0; first < n; first += h) {
+			for (int t = 0; t < h; t++) {
+				for (int s = 0; s < segs; s++) {
+					long m = 0;
+					for (int x = s * w; x < s * w + w; x++) {
+						m |= board.candidates[cell(rows, first + t, x)];
+					}
+					segments[t * segs + s] = m;
+				}
+			}
+			for (int t = 0; t < h; t++) {
+				long once = 0;
+				long twice = 0;
+				for (int s = 0; s < segs; s++) {
+					long m = segments[t * segs + s];
+					twice |= once & m;
+					once |= m;
+				}
+				for (int s = 0; s < segs; s++) {
+					// in a single box of the line
+					long bits = segments[t * segs + s] & ~twice;
+					for (int o = 0; bits != 0 && o < h; o++) {
+						for (int x = s * w; o != t && x < s * w + w; x++) {
+							if (!remove(cell(rows, first + o, x), bits)) {
+								return -1;
+							}
+						}
+					}
+				}
+			}
+			for (int s = 0; s < segs; s++) {
+				long once = 0;
+				long twice = 0;
+				for (int t = 0; t < h; t++) {
+					long m = segments[t * segs + s];
+					twice |= once & m;
+					once |= m;
+				}
+				for (int t = 0; t < h; t++) {
+					// in a single line of the box
+					long bits = segments[t * segs + s] & ~twice;
+					for (int x = 0; bits != 0 && x < n; x++) {
+						if (x / w != s
+								&& !remove(cell(rows, first + t, x), bits)) {
+							return -1;
+						}
+					}
+				}
+			}
+		}
+		return top - before;
+	}
+
+	/**
+	 * Get the index of a cell.
+	 * 
+	 * @param rows
+	 *            true if the line is a row and false if it is a column
+	 * @param line
+	 *            the row or column
+	 * @param x
+	 *            the position along the line
+	 * @return the cell index in row order
+	 */
+	private int cell(boolean rows, int line, int x) {
+		int n = board.geometry.size;
+		return rows ? line * n + x : x * n + line;
+	}
+
+	/**
+	 * Record a change on the trail.
+	 * 
+	 * @param entry
+	 *            the cell, with the FILLED flag if it was filled
+	 * @param mask
+	 *            its candidate mask before the change
+	 */
+	private void push(int entry, long mask) {
+		trailCells[top] = entry;
+		trailMasks[top++] = mask;
+	}
+
+	/**
+	 * Undo the changes recorded after a mark.
+	 * 
+	 * @param mark
+	 *            the number of trail entries to keep
+	 */
+	private void undo(int mark) {
+		GeneralBoard.Geometry g = board.geometry;
+		while (top > mark) {
+			int entry = trailCells[--top];
+			int k = entry & ~FILLED;
+			if (entry != k) {
+				long bit = 1L << (board.values[k] - 1);
+				for (int u : g.cellUnits[k]) {
+					board.used[u] &= ~bit;
+				}
+				board.values[k] = 0;
+				board.empty++;
+			}
+			board.candidates[k] = trailMasks[top];
+		}
+	}
+
+	/**
+	 * Set the token telling the solver when to give up.
+	 * 
+	 * @param token
+	 *            the token, shared with the caller
+	 */
+	public void setToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Get the token telling the solver when to give up.
+	 * 
+	 * @return the token
+	 */
+	public CancellationToken getToken() {
+		return token;
+	}
+
+	/**
+	 * Function called by a different thread to stop the solver.
+	 */
+	public void stop() {
+		token.cancel();
+	}
+
+	/**
+	 * Check if the solver is stopped.
+	 * 
+	 * @return true for stopped and false otherwise
+	 */
+	public boolean stopped() {
+		return token.isCancelled();
+	}
+
+	/**
+	 * Set the collector of search statistics.
+	 * 
+	 * @param stats
+	 *            the collector, or null to collect nothing
+	 */
+	public void setStats(SearchStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Get the collector of search statistics.
+	 * 
+	 * @return the collector, or null if none was set
+	 */
+	public SearchStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * Choose whether a 9 x 9 puzzle with 3 x 3 boxes is handed over to the
+	 * TrailSolver, which is faster, or searched like any other size, e.g. to
+	 * compare the two.
+	 * 
+	 * @param specialized
+	 *            true for the TrailSolver, the default
+	 */
+	public void setSpecialized(boolean specialized) {
+		this.specialized = specialized;
+	}
+
+	/**
+	 * Get a solution of a Sudoku puzzle of any size.
+	 * 
+	 * @param boxRows
+	 *            number of rows of a box
+	 * @param boxCols
+	 *            number of columns of a box
+	 * @param inputStr
+	 *            a input string listing cell values in row order
+	 * @return a solution in the form of a string listing cell values in row
+	 *         order. A null value is returned if there is no solution.
+	 * @throws Exception
+	 */
+	public static String getSolution(int boxRows, int boxCols,
+			String inputStr) throws Exception {
+		GeneralBoard result = new GeneralSolver(new GeneralBoard(boxRows,
+				boxCols, inputStr)).solve();
+		return result == null ? null : result.toString();
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 3) {
+			System.err.println("Usage: java net.codingworks.sudoku."
+					+ "GeneralSolver <box rows> <box columns> <input string>");
+			System.exit(1);
+		}
+		try {
+			String result = getSolution(Integer.parseInt(args[0]),
+					Integer.parseInt(args[1]), args[2]);
+			System.out.println(result != null ? result : "No solution");
+		} catch (Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
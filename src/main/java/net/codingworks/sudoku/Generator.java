@@ -0,0 +1,368 @@
+package net.codingworks.sudoku;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generator creates puzzles with a unique solution. It starts from a random
+ * solved grid produced by the Solver and removes givens in a random order,
+ * keeping a removal only if the solution stays unique. Since the puzzle is
+ * known to have a unique solution before each removal, any other solution
+ * after it must differ from the known one in a removed cell. Uniqueness is
+ * therefore checked by searching once per removed cell with the known value
+ * excluded from that cell, which fails quickly instead of counting solutions
+ * from scratch. Givens are removed in groups of cells mapped onto each other
+ * by a Symmetry.
+ *
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class Generator {
+
+	/**
+	 * Number of solved grids tried before giving up on the target number of
+	 * givens
+	 */
+	static final int ATTEMPTS = 100;
+
+	/**
+	 * The symmetry of the givens
+	 */
+	private Symmetry symmetry;
+
+	/**
+	 * Target number of givens
+	 */
+	private int clues;
+
+	/**
+	 * Source of the solved grids and of the removal order
+	 */
+	private SearchContext context;
+
+	/**
+	 * The solver checking uniqueness
+	 */
+	private TrailSolver checker = new TrailSolver();
+
+	/**
+	 * Groups of cells removed together, one per orbit of the symmetry
+	 */
+	private int[][] orbits;
+
+	/**
+	 * Constructor
+	 *
+	 * @param symmetry
+	 *            the symmetry of the givens
+	 * @param clues
+	 *            target number of givens, or 0 for no target. Givens are
+	 *            removed until at most this many are left or no more can be
+	 *            removed.
+	 */
+	public Generator(Symmetry symmetry, int clues) {
+		this(symmetry, clues, new SearchContext());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param symmetry
+	 *            the symmetry of the givens
+	 * @param clues
+	 *            target number of givens, or 0 for no target. Givens are
+	 *            removed until at most this many are left or no more can be
+	 *            removed.
+	 * @param seed
+	 *            the seed of the solved grids and of the removal order
+	 */
+	public Generator(Symmetry symmetry, int clues, long seed) {
+		this(symmetry, clues, new SearchContext(seed));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param symmetry
+	 *            the symmetry of the givens
+	 * @param clues
+	 *            target number of givens, or 0 for no target
+	 * @param context
+	 *            source of the solved grids and of the removal order
+	 */
+	Generator(Symmetry symmetry, int clues, SearchContext context) {
+		this.symmetry = symmetry;
+		this.clues = clues;
+		this.context = context;
+		List<int[]> list = new ArrayList<int[]>();
+		boolean[] seen = new boolean[Board.CELLS];
+		for (int k = 0; k < Board.CELLS; k++) {
+			if (!seen[k]) {
+				int[] orbit = symmetry.orbit(k);
+				for (int p : orbit) {
+					seen[p] = true;
+				}
+				list.add(orbit);
+			}
+		}
+		orbits = list.toArray(new int[list.size()][]);
+	}
+
+	/**
+	 * Generate a puzzle. Solved grids are tried one after another until a
+	 * puzzle with at most the target number of givens is found. With no
+	 * target, the first minimal puzzle is returned, from which no more givens
+	 * can be removed.
+	 *
+	 * @return a puzzle with a unique solution. If the target could not be
+	 *         reached in {@value #ATTEMPTS} grids, the puzzle with the fewest
+	 *         givens found is returned.
+	 * @throws Exception
+	 */
+	public Board generate() throws Exception {
+		Board best = null;
+		for (int i = 0; i < ATTEMPTS; i++) {
+			Board puzzle = generate(new Solver(new Board(""), context)
+					.solve());
+			if (best == null || puzzle.getNumberOfEmptyCells()
+					> best.getNumberOfEmptyCells()) {
+				best = puzzle;
+			}
+			if (clues <= 0
+					|| Board.CELLS - best.getNumberOfEmptyCells() <= clues) {
+				break;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Generate a puzzle from a solved grid.
+	 *
+	 * @param solution
+	 *            the solved grid, which is not modified
+	 * @return a puzzle whose unique solution is the grid
+	 * @throws Exception
+	 */
+	Board generate(Board solution) throws Exception {
+		Board puzzle = solution.copy(false);
+		puzzle.updateCells();
+		int given = Board.CELLS;
+		for (int i = orbits.length - 1; i > 0; i--) {
+			int r = context.nextInt(i + 1);
+			int[] orbit = orbits[i];
+			orbits[i] = orbits[r];
+			orbits[r] = orbit;
+		}
+		for (int[] orbit : orbits) {
+			if (given <= clues) {
+				break;
+			}
+			for (int k : orbit) {
+				puzzle.setValue(k, (byte) 0);
+			}
+			puzzle.updateCells();
+			if (unique(puzzle, orbit, solution)) {
+				given -= orbit.length;
+			} else {
+				for (int k : orbit) {
+					puzzle.setValue(k, solution.getValue(k));
+					puzzle.setCandidates(k, (short) 0);
+				}
+				puzzle.updateCells();
+			}
+		}
+		return puzzle;
+	}
+
+	/**
+	 * Check that a puzzle still has a unique solution after some givens have
+	 * been removed from it.
+	 *
+	 * @param puzzle
+	 *            the puzzle with updated cells, which is not modified
+	 * @param removed
+	 *            the cells just emptied
+	 * @param solution
+	 *            the unique solution before the removal
+	 * @return true if the solution is still unique
+	 */
+	private boolean unique(Board puzzle, int[] removed, Board solution) {
+		for (int k : removed) {
+			short mask = puzzle.getCandidates(k);
+			short rest = (short) (mask & ~Board.bit(solution.getValue(k)));
+			if (rest == 0) {
+				continue;
+			}
+			puzzle.setCandidates(k, rest);
+			checker.load(puzzle);
+			puzzle.setCandidates(k, mask);
+			if (checker.solve()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the symmetry of the givens.
+	 *
+	 * @return the symmetry
+	 */
+	public Symmetry getSymmetry() {
+		return symmetry;
+	}
+
+	/**
+	 * Generate puzzles on a pool of worker threads. Each thread runs its own
+	 * Generator.
+	 *
+	 * @param count
+	 *            number of puzzles
+	 * @param symmetry
+	 *            the symmetry of the givens
+	 * @param clues
+	 *            target number of givens
+	 * @param threads
+	 *            number of worker threads
+	 * @return the puzzles in the form of strings listing cell values in row
+	 *         order
+	 * @throws Exception
+	 */
+	public static List<String> generate(int count, Symmetry symmetry,
+			int clues, int threads) throws Exception {
+		return generate(count, symmetry, clues, threads, new SearchContext());
+	}
+
+	/**
+	 * Generate puzzles on a pool of worker threads. Each thread runs its own
+	 * Generator on a stream split from a seed, so the same seed and number of
+	 * threads give the same puzzles.
+	 *
+	 * @param count
+	 *            number of puzzles
+	 * @param symmetry
+	 *            the symmetry of the givens
+	 * @param clues
+	 *            target number of givens
+	 * @param threads
+	 *            number of worker threads
+	 * @param seed
+	 *            the seed
+	 * @return the puzzles in the form of strings listing cell values in row
+	 *         order
+	 * @throws Exception
+	 */
+	public static List<String> generate(int count, Symmetry symmetry,
+			int clues, int threads, long seed) throws Exception {
+		return generate(count, symmetry, clues, threads,
+				new SearchContext(seed));
+	}
+
+	/**
+	 * Generate puzzles on a pool of worker threads.
+	 *
+	 * @param count
+	 *            number of puzzles
+	 * @param symmetry
+	 *            the symmetry of the givens
+	 * @param clues
+	 *            target number of givens
+	 * @param threads
+	 *            number of worker threads
+	 * @param root
+	 *            the context the streams of the threads are split from
+	 * @return the puzzles
+	 * @throws Exception
+	 */
+	private static List<String> generate(int count, final Symmetry symmetry,
+			final int clues, int threads, SearchContext root)
+			throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<String>>> futures;
+			futures = new ArrayList<Future<List<String>>>();
+			for (int t = 0; t < threads; t++) {
+				final int n = count / threads + (t < count % threads ? 1 : 0);
+				final SearchContext context = root.split();
+				futures.add(pool.submit(new Callable<List<String>>() {
+					public List<String> call() throws Exception {
+						Generator generator = new Generator(symmetry, clues,
+								context);
+						List<String> ret = new ArrayList<String>(n);
+						for (int i = 0; i < n; i++) {
+							ret.add(generator.generate().toString());
+						}
+						return ret;
+					}
+				}));
+			}
+			List<String> ret = new ArrayList<String>(count);
+			for (Future<List<String>> future : futures) {
+				ret.addAll(future.get());
+			}
+			return ret;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	public static void main(String[] args) {
+		int count = 1;
+		int clues = 0;
+		Symmetry symmetry = Symmetry.NONE;
+		int threads = Runtime.getRuntime().availableProcessors();
+		Long seed = null;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-n")) {
+					count = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-c")) {
+					clues = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-s")) {
+					symmetry = Symmetry.valueOf(args[++i].toUpperCase());
+				} else if (args[i].equals("-t")) {
+					threads = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-r")) {
+					seed = Long.parseLong(args[++i]);
+				} else {
+					throw new IllegalArgumentException(args[i]);
+				}
+			}
+		} catch (RuntimeException e) {
+			System.err.println("Usage: java net.codingworks.sudoku.Generator "
+					+ "[-n <count>] [-c <clues>] "
+					+ "[-s NONE|ROTATIONAL|QUARTER|MIRROR|DIAGONAL] "
+					+ "[-t <threads>] [-r <seed>]");
+			System.exit(1);
+		}
+
+		try {
+			long startTime = System.nanoTime();
+			List<String> puzzles = seed == null ? generate(count, symmetry,
+					clues, threads) : generate(count, symmetry, clues,
+					threads, seed);
+			Writer out = new BufferedWriter(new OutputStreamWriter(
+					System.out, "US-ASCII"), 1 << 16);
+			for (String puzzle : puzzles) {
+				out.write(puzzle);
+				out.write('\n');
+			}
+			out.flush();
+			double seconds = (System.nanoTime() - startTime) / 1e9;
+			System.err.println(String.format(
+					"%d puzzles in %.3f s (%.1f puzzles/s)", count, seconds,
+					count / Math.max(seconds, 1e-9)));
+		} catch (Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package net.codingworks.sudoku;
+
+/**
+ * Grade is the result of grading a puzzle: the hardest technique needed, a
+ * score and the number of steps taken with each technique.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see Grader#grade(Board)
+ */
+public class Grade {
+
+	/**
+	 * Number of steps taken with each technique, by ordinal
+	 */
+	private int[] steps;
+
+	/**
+	 * The hardest technique used, or null
+	 */
+	private Technique technique;
+
+	/**
+	 * True if the puzzle was solved by the techniques alone
+	 */
+	private boolean solved;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param steps
+	 *            number of steps taken with each technique, by ordinal
+	 * @param technique
+	 *            the hardest technique used, or null
+	 * @param solved
+	 *            true if the puzzle was solved by the techniques alone
+	 */
+	Grade(int[] steps, Technique technique, boolean solved) {
+		this.steps = steps;
+		this.technique = technique;
+		this.solved = solved;
+	}
+
+	/**
+	 * Get the hardest technique used.
+	 * 
+	 * @return the technique, or null if no step was taken
+	 */
+	public Technique getTechnique() {
+		return technique;
+	}
+
+	/**
+	 * Check if the puzzle was solved by the techniques of the Grader. If not,
+	 * it needs guessing or has no unique solution.
+	 * 
+	 * @return true for solved and false otherwise
+	 */
+	public boolean isSolved() {
+		return solved;
+	}
+
+	/**
+	 * Get the score: the difficulty of every step taken, added up. Puzzles
+	 * needing the same hardest technique are thus ordered by how often it and
+	 * the others were needed.
+	 * 
+	 * @return the score
+	 */
+	public int getScore() {
+		int ret = 0;
+		for (Technique t : Technique.values()) {
+			ret += steps[t.ordinal()] * t.getDifficulty();
+		}
+		return ret;
+	}
+
+	/**
+	 * Get the number of steps taken with a technique.
+	 * 
+	 * @param technique
+	 *            the technique
+	 * @return the number of steps
+	 */
+	public int getSteps(Technique technique) {
+		return steps[technique.ordinal()];
+	}
+
+	/**
+	 * Get a one-line summary.
+	 * 
+	 * @return a string representation
+	 */
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(solved ? "Solved" : "Not solved");
+		if (technique != null) {
+			sb.append(" by ").append(technique);
+		}
+		sb.append(", score ").append(getScore());
+		for (Technique t : Technique.values()) {
+			if (steps[t.ordinal()] > 0) {
+				sb.append(", ").append(t).append('=')
+						.append(steps[t.ordinal()]);
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,770 @@
+package net.codingworks.sudoku;
+
+/**
+ * Grader rates a puzzle by the logical techniques a human solver needs for it.
+ * Starting from the available values computed by {@link Board#updateCells()},
+ * it repeatedly applies the easiest Technique that makes progress, i.e. places
+ * a value or removes available values, until the puzzle is solved or no
+ * technique applies. Every technique works directly on the candidate masks of
+ * the Board. A Grader can be reused for many puzzles but must not be shared
+ * between threads.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class Grader {
+
+	/**
+	 * The techniques from the easiest to the hardest
+	 */
+	private static final Technique[] TECHNIQUES = Technique.values();
+
+	/**
+	 * The Board being graded
+	 */
+	private Board board;
+
+	/**
+	 * False once a contradiction has been found
+	 */
+	private boolean valid;
+
+	/**
+	 * Places of each value in a unit, as masks of unit positions
+	 */
+	private int[] places = new int[Board.SIZE];
+
+	/**
+	 * Cells or values taking part in a subset or fish
+	 */
+	private int[] members = new int[Board.SIZE];
+
+	/**
+	 * Color of each cell in the chains of a value: 0 for none, or the
+	 * component number times 2 plus 0 or 1 and then plus 2
+	 */
+	private int[] colors = new int[Board.CELLS];
+
+	/**
+	 * Queue of cells to be colored
+	 */
+	private int[] queue = new int[Board.CELLS];
+
+	/**
+	 * Grade a puzzle.
+	 * 
+	 * @param input
+	 *            an input Board object, which is not modified
+	 * @return the grade
+	 * @throws Exception
+	 *             if the input is invalid
+	 */
+	public Grade grade(Board input) throws Exception {
+		board = input.copy(false);
+		board.updateCells();
+		valid = true;
+		int[] steps = new int[TECHNIQUES.length];
+		Technique hardest = null;
+		while (valid && board.getNumberOfEmptyCells() > 0) {
+			Technique t = step();
+			if (t == null) {
+				break;
+			}
+			steps[t.ordinal()]++;
+			if (hardest == null || t.compareTo(hardest) > 0) {
+				hardest = t;
+			}
+		}
+		boolean solved = valid && board.getNumberOfEmptyCells() == 0;
+		board = null;
+		return new Grade(steps, hardest, solved);
+	}
+
+	/**
+	 * Take one step with the easiest technique that makes progress.
+	 * 
+	 * @return the technique, or null if none applies
+	 */
+	private Technique step() {
+		for (Technique t : TECHNIQUES) {
+			if (apply(t)) {
+				return valid ? t : null;
+			}
+			if (!valid) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Apply a technique once.
+	 * 
+	 * @param t
+	 *            the technique
+	 * @return true if progress was made
+	 */
+	private boolean apply(Technique t) {
+		switch (t) {
+		case HIDDEN_SINGLE:
+			return hiddenSingle();
+		case NAKED_SINGLE:
+			return nakedSingle();
+		case POINTING:
+			return pointing();
+		case BOX_LINE:
+			return boxLine();
+		case NAKED_PAIR:
+			return nakedSubset(2);
+		case X_WING:
+			return fish(2);
+		case HIDDEN_PAIR:
+			return hiddenSubset(2);
+		case NAKED_TRIPLE:
+			return nakedSubset(3);
+		case SWORDFISH:
+			return fish(3);
+		case HIDDEN_TRIPLE:
+			return hiddenSubset(3);
+		case XY_WING:
+			return xyWing();
+		case CHAIN:
+			return chain();
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Place a value with a single place left in a unit.
+	 * 
+	 * @return true if a value was placed
+	 */
+	private boolean hiddenSingle() {
+		for (int u = 0; u < Board.UNITS; u++) {
+			int[] cells = Board.UNIT_CELLS[u];
+			int once = 0;
+			int twice = 0;
+			for (int k : cells) {
+				int mask = board.getCandidates(k);
+				twice |= once & mask;
+				once |= mask;
+			}
+			if ((once | board.getUsed(u)) != Board.ALL) {
+				valid = false;
+				return false;
+			}
+			int hidden = once & ~twice;
+			if (hidden != 0) {
+				int bit = hidden & -hidden;
+				for (int k : cells) {
+					if ((board.getCandidates(k) & bit) != 0) {
+						place(k, bit);
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Place the value of an empty cell with a single available value.
+	 * 
+	 * @return true if a value was placed
+	 */
+	private boolean nakedSingle() {
+		for (int k = 0; k < Board.CELLS; k++) {
+			if (board.getValue(k) == 0) {
+				int mask = board.getCandidates(k);
+				if (mask == 0) {
+					valid = false;
+					return false;
+				}
+				if ((mask & (mask - 1)) == 0) {
+					place(k, mask);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove a value from a line when its places in a box lie on that line.
+	 * 
+	 * @return true if values were removed
+	 */
+	private boolean pointing() {
+		for (int b = 2 * Board.SIZE; b < Board.UNITS; b++) {
+			for (int bit = 1; bit < Board.ALL; bit <<= 1) {
+				int rows = 0;
+				int cols = 0;
+				for (int k : Board.UNIT_CELLS[b]) {
+					if ((board.getCandidates(k) & bit) != 0) {
+						rows |= 1 << Board.ROW[k];
+						cols |= 1 << (Board.COL[k] - Board.SIZE);
+					}
+				}
+				if (Integer.bitCount(rows) == 1
+						&& eliminateOutside(
+								Integer.numberOfTrailingZeros(rows), b, bit)) {
+					return true;
+				}
+				if (Integer.bitCount(cols) == 1
+						&& eliminateOutside(Board.SIZE
+								+ Integer.numberOfTrailingZeros(cols), b, bit)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove a value from a box when its places in a line lie in that box.
+	 * 
+	 * @return true if values were removed
+	 */
+	private boolean boxLine() {
+		for (int u = 0; u < 2 * Board.SIZE; u++) {
+			for (int bit = 1; bit < Board.ALL; bit <<= 1) {
+				int boxes = 0;
+				for (int k : Board.UNIT_CELLS[u]) {
+					if ((board.getCandidates(k) & bit) != 0) {
+						boxes |= 1 << (Board.BOX[k] - 2 * Board.SIZE);
+					}
+				}
+				if (Integer.bitCount(boxes) == 1
+						&& eliminateOutside(2 * Board.SIZE
+								+ Integer.numberOfTrailingZeros(boxes), u, bit)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove values from the cells of a unit which are not in another unit.
+	 * 
+	 * @param unit
+	 *            the unit to remove values from
+	 * @param other
+	 *            the unit whose cells are kept
+	 * @param bits
+	 *            candidate mask of the values
+	 * @return true if values were removed
+	 */
+	private boolean eliminateOutside(int unit, int other, int bits) {
+		boolean ret = false;
+		for (int k : Board.UNIT_CELLS[unit]) {
+			if (!inUnit(k, other)) {
+				ret |= eliminate(k, bits);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Remove the values of n cells of a unit having n available values between
+	 * them from the other cells of the unit.
+	 * 
+	 * @param n
+	 *            the size of the subset
+	 * @return true if values were removed
+	 */
+	private boolean nakedSubset(int n) {
+		for (int u = 0; u < Board.UNITS; u++) {
+			int[] cells = Board.UNIT_CELLS[u];
+			int count = 0;
+			for (int i = 0; i < Board.SIZE; i++) {
+				int r = Integer.bitCount(board.getCandidates(cells[i]));
+				if (r >= 2 && r <= n) {
+					members[count++] = i;
+				}
+			}
+			if (count >= n && nakedSubset(cells, count, n, 0, 0, 0, 0)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Search the combinations of candidate cells for a naked subset.
+	 * 
+	 * @param cells
+	 *            the cells of the unit
+	 * @param count
+	 *            number of candidate cells in members
+	 * @param n
+	 *            the size of the subset
+	 * @param start
+	 *            the first candidate to choose from
+	 * @param chosen
+	 *            number of cells chosen so far
+	 * @param positions
+	 *            unit positions of the chosen cells
+	 * @param union
+	 *            available values of the chosen cells
+	 * @return true if values were removed
+	 */
+	private boolean nakedSubset(int[] cells, int count, int n, int start,
+			int chosen, int positions, int union) {
+		if (Integer.bitCount(union) > n) {
+			return false;
+		}
+		if (chosen == n) {
+			boolean ret = false;
+			for (int i = 0; i < Board.SIZE; i++) {
+				if ((positions & (1 << i)) == 0) {
+					ret |= eliminate(cells[i], union);
+				}
+			}
+			return ret;
+		}
+		for (int j = start; j <= count - (n - chosen); j++) {
+			int i = members[j];
+			if (nakedSubset(cells, count, n, j + 1, chosen + 1, positions
+					| (1 << i), union | board.getCandidates(cells[i]))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove the other values from n cells of a unit holding the only places
+	 * of n values.
+	 * 
+	 * @param n
+	 *            the size of the subset
+	 * @return true if values were removed
+	 */
+	private boolean hiddenSubset(int n) {
+		for (int u = 0; u < Board.UNITS; u++) {
+			int[] cells = Board.UNIT_CELLS[u];
+			unitPlaces(cells);
+			int count = 0;
+			for (int v = 0; v < Board.SIZE; v++) {
+				int r = Integer.bitCount(places[v]);
+				if (r >= 2 && r <= n) {
+					members[count++] = v;
+				}
+			}
+			if (count >= n && hiddenSubset(cells, count, n, 0, 0, 0, 0)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Search the combinations of candidate values for a hidden subset.
+	 * 
+	 * @param cells
+	 *            the cells of the unit
+	 * @param count
+	 *            number of candidate values in members
+	 * @param n
+	 *            the size of the subset
+	 * @param start
+	 *            the first candidate to choose from
+	 * @param chosen
+	 *            number of values chosen so far
+	 * @param values
+	 *            candidate mask of the chosen values
+	 * @param union
+	 *            unit positions of the chosen values
+	 * @return true if values were removed
+	 */
+	private boolean hiddenSubset(int[] cells, int count, int n, int start,
+			int chosen, int values, int union) {
+		if (Integer.bitCount(union) > n) {
+			return false;
+		}
+		if (chosen == n) {
+			boolean ret = false;
+			for (int i = 0; i < Board.SIZE; i++) {
+				if ((union & (1 << i)) != 0) {
+					ret |= eliminate(cells[i], Board.ALL & ~values);
+				}
+			}
+			return ret;
+		}
+		for (int j = start; j <= count - (n - chosen); j++) {
+			int v = members[j];
+			if (hiddenSubset(cells, count, n, j + 1, chosen + 1, values
+					| (1 << v), union | places[v])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compute the places of each value in a unit.
+	 * 
+	 * @param cells
+	 *            the cells of the unit
+	 */
+	private void unitPlaces(int[] cells) {
+		for (int v = 0; v < Board.SIZE; v++) {
+			places[v] = 0;
+		}
+		for (int i = 0; i < Board.SIZE; i++) {
+			int mask = board.getCandidates(cells[i]);
+			while (mask != 0) {
+				int v = Integer.numberOfTrailingZeros(mask);
+				mask &= mask - 1;
+				places[v] |= 1 << i;
+			}
+		}
+	}
+
+	/**
+	 * Remove a value from n columns (rows) when its places in n rows
+	 * (columns) lie in those columns (rows).
+	 * 
+	 * @param n
+	 *            the number of lines
+	 * @return true if values were removed
+	 */
+	private boolean fish(int n) {
+		for (int bit = 1; bit < Board.ALL; bit <<= 1) {
+			for (int base = 0; base < 2; base++) {
+				// places of the value in each base line
+				int count = 0;
+				for (int line = 0; line < Board.SIZE; line++) {
+					int[] cells = Board.UNIT_CELLS[base * Board.SIZE + line];
+					int mask = 0;
+					for (int i = 0; i < Board.SIZE; i++) {
+						if ((board.getCandidates(cells[i]) & bit) != 0) {
+							mask |= 1 << i;
+						}
+					}
+					places[line] = mask;
+					int r = Integer.bitCount(mask);
+					if (r >= 2 && r <= n) {
+						members[count++] = line;
+					}
+				}
+				if (count >= n && fish(bit, base, count, n, 0, 0, 0, 0)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Search the combinations of base lines for a fish.
+	 * 
+	 * @param bit
+	 *            candidate mask of the value
+	 * @param base
+	 *            0 for rows as base lines and 1 for columns
+	 * @param count
+	 *            number of candidate lines in members
+	 * @param n
+	 *            the number of lines
+	 * @param start
+	 *            the first candidate to choose from
+	 * @param chosen
+	 *            number of lines chosen so far
+	 * @param lines
+	 *            mask of the chosen base lines
+	 * @param union
+	 *            places of the value in the chosen lines
+	 * @return true if values were removed
+	 */
+	private boolean fish(int bit, int base, int count, int n, int start,
+			int chosen, int lines, int union) {
+		if (Integer.bitCount(union) > n) {
+			return false;
+		}
+		if (chosen == n) {
+			boolean ret = false;
+			int cover = (1 - base) * Board.SIZE;
+			for (int i = 0; i < Board.SIZE; i++) {
+				if ((union & (1 << i)) != 0) {
+					int[] cells = Board.UNIT_CELLS[cover + i];
+					for (int line = 0; line < Board.SIZE; line++) {
+						if ((lines & (1 << line)) == 0) {
+							ret |= eliminate(cells[line], bit);
+						}
+					}
+				}
+			}
+			return ret;
+		}
+		for (int j = start; j <= count - (n - chosen); j++) {
+			int line = members[j];
+			if (fish(bit, base, count, n, j + 1, chosen + 1, lines
+					| (1 << line), union | places[line])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove z from the cells seeing both pincers of an XY-wing: a pivot with
+	 * values xy and two of its peers with values xz and yz.
+	 * 
+	 * @return true if values were removed
+	 */
+	private boolean xyWing() {
+		for (int k = 0; k < Board.CELLS; k++) {
+			int xy = board.getCandidates(k);
+			if (Integer.bitCount(xy) != 2) {
+				continue;
+			}
+			for (int a : Board.PEERS[k]) {
+				int xz = board.getCandidates(a);
+				if (Integer.bitCount(xz) != 2
+						|| Integer.bitCount(xz & xy) != 1) {
+					continue;
+				}
+				int z = xz & ~xy;
+				int yz = (xy & ~xz) | z;
+				for (int b : Board.PEERS[k]) {
+					if (b != a && board.getCandidates(b) == yz) {
+						boolean ret = false;
+						for (int c : Board.PEERS[a]) {
+							if (c != b && sees(c, b)) {
+								ret |= eliminate(c, z);
+							}
+						}
+						if (ret) {
+							return true;
+						}
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Color the chains of conjugate places of each value and remove the value
+	 * where a coloring rules it out.
+	 * 
+	 * @return true if values were removed
+	 */
+	private boolean chain() {
+		for (int bit = 1; bit < Board.ALL; bit <<= 1) {
+			for (int k = 0; k < Board.CELLS; k++) {
+				colors[k] = 0;
+			}
+			int component = 0;
+			for (int k = 0; k < Board.CELLS; k++) {
+				if (colors[k] == 0 && (board.getCandidates(k) & bit) != 0
+						&& color(k, bit, 2 * component + 2)) {
+					if (colorRules(bit, 2 * component + 2)) {
+						return true;
+					}
+					component++;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Color a chain of conjugate places of a value, starting from a cell.
+	 * 
+	 * @param start
+	 *            the starting cell
+	 * @param bit
+	 *            candidate mask of the value
+	 * @param color
+	 *            the color of the starting cell; the other color is color + 1
+	 * @return true if the chain has more than one cell
+	 */
+	private boolean color(int start, int bit, int color) {
+		int head = 0;
+		int tail = 0;
+		colors[start] = color;
+		queue[tail++] = start;
+		while (head < tail) {
+			int k = queue[head++];
+			int next = colors[k] ^ 1;
+			for (int i = 0; i < 3; i++) {
+				int u = i == 0 ? Board.ROW[k] : i == 1 ? Board.COL[k]
+						: Board.BOX[k];
+				int p = conjugate(u, k, bit);
+				if (p >= 0 && colors[p] == 0) {
+					colors[p] = next;
+					queue[tail++] = p;
+				}
+			}
+		}
+		if (tail == 1) {
+			colors[start] = 0;
+		}
+		return tail > 1;
+	}
+
+	/**
+	 * Get the other place of a value in a unit, if the value has exactly two.
+	 * 
+	 * @param u
+	 *            the unit
+	 * @param k
+	 *            one place of the value
+	 * @param bit
+	 *            candidate mask of the value
+	 * @return the other place, or -1 if the value has more than two places
+	 */
+	private int conjugate(int u, int k, int bit) {
+		int ret = -1;
+		for (int c : Board.UNIT_CELLS[u]) {
+			if (c != k && (board.getCandidates(c) & bit) != 0) {
+				if (ret >= 0) {
+					return -1;
+				}
+				ret = c;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Apply the coloring rules to a colored chain. If two cells of the same
+	 * color see each other, the value is removed from every cell of that
+	 * color. Otherwise it is removed from the uncolored cells seeing both
+	 * colors.
+	 * 
+	 * @param bit
+	 *            candidate mask of the value
+	 * @param color
+	 *            the first color of the chain
+	 * @return true if values were removed
+	 */
+	private boolean colorRules(int bit, int color) {
+		for (int a = 0; a < Board.CELLS; a++) {
+			if ((colors[a] | 1) != (color | 1)) {
+				continue;
+			}
+			for (int b : Board.PEERS[a]) {
+				if (colors[b] == colors[a]) {
+					boolean ret = false;
+					for (int k = 0; k < Board.CELLS; k++) {
+						if (colors[k] == colors[a]) {
+							ret |= eliminate(k, bit);
+						}
+					}
+					return ret;
+				}
+			}
+		}
+		boolean ret = false;
+		for (int k = 0; k < Board.CELLS; k++) {
+			if ((board.getCandidates(k) & bit) == 0
+					|| (colors[k] | 1) == (color | 1)) {
+				continue;
+			}
+			int seen = 0;
+			for (int p : Board.PEERS[k]) {
+				if ((colors[p] | 1) == (color | 1)) {
+					seen |= 1 << (colors[p] & 1);
+				}
+			}
+			if (seen == 3) {
+				ret |= eliminate(k, bit);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Fill a cell with the value of a single-bit mask.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param bit
+	 *            candidate mask of the value
+	 */
+	private void place(int k, int bit) {
+		byte v = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+		valid = Solver.updateBoard(board, k, v, null);
+	}
+
+	/**
+	 * Remove values from the available values of a cell.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param bits
+	 *            candidate mask of the values
+	 * @return true if any value was removed
+	 */
+	private boolean eliminate(int k, int bits) {
+		short mask = board.getCandidates(k);
+		if ((mask & bits) == 0) {
+			return false;
+		}
+		mask &= ~bits;
+		board.setCandidates(k, mask);
+		if (mask == 0) {
+			valid = false;
+		}
+		return true;
+	}
+
+	/**
+	 * Check if a cell belongs to a unit.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param u
+	 *            the unit
+	 * @return true if the cell is in the unit
+	 */
+	private static boolean inUnit(int k, int u) {
+		return Board.ROW[k] == u || Board.COL[k] == u || Board.BOX[k] == u;
+	}
+
+	/**
+	 * Check if two different cells share a unit.
+	 * 
+	 * @param a
+	 *            cell index in row order
+	 * @param b
+	 *            cell index in row order
+	 * @return true if the cells see each other
+	 */
+	private static boolean sees(int a, int b) {
+		return a != b
+				&& (Board.ROW[a] == Board.ROW[b] || Board.COL[a] == Board.COL[b]
+						|| Board.BOX[a] == Board.BOX[b]);
+	}
+
+	/**
+	 * Grade a Sudoku puzzle.
+	 * 
+	 * @param inputStr
+	 *            a input string listing cell values in row order
+	 * @return the grade
+	 * @throws Exception
+	 */
+	public static Grade getGrade(String inputStr) throws Exception {
+		return new Grader().grade(new Board(inputStr));
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			System.err
+					.println("Usage: java net.codingworks.sudoku.Grader <input string>");
+			System.exit(1);
+		}
+		try {
+			System.out.println(getGrade(args[0]));
+		} catch (Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
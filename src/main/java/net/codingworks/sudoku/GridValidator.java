@@ -0,0 +1,312 @@
+package net.codingworks.sudoku;
+
+/**
+ * GridValidator checks batches of solution grids. The grids of a batch are
+ * stored as a struct of arrays, the value bits of a cell in all grids next to
+ * one another, so that a unit is checked in many grids at once by a
+ * UnitKernel. On Java 17 or later with the jdk.incubator.vector module added,
+ * e.g. by --add-modules jdk.incubator.vector, the kernel uses the Vector API;
+ * otherwise a scalar kernel leaves the vectorization to the JIT compiler.
+ * A grid is valid if every cell holds a value 1-9 and every row, column and
+ * box holds each value once. Invalid values are found as grids are added. The
+ * result for each grid is a compact code giving the type and index of its
+ * first error, with no exception thrown. A single grid is checked with
+ * {@link #check(byte[])}, which gives the same codes.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class GridValidator {
+
+	/**
+	 * Code of a valid grid
+	 */
+	public static final int VALID = 0;
+
+	/**
+	 * Error type of a row with duplicates
+	 */
+	public static final int ROW = 1;
+
+	/**
+	 * Error type of a column with duplicates
+	 */
+	public static final int COLUMN = 2;
+
+	/**
+	 * Error type of a box with duplicates
+	 */
+	public static final int BOX = 3;
+
+	/**
+	 * Error type of a cell which is empty or holds an invalid value
+	 */
+	public static final int CELL = 4;
+
+	/**
+	 * Maximum number of grids of a batch
+	 */
+	private int capacity;
+
+	/**
+	 * Number of grids of the batch
+	 */
+	private int size = 0;
+
+	/**
+	 * Cell masks, with the bit of the value of cell k of grid g at k *
+	 * capacity + g, or 0 for an invalid value
+	 */
+	private short[] bits;
+
+	/**
+	 * The first cell with an invalid value of each grid, or -1
+	 */
+	private int[] invalid;
+
+	/**
+	 * The first unit with duplicates of each grid, or Board.UNITS
+	 */
+	private short[] first;
+
+	/**
+	 * The kernel checking the units
+	 */
+	private UnitKernel kernel;
+
+	/**
+	 * Constructor. The Vector API kernel is used if the JVM provides it.
+	 * 
+	 * @param capacity
+	 *            maximum number of grids of a batch
+	 */
+	public GridValidator(int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity
+	 *            maximum number of grids of a batch
+	 * @param kernel
+	 *            the kernel checking the units, or null for the Vector API
+	 *            kernel if the JVM provides it and the scalar one otherwise
+	 */
+	GridValidator(int capacity, UnitKernel kernel) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity " + capacity);
+		}
+		this.capacity = capacity;
+		bits = new short[Board.CELLS * capacity];
+		invalid = new int[capacity];
+		first = new short[capacity];
+		if (kernel == null) {
+			kernel = newVectorKernel();
+		}
+		this.kernel = kernel != null ? kernel : new ScalarUnitKernel(capacity);
+	}
+
+	/**
+	 * Create the Vector API kernel, through reflection since the library is
+	 * built for Java 8.
+	 * 
+	 * @return the kernel, or null if the JVM has no jdk.incubator.vector
+	 *         module
+	 */
+	static UnitKernel newVectorKernel() {
+		try {
+			return (UnitKernel) Class.forName(
+					"net.codingworks.sudoku.VectorUnitKernel").newInstance();
+		} catch (Throwable e) {
+			// before Java 17, or the module not added
+			return null;
+		}
+	}
+
+	/**
+	 * Check if the units are checked by the Vector API kernel.
+	 * 
+	 * @return true for the Vector API and false for the scalar kernel
+	 */
+	public boolean isVectorized() {
+		return !(kernel instanceof ScalarUnitKernel);
+	}
+
+	/**
+	 * Add a grid to the batch.
+	 * 
+	 * @param grid
+	 *            the grid
+	 * @return the index of the grid in the batch
+	 * @throws IllegalStateException
+	 *             if the batch is full
+	 */
+	public int add(Board grid) {
+		return add(grid.getValues());
+	}
+
+	/**
+	 * Add a grid to the batch.
+	 * 
+	 * @param grid
+	 *            the cell values of the grid in row order
+	 * @return the index of the grid in the batch
+	 * @throws IllegalStateException
+	 *             if the batch is full
+	 */
+	public int add(byte[] grid) {
+		if (size == capacity) {
+			throw new IllegalStateException("The batch is full");
+		}
+		invalid[size] = -1;
+		for (int k = Board.CELLS - 1; k >= 0; k--) {
+			byte v = grid[k];
+			if (v >= 1 && v <= Board.SIZE) {
+				bits[k * capacity + size] = Board.bit(v);
+			} else {
+				bits[k * capacity + size] = 0;
+				invalid[size] = k;
+			}
+		}
+		return size++;
+	}
+
+	/**
+	 * Get the number of grids of the batch.
+	 * 
+	 * @return the number of grids
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Empty the batch.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Check the grids of the batch.
+	 * 
+	 * @param codes
+	 *            an array receiving the code of each grid, VALID or the first
+	 *            error found
+	 * @return the number of invalid grids
+	 */
+	public int validate(int[] codes) {
+		int n = size;
+		kernel.firstUnits(bits, capacity, n, first);
+		int count = 0;
+		for (int g = 0; g < n; g++) {
+			int code = VALID;
+			if (invalid[g] >= 0) {
+				code = code(CELL, invalid[g]);
+			} else if (first[g] < Board.UNITS) {
+				code = unitCode(first[g]);
+			}
+			codes[g] = code;
+			if (code != VALID) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Check a single grid.
+	 * 
+	 * @param grid
+	 *            the cell values of the grid in row order
+	 * @return VALID or the code of the first error found, as for a batch
+	 */
+	public static int check(byte[] grid) {
+		for (int k = 0; k < Board.CELLS; k++) {
+			if (grid[k] < 1 || grid[k] > Board.SIZE) {
+				return code(CELL, k);
+			}
+		}
+		for (int u = 0; u < Board.UNITS; u++) {
+			int mask = 0;
+			for (int k : Board.UNIT_CELLS[u]) {
+				mask |= Board.bit(grid[k]);
+			}
+			if (mask != Board.ALL) {
+				return unitCode(u);
+			}
+		}
+		return VALID;
+	}
+
+	/**
+	 * Make the code of an error.
+	 * 
+	 * @param type
+	 *            the error type
+	 * @param index
+	 *            the index of the row, column, box or cell
+	 * @return the code
+	 */
+	private static int code(int type, int index) {
+		return type << 8 | index;
+	}
+
+	/**
+	 * Make the code of a unit with duplicates.
+	 * 
+	 * @param u
+	 *            the unit: rows, then columns, then boxes
+	 * @return the code
+	 */
+	private static int unitCode(int u) {
+		return code(ROW + u / Board.SIZE, u % Board.SIZE);
+	}
+
+	/**
+	 * Get the type of an error.
+	 * 
+	 * @param code
+	 *            the code of the error
+	 * @return ROW, COLUMN, BOX or CELL, or VALID for a valid grid
+	 */
+	public static int getType(int code) {
+		return code >>> 8;
+	}
+
+	/**
+	 * Get the index of the row, column, box or cell of an error.
+	 * 
+	 * @param code
+	 *            the code of the error
+	 * @return the index, from 0, with cells in row order
+	 */
+	public static int getIndex(int code) {
+		return code & 0xFF;
+	}
+
+	/**
+	 * Describe a code in the words of Board.validate().
+	 * 
+	 * @param code
+	 *            the code
+	 * @return the description
+	 */
+	public static String getMessage(int code) {
+		int i = getIndex(code);
+		switch (getType(code)) {
+		case ROW:
+			return "Duplicates at row " + (i + 1);
+		case COLUMN:
+			return "Duplicates at column " + (i + 1);
+		case BOX:
+			return "Duplicates in box " + (i + 1);
+		case CELL:
+			return "Invalid cell value at row " + (i / Board.SIZE + 1)
+					+ " and column " + (i % Board.SIZE + 1);
+		default:
+			return "Valid";
+		}
+	}
+}
@@ -11,20 +11,29 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JFormattedTextField;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 
 /**
- * GUI for exploring Sudoku puzzles
+ * GUI for exploring Sudoku puzzles. Searches run on the SolverService while a
+ * SwingWorker waits for their results, so the window stays responsive. The
+ * progress panel shows the statistics of the running search, refreshed by a
+ * Swing timer a few times per second however often the search reports them,
+ * and the Cancel button stops the search.
  * 
  * @author Rongqin Sheng
  * @version 1.0
@@ -35,9 +44,86 @@ public class MainGUI extends JFrame implements ActionListener {
 	JPanel board, progress, control;
 	JPanel[][] boxes;
 	JTextField[][] cells;
-	JButton solve, step, clear, imp, analyze;
+	JButton solve, step, clear, imp, analyze, cancel;
+	JLabel status;
 	Font font = new Font("SansSerif", Font.BOLD, 20);
-	Timer timer = new Timer();
+	SolverService service = new SolverService(1, 0);
+
+	/**
+	 * Number of milliseconds between two refreshes of the progress panel
+	 */
+	private static final int REFRESH_INTERVAL = 200;
+
+	/**
+	 * The timer refreshing the progress panel while a search runs
+	 */
+	private Timer refresh;
+
+	/**
+	 * The running search, or null
+	 */
+	private CompletableFuture<SolverResult> request;
+
+	/**
+	 * The statistics of the running search
+	 */
+	private Progress current;
+
+	/**
+	 * Progress keeps the latest statistics reported by a search, written on
+	 * the worker threads and read on the event dispatch thread.
+	 */
+	private static class Progress implements SearchListener {
+
+		/**
+		 * Start time in nanoseconds
+		 */
+		private final long startTime = System.nanoTime();
+
+		/**
+		 * End time in nanoseconds, or 0 while the search runs
+		 */
+		private long endTime = 0;
+
+		/**
+		 * Number of nodes reported
+		 */
+		private volatile long nodes = 0;
+
+		/**
+		 * Maximum depth reported
+		 */
+		private volatile int depth = 0;
+
+		public void progress(SearchStats stats) {
+			nodes = stats.getNodes();
+			depth = stats.getMaxDepth();
+		}
+
+		public void finished(SearchStats stats) {
+			progress(stats);
+		}
+
+		/**
+		 * Stop the clock once the result is in.
+		 */
+		public void stop() {
+			endTime = System.nanoTime();
+		}
+
+		/**
+		 * Describe the statistics so far.
+		 * 
+		 * @return a one-line description
+		 */
+		public String toString() {
+			long now = endTime != 0 ? endTime : System.nanoTime();
+			double seconds = (now - startTime) / 1e9;
+			return String.format("%,d nodes (%,.0f nodes/s), depth %d, "
+					+ "%.1f s", nodes, nodes / Math.max(seconds, 1e-9), depth,
+					seconds);
+		}
+	}
 
 	public static void main(String args[]) {
 		try {
@@ -115,6 +201,18 @@ public class MainGUI extends JFrame implements ActionListener {
 
 		add(board, BorderLayout.CENTER);
 
+		progress = new JPanel();
+		status = new JLabel("Ready");
+		progress.add(status);
+		add(progress, BorderLayout.PAGE_START);
+		refresh = new Timer(REFRESH_INTERVAL, new ActionListener() {
+			public void actionPerformed(ActionEvent evt) {
+				if (current != null) {
+					status.setText(current.toString());
+				}
+			}
+		});
+
 		control = new JPanel();
 		solve = new JButton("Solve");
 		solve.addActionListener(this);
@@ -131,13 +229,18 @@ public class MainGUI extends JFrame implements ActionListener {
 		analyze = new JButton("Analyze");
 		analyze.addActionListener(this);
 		control.add(analyze);
+		cancel = new JButton("Cancel");
+		cancel.addActionListener(this);
+		cancel.setEnabled(false);
+		control.add(cancel);
 		add(control, BorderLayout.PAGE_END);
 		setVisible(true);
 	}
 
 	public void actionPerformed(ActionEvent evt) {
 		String cmd = evt.getActionCommand();
-		if (cmd.equals("Solve") || cmd.equals("Step")) {
+		if (cmd.equals("Solve") || cmd.equals("Step")
+				|| cmd.equals("Analyze")) {
 			Cell[][] cs = new Cell[9][9];
 			for (int i = 0; i < 9; i++) {
 				for (int j = 0; j < 9; j++) {
@@ -158,42 +261,17 @@ public class MainGUI extends JFrame implements ActionListener {
 					input.validate();
 					return;
 				}
-				Solver solver = new Solver(input);
-
-				TimerTask stopper = new Stopper(solver);
-				timer.schedule(stopper, 3000);
-				Board result = solver.solve();
-
-				if (!solver.stopped()) {
-					stopper.cancel();
-					timer.purge();
-				}
-
-				if (solver.stopped()) {
-					JOptionPane.showMessageDialog(this,
-							"Timed out. It's too difficult.");
-				} else if (result == null) {
-					JOptionPane.showMessageDialog(this, "No solution");
-				} else {
-					if (cmd.equals("Solve")) {
-						for (byte i = 0; i < 9; i++) {
-							for (byte j = 0; j < 9; j++) {
-								if (input.getCell(i, j).isEmpty()) {
-									cells[i][j].setText(""
-											+ result.getCell(i, j).getValue());
-								}
-							}
-						}
-					} else {
-						int[] idx = Solver.selectCell(input);
-						cells[idx[0]][idx[1]].setText(""
-								+ result.getCell(idx[0], idx[1]).getValue());
-					}
-				}
+				start(cmd, input);
 			} catch (Exception e) {
 				JOptionPane.showMessageDialog(this, e.getMessage(), "Error",
 						JOptionPane.ERROR_MESSAGE);
 			}
+		} else if (cmd.equals("Cancel")) {
+			if (request != null) {
+				// cancelling the request stops its search
+				request.cancel(true);
+				cancel.setEnabled(false);
+			}
 		} else if (cmd.equals("Clear")) {
 			for (byte i = 0; i < 9; i++) {
 				for (byte j = 0; j < 9; j++) {
@@ -234,46 +312,155 @@ public class MainGUI extends JFrame implements ActionListener {
 					}
 				}
 			}
-		} else if (cmd.equals("Analyze")) {
-			Cell[][] cs = new Cell[9][9];
-			for (int i = 0; i < 9; i++) {
-				for (int j = 0; j < 9; j++) {
-					String str = cells[i][j].getText();
-					if (str != null && str.trim().length() == 1) {
+		}
+	}
 
-						cs[i][j] = new Cell(Byte.parseByte(str));
-					} else {
-						cs[i][j] = new Cell((byte) 0);
-						cells[i][j].setForeground(Color.BLUE);
-					}
+	/**
+	 * Start a search on the service, with a SwingWorker waiting for its
+	 * result and then for the service to release the search.
+	 * 
+	 * @param cmd
+	 *            the command: Solve, Step or Analyze
+	 * @param input
+	 *            the puzzle
+	 */
+	private void start(final String cmd, final Board input) {
+		final Progress listener = new Progress();
+		if (cmd.equals("Analyze")) {
+			request = service.analyze(input, 5, TimeUnit.SECONDS, listener);
+		} else {
+			request = service.solve(input, 3, TimeUnit.SECONDS, listener);
+		}
+		final CompletableFuture<SolverResult> future = request;
+		current = listener;
+		setRunning(true);
+		status.setText(cmd + "...");
+		refresh.start();
+		new SwingWorker<SolverResult, Void>() {
+			protected SolverResult doInBackground() throws Exception {
+				try {
+					return future.get();
+				} finally {
+					// a cancelled search runs until it checks its token, so
+					// the controls stay disabled until it is over
+					service.whenIdle().get();
 				}
 			}
 
-			try {
-				Board input = new Board(cs);
-				if (input.getNumberOfEmptyCells() == 0) {
-					input.validate();
-					return;
+			protected void done() {
+				refresh.stop();
+				request = null;
+				current = null;
+				setRunning(false);
+				listener.stop();
+				Throwable failure = null;
+				try {
+					SolverResult answer = get();
+					status.setText(answer.getStatus() + ", " + listener);
+					show(cmd, input, answer);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					failure = e.getCause();
+					if (failure instanceof ExecutionException) {
+						failure = failure.getCause();
+					}
+					if (failure instanceof CancellationException) {
+						status.setText("CANCELLED, " + listener);
+						failure = null;
+					}
+				} catch (Exception e) {
+					failure = e;
 				}
-				Analyzer analyzer = new Analyzer(input);
-
-				TimerTask stopper = new Stopper(analyzer);
-				timer.schedule(stopper, 5000);
-				String msg = analyzer.getReport();
-
-				if (!analyzer.stopped()) {
-					JOptionPane.showMessageDialog(this, msg, "Report",
-							JOptionPane.INFORMATION_MESSAGE);
-					stopper.cancel();
-					timer.purge();
-				} else {
-					JOptionPane.showMessageDialog(this,
-							"Timed out. It's too difficult.");
+				if (failure != null) {
+					status.setText("Ready");
+					JOptionPane.showMessageDialog(MainGUI.this,
+							failure.getMessage() != null ? failure
+									.getMessage() : failure.toString(),
+							"Error", JOptionPane.ERROR_MESSAGE);
 				}
-			} catch (Exception e) {
-				JOptionPane.showMessageDialog(this, e.getMessage(), "Error",
-						JOptionPane.ERROR_MESSAGE);
+			}
+		}.execute();
+	}
+
+	/**
+	 * Enable the buttons and cells for a running search or for editing.
+	 * 
+	 * @param running
+	 *            true while a search runs
+	 */
+	private void setRunning(boolean running) {
+		solve.setEnabled(!running);
+		step.setEnabled(!running);
+		clear.setEnabled(!running);
+		imp.setEnabled(!running);
+		analyze.setEnabled(!running);
+		cancel.setEnabled(running);
+		for (int i = 0; i < 9; i++) {
+			for (int j = 0; j < 9; j++) {
+				cells[i][j].setEditable(!running);
+			}
+		}
+	}
+
+	/**
+	 * Show the result of a search.
+	 * 
+	 * @param cmd
+	 *            the command: Solve, Step or Analyze
+	 * @param input
+	 *            the puzzle
+	 * @param answer
+	 *            the result
+	 * @throws Exception
+	 *             if the puzzle is invalid
+	 */
+	private void show(String cmd, Board input, SolverResult answer)
+			throws Exception {
+		if (answer.getStatus() == SolverResult.Status.TIMED_OUT) {
+			JOptionPane.showMessageDialog(this,
+					"Timed out. It's too difficult.");
+		} else if (cmd.equals("Analyze")) {
+			JOptionPane.showMessageDialog(this, answer.getReport(),
+					"Report", JOptionPane.INFORMATION_MESSAGE);
+		} else if (answer.getSolution() == null) {
+			JOptionPane.showMessageDialog(this, "No solution");
+		} else {
+			Board result = answer.getSolution();
+			if (cmd.equals("Solve")) {
+				for (byte i = 0; i < 9; i++) {
+					for (byte j = 0; j < 9; j++) {
+						if (input.getCell(i, j).isEmpty()) {
+							cells[i][j].setText(""
+									+ result.getCell(i, j).getValue());
+						}
+					}
+				}
+			} else {
+				int[] idx = step(input, result);
+				cells[idx[0]][idx[1]].setText("" + idx[2]);
 			}
 		}
 	}
+
+	/**
+	 * Choose the cell filled by the Step command.
+	 * 
+	 * @param input
+	 *            the puzzle, whose cells are updated
+	 * @param solution
+	 *            a solution of the puzzle
+	 * @return the row, column and value of the cell with the least number of
+	 *         possibilities
+	 * @throws Exception
+	 *             if the puzzle is invalid
+	 */
+	static int[] step(Board input, Board solution) throws Exception {
+		// the service searched a copy, so the candidates of the input are
+		// not known yet
+		input.updateCells();
+		int[] idx = Solver.selectCell(input);
+		return new int[] { idx[0], idx[1],
+				solution.getCell(idx[0], idx[1]).getValue() };
+	}
 }
@@ -0,0 +1,133 @@
+package net.codingworks.sudoku;
+
+/**
+ * Propagator applies forced moves to a Board until none is left: naked
+ * singles (an empty cell with a single available value) and hidden singles (a
+ * value with a single place left in a row, column or box). It also detects
+ * contradictions, i.e. an empty cell without available values or a value
+ * without any place in a unit.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class Propagator {
+
+	/**
+	 * Apply forced moves to a Board until a fixpoint is reached. The cells of
+	 * the Board must have been updated.
+	 * 
+	 * @param board
+	 *            the Board to be updated
+	 * @param trail
+	 *            the Trail to record changes on, or null
+	 * @return false if a contradiction was found and true otherwise
+	 */
+	public static boolean propagate(Board board, Trail trail) {
+		return propagate(board, trail, null);
+	}
+
+	/**
+	 * Apply forced moves to a Board until a fixpoint is reached, counting the
+	 * eliminations.
+	 * 
+	 * @param board
+	 *            the Board to be updated
+	 * @param trail
+	 *            the Trail to record changes on, or null
+	 * @param stats
+	 *            the collector of search statistics, or null
+	 * @return false if a contradiction was found and true otherwise
+	 */
+	static boolean propagate(Board board, Trail trail, SearchStats stats) {
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+
+			// naked singles
+			RankIndex index = board.getRankIndex();
+			if (index != null) {
+				while (index.count(1) > 0) {
+					if (index.count(0) > 0) {
+						return false;
+					}
+					int k = index.select(null);
+					if (!fill(board, k, board.getCandidates(k), trail, stats)) {
+						return false;
+					}
+					changed = true;
+				}
+				if (index.count(0) > 0) {
+					return false;
+				}
+			} else {
+				for (int k = 0; k < Board.CELLS; k++) {
+					if (board.getValue(k) == 0) {
+						short mask = board.getCandidates(k);
+						if (mask == 0) {
+							return false;
+						}
+						if ((mask & (mask - 1)) == 0) {
+							if (!fill(board, k, mask, trail, stats)) {
+								return false;
+							}
+							changed = true;
+						}
+					}
+				}
+			}
+
+			// hidden singles
+			for (int u = 0; u < Board.UNITS; u++) {
+				int[] cells = Board.UNIT_CELLS[u];
+				int once = 0;
+				int twice = 0;
+				for (int k : cells) {
+					int mask = board.getCandidates(k);
+					twice |= once & mask;
+					once |= mask;
+				}
+				int placed = board.getUsed(u);
+				if ((once | placed) != Board.ALL) {
+					return false;
+				}
+				int hidden = once & ~twice & ~placed;
+				while (hidden != 0) {
+					int bit = hidden & -hidden;
+					hidden &= ~bit;
+					for (int k : cells) {
+						if ((board.getCandidates(k) & bit) != 0) {
+							if (!fill(board, k, (short) bit, trail,
+									stats)) {
+								return false;
+							}
+							changed = true;
+							break;
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Fill a cell with the value of a single-bit mask.
+	 * 
+	 * @param board
+	 *            the Board to be updated
+	 * @param k
+	 *            cell index in row order
+	 * @param bit
+	 *            candidate mask of the value
+	 * @param trail
+	 *            the Trail to record changes on, or null
+	 * @param stats
+	 *            the collector of search statistics, or null
+	 * @return true for success and false otherwise
+	 */
+	private static boolean fill(Board board, int k, short bit, Trail trail,
+			SearchStats stats) {
+		byte v = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+		return Solver.updateBoard(board, k, v, trail, stats);
+	}
+}
@@ -0,0 +1,123 @@
+package net.codingworks.sudoku;
+
+import java.util.Random;
+
+/**
+ * RankIndex keeps the empty cells of a Board bucketed by rank (number of
+ * available values). Once attached to a Board it is updated whenever a cell
+ * value or candidate mask changes, so that a cell with the least number of
+ * possibilities can be selected in constant time.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class RankIndex {
+
+	/**
+	 * Cells in each bucket, indexed by rank (0-9)
+	 */
+	private int[][] buckets = new int[Board.SIZE + 1][Board.CELLS];
+
+	/**
+	 * Number of cells in each bucket
+	 */
+	private int[] sizes = new int[Board.SIZE + 1];
+
+	/**
+	 * Rank of each cell, or -1 for cells not in the index
+	 */
+	private int[] ranks = new int[Board.CELLS];
+
+	/**
+	 * Position of each cell in its bucket
+	 */
+	private int[] positions = new int[Board.CELLS];
+
+	/**
+	 * Index all empty cells of a Board.
+	 * 
+	 * @param board
+	 *            the Board
+	 */
+	void build(Board board) {
+		for (int r = 0; r <= Board.SIZE; r++) {
+			sizes[r] = 0;
+		}
+		for (int k = 0; k < Board.CELLS; k++) {
+			ranks[k] = -1;
+			if (board.getValue(k) == 0) {
+				add(k, board.getRank(k));
+			}
+		}
+	}
+
+	/**
+	 * Move a cell to the bucket of a new rank.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param rank
+	 *            the new rank, or -1 to remove the cell from the index
+	 */
+	void update(int k, int rank) {
+		int old = ranks[k];
+		if (old != rank) {
+			if (old >= 0) {
+				// move the last cell of the bucket into the vacated slot
+				int pos = positions[k];
+				int last = buckets[old][--sizes[old]];
+				buckets[old][pos] = last;
+				positions[last] = pos;
+			}
+			ranks[k] = -1;
+			if (rank >= 0) {
+				add(k, rank);
+			}
+		}
+	}
+
+	/**
+	 * Add a cell to a bucket.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param rank
+	 *            the rank
+	 */
+	private void add(int k, int rank) {
+		int pos = sizes[rank]++;
+		buckets[rank][pos] = k;
+		positions[k] = pos;
+		ranks[k] = rank;
+	}
+
+	/**
+	 * Get the number of indexed cells having a rank.
+	 * 
+	 * @param rank
+	 *            the rank (0-9)
+	 * @return the number of cells
+	 */
+	public int count(int rank) {
+		return sizes[rank];
+	}
+
+	/**
+	 * Select an empty cell with the least number of possibilities.
+	 * 
+	 * @param random
+	 *            the source of random tie-breaking, or null to take the first
+	 *            cell in the bucket
+	 * @return cell index in row order, or -1 if there are no empty cells
+	 */
+	public int select(Random random) {
+		for (int r = 0; r <= Board.SIZE; r++) {
+			int size = sizes[r];
+			if (size > 0) {
+				return buckets[r][random != null && size > 1 ? random
+						.nextInt(size) : 0];
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,109 @@
+package net.codingworks.sudoku;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * SearchContext carries the random state of one search. It is a Random whose
+ * numbers come from a SplitMix64 generator held in a plain field, so drawing
+ * a number costs neither an allocation nor an atomic update, and an instance
+ * must not be shared between threads. A search started from a given seed makes
+ * the same choices every time, which lets a slow search be replayed. Parallel
+ * workers take independent streams from {@link #split()}.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+@SuppressWarnings("serial")
+public class SearchContext extends Random {
+
+	/**
+	 * Increment of the generator state, the odd integer closest to 2^64 divided
+	 * by the golden ratio
+	 */
+	private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * The generator state
+	 */
+	private long state;
+
+	/**
+	 * The seed the context was created with
+	 */
+	private long seed;
+
+	/**
+	 * Constructor. The seed is drawn at random.
+	 */
+	public SearchContext() {
+		this(ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public SearchContext(long seed) {
+		super(seed);
+		setSeed(seed);
+	}
+
+	/**
+	 * Restart the generator from a seed.
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	@Override
+	public void setSeed(long seed) {
+		this.seed = seed;
+		this.state = seed;
+	}
+
+	/**
+	 * Get the seed the context was created with, or last restarted from.
+	 * 
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Create a context for another worker. Its stream is independent of this
+	 * one, and it is determined by the seed of this context and the number of
+	 * contexts split from it so far.
+	 * 
+	 * @return the new context
+	 */
+	public SearchContext split() {
+		return new SearchContext(mix(nextLong()));
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public long nextLong() {
+		state += GAMMA;
+		return mix(state);
+	}
+
+	/**
+	 * Scramble the bits of a value with the SplitMix64 finalizer.
+	 * 
+	 * @param z
+	 *            the value
+	 * @return the scrambled value
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,31 @@
+package net.codingworks.sudoku;
+
+/**
+ * SearchListener is the interface to follow the effort of a search while it
+ * runs, e.g. to stop a search whose node count blows up before it times out.
+ * Calls are made on the searching thread, so they should return quickly.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see SearchStats#setListener(SearchListener)
+ */
+public interface SearchListener {
+
+	/**
+	 * Receive the statistics of a running search. This is called every
+	 * {@value SearchStats#PROGRESS_INTERVAL} nodes, and whenever a task of a
+	 * parallel analysis adds its counts.
+	 * 
+	 * @param stats
+	 *            the statistics so far
+	 */
+	public void progress(SearchStats stats);
+
+	/**
+	 * Receive the statistics of a finished search.
+	 * 
+	 * @param stats
+	 *            the final statistics
+	 */
+	public void finished(SearchStats stats);
+}
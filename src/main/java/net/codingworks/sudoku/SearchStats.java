@@ -0,0 +1,310 @@
+package net.codingworks.sudoku;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * SearchStats collects the effort spent by a search: the number of nodes
+ * (values tried in a cell), the number of dead ends, the maximum depth of the
+ * search tree, the number of candidates eliminated, the number of Board copies
+ * and the elapsed and CPU time. A collector is optional: searches given none
+ * skip all counting. The counts can be followed while the search runs through
+ * a SearchListener, or over JMX once the collector has been registered; JMX
+ * reads them without synchronization, so they may lag behind the search.
+ * <p>
+ * A collector is counted into by one searching thread at a time: the counting
+ * methods such as {@link #node(int)} take no lock, for the sake of the search
+ * loops. A parallel analysis therefore gives every task a collector of its
+ * own and merges it into the collector of the analysis with
+ * {@link #add(SearchStats)}, which takes the lock, once the task is done
+ * counting. The thread which started the analysis counts no more until its
+ * tasks have finished.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class SearchStats implements SearchStatsMBean {
+
+	/**
+	 * Number of nodes between two progress reports to the listener, a power
+	 * of 2
+	 */
+	public static final int PROGRESS_INTERVAL = 1 << 12;
+
+	/**
+	 * The source of thread CPU time
+	 */
+	private static final ThreadMXBean THREADS = ManagementFactory
+			.getThreadMXBean();
+
+	/**
+	 * Number of values tried
+	 */
+	private long nodes = 0;
+
+	/**
+	 * Number of values leading to a contradiction
+	 */
+	private long backtracks = 0;
+
+	/**
+	 * Maximum number of values tried along one path
+	 */
+	private int maxDepth = 0;
+
+	/**
+	 * Number of candidates removed from empty cells
+	 */
+	private long eliminations = 0;
+
+	/**
+	 * Number of Board copies
+	 */
+	private long copies = 0;
+
+	/**
+	 * Start time in nanoseconds
+	 */
+	private long startTime = 0;
+
+	/**
+	 * Elapsed time in nanoseconds
+	 */
+	private long elapsedTime = 0;
+
+	/**
+	 * CPU time of the starting thread at the start in nanoseconds
+	 */
+	private long startCpuTime = 0;
+
+	/**
+	 * CPU time in nanoseconds, summed over the threads of a parallel search
+	 */
+	private long cpuTime = 0;
+
+	/**
+	 * The listener, or null
+	 */
+	private SearchListener listener;
+
+	/**
+	 * The name under which the collector is registered over JMX, or null
+	 */
+	private ObjectName objectName;
+
+	/**
+	 * Set the listener following the search.
+	 * 
+	 * @param listener
+	 *            the listener, or null for none
+	 */
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Register the collector with the platform MBean server.
+	 * 
+	 * @param name
+	 *            the name of the collector, unique among registered ones
+	 * @throws JMException
+	 */
+	public synchronized void register(String name) throws JMException {
+		ObjectName on = new ObjectName(
+				"net.codingworks.sudoku:type=SearchStats,name="
+						+ ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+		objectName = on;
+	}
+
+	/**
+	 * Unregister the collector from the platform MBean server, if registered.
+	 * 
+	 * @throws JMException
+	 */
+	public synchronized void unregister() throws JMException {
+		if (objectName != null) {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+					objectName);
+			objectName = null;
+		}
+	}
+
+	/**
+	 * Reset the counters and start the clocks.
+	 */
+	void start() {
+		nodes = 0;
+		backtracks = 0;
+		maxDepth = 0;
+		eliminations = 0;
+		copies = 0;
+		elapsedTime = 0;
+		cpuTime = 0;
+		startTime = System.nanoTime();
+		startCpuTime = threadCpuTime();
+	}
+
+	/**
+	 * Stop the clocks and notify the listener.
+	 */
+	void finish() {
+		elapsedTime = System.nanoTime() - startTime;
+		synchronized (this) {
+			cpuTime += threadCpuTime() - startCpuTime;
+		}
+		if (listener != null) {
+			listener.finished(this);
+		}
+	}
+
+	/**
+	 * Get the CPU time of the current thread.
+	 * 
+	 * @return the CPU time in nanoseconds, or 0 if it is not available
+	 */
+	private static long threadCpuTime() {
+		return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS
+				.getCurrentThreadCpuTime() : 0;
+	}
+
+	/**
+	 * Count a value tried, on the thread owning the collector.
+	 * 
+	 * @param depth
+	 *            the depth of the node, starting at 1
+	 */
+	void node(int depth) {
+		nodes++;
+		if (depth > maxDepth) {
+			maxDepth = depth;
+		}
+		if (listener != null && (nodes & (PROGRESS_INTERVAL - 1)) == 0) {
+			listener.progress(this);
+		}
+	}
+
+	/**
+	 * Count a value leading to a contradiction.
+	 */
+	void backtrack() {
+		backtracks++;
+	}
+
+	/**
+	 * Count a candidate removed from an empty cell.
+	 */
+	void eliminate() {
+		eliminations++;
+	}
+
+	/**
+	 * Count a Board copy.
+	 */
+	void copy() {
+		copies++;
+	}
+
+	/**
+	 * Add the counts and CPU time of another collector, e.g. one used by a
+	 * parallel task, and notify the listener.
+	 * 
+	 * @param other
+	 *            the other collector
+	 */
+	void add(SearchStats other) {
+		synchronized (this) {
+			nodes += other.nodes;
+			backtracks += other.backtracks;
+			if (other.maxDepth > maxDepth) {
+				maxDepth = other.maxDepth;
+			}
+			eliminations += other.eliminations;
+			copies += other.copies;
+			cpuTime += other.cpuTime;
+		}
+		if (listener != null) {
+			listener.progress(this);
+		}
+	}
+
+	/**
+	 * Get the number of values tried.
+	 * 
+	 * @return the number of nodes
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Get the number of values leading to a contradiction.
+	 * 
+	 * @return the number of backtracks
+	 */
+	public long getBacktracks() {
+		return backtracks;
+	}
+
+	/**
+	 * Get the maximum depth of the search tree.
+	 * 
+	 * @return the maximum depth
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Get the number of candidates removed from empty cells, by filled
+	 * neighbours or forced moves. Dancing Links removes none.
+	 * 
+	 * @return the number of eliminations
+	 */
+	public long getEliminations() {
+		return eliminations;
+	}
+
+	/**
+	 * Get the number of Board copies made by the COPY engine.
+	 * 
+	 * @return the number of copies
+	 */
+	public long getCopies() {
+		return copies;
+	}
+
+	/**
+	 * Get the elapsed time.
+	 * 
+	 * @return the elapsed time in nanoseconds
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * Get the CPU time, summed over the threads of a parallel analysis.
+	 * 
+	 * @return the CPU time in nanoseconds, or 0 if the JVM does not measure
+	 *         thread CPU time
+	 */
+	public long getCpuTime() {
+		return cpuTime;
+	}
+
+	/**
+	 * Get a one-line summary.
+	 * 
+	 * @return a string representation
+	 */
+	public String toString() {
+		return "nodes=" + nodes + ", backtracks=" + backtracks + ", maxDepth="
+				+ maxDepth + ", eliminations=" + eliminations + ", copies="
+				+ copies + ", time=" + (elapsedTime / 1000) + "us, cpu="
+				+ (cpuTime / 1000) + "us";
+	}
+}
@@ -0,0 +1,47 @@
+package net.codingworks.sudoku;
+
+/**
+ * SearchStatsMBean is the management interface of SearchStats, through which
+ * a registered collector can be watched over JMX.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see SearchStats#register(String)
+ */
+public interface SearchStatsMBean {
+
+	/**
+	 * @return the number of values tried
+	 */
+	public long getNodes();
+
+	/**
+	 * @return the number of values leading to a contradiction
+	 */
+	public long getBacktracks();
+
+	/**
+	 * @return the maximum depth of the search tree
+	 */
+	public int getMaxDepth();
+
+	/**
+	 * @return the number of candidates removed from empty cells
+	 */
+	public long getEliminations();
+
+	/**
+	 * @return the number of Board copies
+	 */
+	public long getCopies();
+
+	/**
+	 * @return the elapsed time in nanoseconds
+	 */
+	public long getElapsedTime();
+
+	/**
+	 * @return the CPU time in nanoseconds
+	 */
+	public long getCpuTime();
+}
@@ -0,0 +1,267 @@
+package net.codingworks.sudoku;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SolutionCache remembers the solutions of recent puzzles, keyed by their
+ * canonical form, so that a puzzle equal to a cached one up to a relabeling of
+ * digits, a permutation of rows, columns, bands or stacks, or a transpose is
+ * answered without a search. Cached solutions are kept in canonical form and
+ * mapped back through the inverse transform of each request. The cache holds
+ * a bounded number of puzzles and evicts the least recently used one; it
+ * counts hits, misses and evictions. A SolutionCache is thread-safe.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class SolutionCache {
+
+	/**
+	 * Default maximum number of puzzles cached
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 12;
+
+	/**
+	 * The solutions of a canonical puzzle
+	 */
+	private static class Entry {
+
+		/**
+		 * The first solutions found, at most 2
+		 */
+		private Board[] solutions;
+
+		/**
+		 * True if all solutions up to 2 were searched for, false if the search
+		 * stopped at the first one
+		 */
+		private boolean complete;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param solutions
+		 *            the first solutions found, at most 2
+		 * @param complete
+		 *            true if all solutions up to 2 were searched for
+		 */
+		Entry(Board[] solutions, boolean complete) {
+			this.solutions = solutions;
+			this.complete = complete || solutions.length == 0;
+		}
+	}
+
+	/**
+	 * Maximum number of puzzles cached
+	 */
+	private final int capacity;
+
+	/**
+	 * The search engine used on misses
+	 */
+	private final Engine engine;
+
+	/**
+	 * Entries by canonical puzzle, in access order
+	 */
+	private final Map<String, Entry> entries;
+
+	/**
+	 * Number of requests answered from the cache
+	 */
+	private long hits = 0;
+
+	/**
+	 * Number of requests searched
+	 */
+	private long misses = 0;
+
+	/**
+	 * Number of puzzles evicted
+	 */
+	private long evictions = 0;
+
+	/**
+	 * Constructor. Misses are searched by the TRAIL engine.
+	 * 
+	 * @param capacity
+	 *            maximum number of puzzles cached
+	 */
+	public SolutionCache(int capacity) {
+		this(capacity, Engine.TRAIL);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity
+	 *            maximum number of puzzles cached
+	 * @param engine
+	 *            the search engine used on misses
+	 */
+	public SolutionCache(final int capacity, Engine engine) {
+		this.capacity = capacity;
+		this.engine = engine;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> e) {
+				if (size() > capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Get a solution of a Sudoku puzzle, as {@link Solver#getSolution(String)}
+	 * does. If there are multiple solutions, only one of them is returned.
+	 * 
+	 * @param inputStr
+	 *            a input string listing cell values in row order
+	 * @return a solution in the form of a string listing cell values in row
+	 *         order. A null value is returned if there is no solution.
+	 * @throws Exception
+	 */
+	public String getSolution(String inputStr) throws Exception {
+		Board input = new Board(inputStr);
+		input.updateCells();
+		Canonicalizer canonicalizer = new Canonicalizer();
+		Board canonical = canonicalizer.canonicalize(input);
+		String key = canonical.toString();
+		Entry entry = lookup(key, false);
+		if (entry == null) {
+			Board solution = new Solver(canonical).solve(engine);
+			entry = store(key, new Entry(solution == null ? new Board[0]
+					: new Board[] { solution }, false));
+		}
+		if (entry.solutions.length == 0) {
+			return null;
+		}
+		return canonicalizer.restore(entry.solutions[0]).toString();
+	}
+
+	/**
+	 * Get the report of a Sudoku puzzle, as {@link Analyzer#getReport()}
+	 * does.
+	 * 
+	 * @param inputStr
+	 *            a input string listing cell values in row order
+	 * @return the report
+	 * @throws Exception
+	 */
+	public String getReport(String inputStr) throws Exception {
+		Board input = new Board(inputStr);
+		input.updateCells();
+		Canonicalizer canonicalizer = new Canonicalizer();
+		Board canonical = canonicalizer.canonicalize(input);
+		String key = canonical.toString();
+		Entry entry = lookup(key, true);
+		if (entry == null) {
+			Analyzer analyzer = new Analyzer(canonical);
+			analyzer.countSolutions(2, engine);
+			entry = store(key, new Entry(analyzer.getSolutions(), true));
+		}
+		Board[] solutions = new Board[entry.solutions.length];
+		for (int i = 0; i < solutions.length; i++) {
+			solutions[i] = canonicalizer.restore(entry.solutions[i]);
+		}
+		return Analyzer.report(solutions);
+	}
+
+	/**
+	 * Look up a canonical puzzle and count a hit or a miss.
+	 * 
+	 * @param key
+	 *            the canonical puzzle
+	 * @param complete
+	 *            true if all solutions up to 2 are needed
+	 * @return the entry, or null on a miss
+	 */
+	private synchronized Entry lookup(String key, boolean complete) {
+		Entry entry = entries.get(key);
+		if (entry != null && (entry.complete || !complete)) {
+			hits++;
+			return entry;
+		}
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Cache the solutions of a canonical puzzle, unless a complete entry was
+	 * cached meanwhile by another thread.
+	 * 
+	 * @param key
+	 *            the canonical puzzle
+	 * @param entry
+	 *            the solutions found
+	 * @return the entry cached
+	 */
+	private synchronized Entry store(String key, Entry entry) {
+		Entry old = entries.get(key);
+		if (old != null && old.complete) {
+			return old;
+		}
+		entries.put(key, entry);
+		return entry;
+	}
+
+	/**
+	 * Get the number of requests answered from the cache.
+	 * 
+	 * @return the number of hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Get the number of requests searched.
+	 * 
+	 * @return the number of misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Get the number of puzzles evicted to make room for others.
+	 * 
+	 * @return the number of evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Get the number of puzzles cached.
+	 * 
+	 * @return the size
+	 */
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	/**
+	 * Get the maximum number of puzzles cached.
+	 * 
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Get a one-line summary of the counters.
+	 * 
+	 * @return a string representation
+	 */
+	public synchronized String toString() {
+		return "hits=" + hits + ", misses=" + misses + ", evictions="
+				+ evictions + ", size=" + entries.size() + "/" + capacity;
+	}
+}
@@ -0,0 +1,141 @@
+package net.codingworks.sudoku;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * SolutionSpliterator enumerates the solutions of a part of a search tree. It
+ * holds the roots of subtrees not yet started and a TrailSolver searching the
+ * current one, which is resumed for every solution, so solutions are only
+ * searched for as they are consumed. Splitting hands over half of the subtrees
+ * not yet started, expanding a lone root into the subtrees of its values, or
+ * else the values not yet tried at the shallowest choice point of the current
+ * search.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see Solutions
+ */
+class SolutionSpliterator implements Spliterator<Board> {
+
+	/**
+	 * Roots of the subtrees not yet started, updated and with forced moves
+	 * applied
+	 */
+	private ArrayDeque<Board> pending = new ArrayDeque<Board>();
+
+	/**
+	 * The solver searching the current subtree
+	 */
+	private TrailSolver solver = new TrailSolver();
+
+	/**
+	 * True while the solver is searching a subtree
+	 */
+	private boolean active = false;
+
+	/**
+	 * The token shared by the spliterators of a search, forked for the solver
+	 */
+	private CancellationToken token;
+
+	/**
+	 * Estimated number of solutions, unknown but halved by every split so
+	 * that a parallel stream stops splitting once every thread has work
+	 */
+	private long estimate;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param roots
+	 *            roots of the subtrees, updated and with forced moves applied
+	 * @param token
+	 *            the token telling the search when to give up, forked for
+	 *            this spliterator
+	 * @param estimate
+	 *            estimated number of solutions
+	 */
+	SolutionSpliterator(List<Board> roots, CancellationToken token,
+			long estimate) {
+		pending.addAll(roots);
+		this.token = token;
+		this.estimate = estimate;
+		solver.setToken(token.fork());
+	}
+
+	public boolean tryAdvance(Consumer<? super Board> action) {
+		while (true) {
+			if (active) {
+				if (solver.solve()) {
+					action.accept(solver.getBoard().copy(true));
+					return true;
+				}
+				active = false;
+			}
+			Board next = pending.poll();
+			if (next == null || token.isCancelled()) {
+				return false;
+			}
+			solver.load(next);
+			active = true;
+		}
+	}
+
+	public Spliterator<Board> trySplit() {
+		if (!active) {
+			expand();
+		}
+		List<Board> roots;
+		if (pending.size() > 1 || active && !pending.isEmpty()) {
+			roots = new ArrayList<Board>();
+			for (int n = (pending.size() + 1) / 2; n > 0; n--) {
+				roots.add(pending.pollLast());
+			}
+		} else if (active) {
+			roots = solver.split();
+		} else {
+			return null;
+		}
+		if (roots.isEmpty()) {
+			return null;
+		}
+		estimate >>>= 1;
+		return new SolutionSpliterator(roots, token, estimate);
+	}
+
+	/**
+	 * Replace a lone root by the roots of the subtrees of the values of its
+	 * cell with the fewest candidates, until there are several.
+	 */
+	private void expand() {
+		while (pending.size() == 1) {
+			Board root = pending.peek();
+			int k = Solver.selectCell(root, null);
+			if (k < 0) {
+				return;
+			}
+			pending.poll();
+			short mask = root.getCandidates(k);
+			for (byte v = 1; v <= Board.SIZE; v++) {
+				if ((mask & Board.bit(v)) != 0) {
+					Board b = Analyzer.branch(root, k, v, 0, null);
+					if (b != null) {
+						pending.add(b);
+					}
+				}
+			}
+		}
+	}
+
+	public long estimateSize() {
+		return estimate;
+	}
+
+	public int characteristics() {
+		return NONNULL;
+	}
+}
@@ -0,0 +1,21 @@
+package net.codingworks.sudoku;
+
+/**
+ * SolutionVisitor is the interface to receive solutions found by a search
+ * engine.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public interface SolutionVisitor {
+
+	/**
+	 * Visit a solution.
+	 * 
+	 * @param values
+	 *            the cell values of the solution in row order. The array is
+	 *            reused by the engine and is only valid during this call.
+	 * @return true to continue searching and false to stop
+	 */
+	public boolean visit(byte[] values);
+}
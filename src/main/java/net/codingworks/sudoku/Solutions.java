@@ -0,0 +1,140 @@
+package net.codingworks.sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Solutions enumerates every solution of a puzzle, or every completion of a
+ * partially filled grid, lazily: each solution is only searched for once the
+ * previous one has been consumed. It comes in two forms. A SolutionVisitor
+ * receives the values of the working board of a TrailSolver, an array reused
+ * for every solution, so nothing is copied. A stream of Boards is backed by a
+ * SolutionSpliterator which divides the search tree when split, so that a
+ * parallel stream searches it on several threads. A consumer stops early by
+ * returning false from the visitor or by limiting the stream; the search then
+ * stops since nothing else asks for the next solution. Closing the stream, or
+ * stopping this object, cancels the searches still running.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class Solutions implements Stoppable {
+
+	/**
+	 * An input Board object
+	 */
+	private Board input;
+
+	/**
+	 * The token telling the searches when to give up
+	 */
+	private CancellationToken token = new CancellationToken();
+
+	/**
+	 * Constructor
+	 * 
+	 * @param input
+	 *            an input Board object, which is not modified
+	 */
+	public Solutions(Board input) {
+		this.input = input;
+	}
+
+	/**
+	 * Visit the solutions in turn until the visitor returns false.
+	 * 
+	 * @param visitor
+	 *            the visitor, given the cell values of each solution in an
+	 *            array reused for every solution
+	 * @return the number of solutions visited
+	 * @throws Exception
+	 *             if the puzzle is invalid
+	 */
+	public long visit(SolutionVisitor visitor) throws Exception {
+		Board board = input.copy(false);
+		board.updateCells();
+		TrailSolver t = new TrailSolver();
+		t.setToken(token);
+		t.load(board);
+		long n = 0;
+		while (t.solve()) {
+			n++;
+			if (!visitor.visit(t.getBoard().getValues())) {
+				break;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Get a spliterator over the solutions.
+	 * 
+	 * @return a spliterator, searching for each solution when it is asked for
+	 * @throws Exception
+	 *             if the puzzle is invalid
+	 */
+	public Spliterator<Board> spliterator() throws Exception {
+		List<Board> roots = new ArrayList<Board>();
+		Board root = input.copy(false);
+		root.updateCells();
+		if (Propagator.propagate(root, null)) {
+			roots.add(root);
+		}
+		return new SolutionSpliterator(roots, token, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Get a sequential stream of the solutions. Call parallel() on it to
+	 * search on the common ForkJoinPool.
+	 * 
+	 * @return a stream, searching for each solution when it is asked for
+	 * @throws Exception
+	 *             if the puzzle is invalid
+	 */
+	public Stream<Board> stream() throws Exception {
+		return StreamSupport.stream(spliterator(), false).onClose(
+				new Runnable() {
+					public void run() {
+						stop();
+					}
+				});
+	}
+
+	/**
+	 * Set the token telling the searches when to give up.
+	 * 
+	 * @param token
+	 *            the token, shared with the caller
+	 */
+	public void setToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Get the token telling the searches when to give up.
+	 * 
+	 * @return the token
+	 */
+	public CancellationToken getToken() {
+		return token;
+	}
+
+	/**
+	 * Function called by a different thread to stop the searches.
+	 */
+	public void stop() {
+		token.cancel();
+	}
+
+	/**
+	 * Check if the searches are stopped.
+	 * 
+	 * @return true for stopped and false otherwise
+	 */
+	public boolean stopped() {
+		return token.isCancelled();
+	}
+}
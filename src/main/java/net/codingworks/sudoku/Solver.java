@@ -1,12 +1,16 @@
 package net.codingworks.sudoku;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Implementation of a backtracking algorithm which ranks empty cells by the
  * number of available values (possibilities). The empty cell with the least
  * number of possibilities gets selected in a random order. The selected cell is
- * filled with a value picked randomly from a list of possibilities.
+ * filled with a value picked randomly from a list of possibilities, and forced
+ * moves are then applied by the Propagator before the search goes on. The
+ * random choices are drawn from a SearchContext, so a Solver created with a
+ * seed makes the same choices, and visits the same nodes, every time.
  * 
  * @author Rongqin Sheng
  * @version 1.0
@@ -19,18 +23,54 @@ public class Solver implements Stoppable {
 	private Board input;
 
 	/**
-	 * Flag for stopping the solver
+	 * The token telling the solver when to give up, shared with the engine
 	 */
-	private boolean stopped = false;
+	private CancellationToken token = new CancellationToken();
 
 	/**
-	 * Constructor
+	 * Source of the random choices
+	 */
+	private SearchContext context;
+
+	/**
+	 * Collector of search statistics, or null
+	 */
+	private SearchStats stats;
+
+	/**
+	 * Constructor. The random choices are seeded at random.
 	 * 
 	 * @param input
 	 *            an input Board object
 	 */
 	public Solver(Board input) {
+		this(input, new SearchContext());
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param input
+	 *            an input Board object
+	 * @param seed
+	 *            the seed of the random choices
+	 */
+	public Solver(Board input, long seed) {
+		this(input, new SearchContext(seed));
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param input
+	 *            an input Board object
+	 * @param context
+	 *            the source of the random choices, used on the solving thread
+	 *            only
+	 */
+	Solver(Board input, SearchContext context) {
 		this.input = input;
+		this.context = context;
 	}
 
 	/**
@@ -40,8 +80,52 @@ public class Solver implements Stoppable {
 	 * @throws Exception
 	 */
 	public Board solve() throws Exception {
+		return solve(Engine.COPY);
+	}
+
+	/**
+	 * Solve the puzzle with a given search engine
+	 * 
+	 * @param engine
+	 *            the search engine
+	 * @return output Board object.
+	 * @throws Exception
+	 */
+	public Board solve(Engine engine) throws Exception {
 		input.updateCells();
-		return solve(input, input.getNumberOfEmptyCells());
+		if (stats != null) {
+			stats.start();
+		}
+		Board ret = null;
+		if (engine == Engine.TRAIL) {
+			TrailSolver t = new TrailSolver();
+			t.setStats(stats);
+			t.setToken(token);
+			t.load(input);
+			ret = t.solve() ? t.getBoard().copy(true) : null;
+		} else if (engine == Engine.DLX) {
+			DancingLinks d = new DancingLinks();
+			d.setStats(stats);
+			d.setToken(token);
+			d.load(input);
+			final Board[] result = new Board[1];
+			d.solve(new SolutionVisitor() {
+				public boolean visit(byte[] values) {
+					result[0] = new Board(values);
+					return false;
+				}
+			});
+			ret = result[0];
+		} else {
+			Board board = input.copy(false);
+			if (Propagator.propagate(board, null, stats)) {
+				ret = solve(board, board.getNumberOfEmptyCells(), 0);
+			}
+		}
+		if (stats != null) {
+			stats.finish();
+		}
+		return ret;
 	}
 
 	/**
@@ -51,42 +135,52 @@ public class Solver implements Stoppable {
 	 *            input Board object
 	 * @param numberOfEmptyCells
 	 *            number of empty cells
+	 * @param depth
+	 *            number of values chosen along the current path
 	 * @return output Board object
 	 */
-	private Board solve(Board input, int numberOfEmptyCells) {
-		if (stopped) {
+	private Board solve(Board input, int numberOfEmptyCells, int depth) {
+		if (token.poll()) {
 			return null;
 		}
 		Board ret = null;
 		if (numberOfEmptyCells == 0) {
 			return input;
 		}
-		int[] idx = selectCell(input);
-		if (idx == null) {
+		int k = selectCell(input, context);
+		if (k < 0) {
 			return input;
 		}
-		Cell cell = input.getCell(idx);
-		byte rank = cell.getRank();
+		short mask = input.getCandidates(k);
+		int rank = Integer.bitCount(mask);
 		byte[] availVal = new byte[rank];
 		int cnt = 0;
 		for (byte v = 1; v <= 9; v++) {
-			if (cell.getAvailable(v)) {
+			if ((mask & Board.bit(v)) != 0) {
 				availVal[cnt] = v;
 				cnt++;
 			}
 		}
 
 		if (rank > 1) {
-			shuffle(availVal);
+			shuffle(availVal, context);
 		}
 
-		for (byte i = 0; i < rank; i++) {
+		for (int i = 0; i < rank; i++) {
 			byte v = availVal[i];
 			Board board = input.copy(false);
-			if (updateBoard(board, idx, v)) {
-				Board result = solve(board, numberOfEmptyCells - 1);
+			if (stats != null) {
+				stats.copy();
+				stats.node(depth + 1);
+			}
+			if (updateBoard(board, k, v, null, stats)
+					&& Propagator.propagate(board, null, stats)) {
+				Board result = solve(board, board.getNumberOfEmptyCells(),
+						depth + 1);
 				if (result != null)
 					return result;
+			} else if (stats != null) {
+				stats.backtrack();
 			}
 		}
 		return ret;
@@ -96,7 +190,18 @@ public class Solver implements Stoppable {
 	 * Shuffle a byte array.
 	 */
 	public static void shuffle(byte[] a) {
-		Random random = new Random();
+		shuffle(a, ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Shuffle a byte array.
+	 * 
+	 * @param a
+	 *            the array
+	 * @param random
+	 *            the source of the permutation
+	 */
+	static void shuffle(byte[] a, Random random) {
 		for (int j = a.length - 1; j > 0; j--) {
 			int r = random.nextInt(j + 1);
 			byte b = a[j];
@@ -105,11 +210,49 @@ public class Solver implements Stoppable {
 		}
 	}
 
+	/**
+	 * Set the token telling the solver when to give up.
+	 * 
+	 * @param token
+	 *            the token, shared with the caller
+	 */
+	public void setToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Get the token telling the solver when to give up.
+	 * 
+	 * @return the token
+	 */
+	public CancellationToken getToken() {
+		return token;
+	}
+
 	/**
 	 * Function called by a different thread to stop the solver.
 	 */
-	public synchronized void stop() {
-		stopped = true;
+	public void stop() {
+		token.cancel();
+	}
+
+	/**
+	 * Set the collector of search statistics.
+	 * 
+	 * @param stats
+	 *            the collector, or null to collect nothing
+	 */
+	public void setStats(SearchStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Get the collector of search statistics.
+	 * 
+	 * @return the collector, or null if none was set
+	 */
+	public SearchStats getStats() {
+		return stats;
 	}
 
 	/**
@@ -118,7 +261,7 @@ public class Solver implements Stoppable {
 	 * @return true for stopped and false otherwise
 	 */
 	public boolean stopped() {
-		return stopped;
+		return token.isCancelled();
 	}
 
 	/**
@@ -129,55 +272,61 @@ public class Solver implements Stoppable {
 	 * @return array index of selected Cell
 	 */
 	public static int[] selectCell(Board board) {
-		byte rank = 10;
-		int[] ret = new int[2];
-		byte[] rankCount = new byte[10];
-		for (byte m = 0; m < 9; m++) {
-			for (byte n = 0; n < 9; n++) {
-				Cell c = board.getCell(m, n);
-				if (c.isEmpty()) {
-					rankCount[c.getRank()]++;
-				}
-			}
+		int k = selectCell(board, ThreadLocalRandom.current());
+		if (k < 0) {
+			return null;
 		}
+		return new int[] { k / Board.SIZE, k % Board.SIZE };
+	}
 
-		for (byte i = 1; i <= 9; i++) {
-			if (rankCount[i] > 0) {
-				rank = i;
-				break;
+	/**
+	 * Select the cell with the least number of possibilities. If the Board
+	 * has a RankIndex attached, the cell is taken from it in constant time.
+	 * 
+	 * @param board
+	 *            input Board object
+	 * @param random
+	 *            the source of random tie-breaking, or null to take the first
+	 *            cell
+	 * @return cell index in row order, or -1 if there are no empty cells
+	 */
+	static int selectCell(Board board, Random random) {
+		RankIndex index = board.getRankIndex();
+		if (index != null) {
+			return index.select(random);
+		}
+		int rank = 10;
+		int rankCount = 0;
+		for (int k = 0; k < Board.CELLS; k++) {
+			if (board.getValue(k) == 0) {
+				int r = board.getRank(k);
+				if (r > 0 && r < rank) {
+					rank = r;
+					rankCount = 1;
+				} else if (r == rank) {
+					rankCount++;
+				}
 			}
 		}
 
 		if (rank == 10)
-			return null;
+			return -1;
 
 		int randomCnt = 1;
-		if (rankCount[rank] > 1) {
-			randomCnt = new Random().nextInt(rankCount[rank]) + 1;
+		if (rankCount > 1 && random != null) {
+			randomCnt = random.nextInt(rankCount) + 1;
 		}
 
 		int cnt = 0;
-
-		for (byte m = 0; m < 9; m++) {
-			for (byte n = 0; n < 9; n++) {
-				Cell c = board.getCell(m, n);
-				if (c.isEmpty()) {
-					byte r = c.getRank();
-					if (r == rank) {
-						cnt++;
-						if (cnt == randomCnt) {
-							ret[0] = m;
-							ret[1] = n;
-							break;
-						}
-					}
+		for (int k = 0; k < Board.CELLS; k++) {
+			if (board.getValue(k) == 0 && board.getRank(k) == rank) {
+				cnt++;
+				if (cnt == randomCnt) {
+					return k;
 				}
 			}
-			if (cnt == randomCnt) {
-				break;
-			}
 		}
-		return ret;
+		return -1;
 	}
 
 	/**
@@ -194,60 +343,111 @@ public class Solver implements Stoppable {
 	 * @return true for success and false otherwise
 	 */
 	public static boolean updateBoard(Board board, int[] idx, byte val) {
-		int i = idx[0];
-		int j = idx[1];
+		return updateBoard(board, Board.SIZE * idx[0] + idx[1], val, null);
+	}
+
+	/**
+	 * Update the Board when an empty Cell is filled with a value, recording
+	 * every change on a Trail so that it can be undone.
+	 * 
+	 * @param board
+	 *            the Board to be updated
+	 * @param idx
+	 *            array index of the empty Cell to be filled with a value
+	 * @param val
+	 *            the value (1-9)
+	 * @param trail
+	 *            the Trail to record changes on
+	 * @return true for success and false otherwise. The changes made before a
+	 *         failure are recorded as well.
+	 */
+	public static boolean updateBoard(Board board, int[] idx, byte val,
+			Trail trail) {
+		return updateBoard(board, Board.SIZE * idx[0] + idx[1], val, trail);
+	}
+
+	/**
+	 * Update the Board when an empty Cell is filled with a value.
+	 * 
+	 * @param board
+	 *            the Board to be updated
+	 * @param k
+	 *            cell index in row order
+	 * @param val
+	 *            the value (1-9)
+	 * @param trail
+	 *            the Trail to record changes on, or null
+	 * @return true for success and false otherwise
+	 */
+	static boolean updateBoard(Board board, int k, byte val, Trail trail) {
+		return updateBoard(board, k, val, trail, null);
+	}
+
+	/**
+	 * Update the Board when an empty Cell is filled with a value, counting the
+	 * eliminations.
+	 * 
+	 * @param board
+	 *            the Board to be updated
+	 * @param k
+	 *            cell index in row order
+	 * @param val
+	 *            the value (1-9)
+	 * @param trail
+	 *            the Trail to record changes on, or null
+	 * @param stats
+	 *            the collector of search statistics, or null
+	 * @return true for success and false otherwise
+	 */
+	static boolean updateBoard(Board board, int k, byte val, Trail trail,
+			SearchStats stats) {
+		short bit = Board.bit(val);
 
 		// update cell
-		Cell cell = board.getCell(idx);
-		cell.setValue(val);
-		cell.setRank((byte) 0);
-		for (byte v = 0; v <= 9; v++) {
-			cell.setAvailable(v, false);
-		}
-		// update row
-		for (byte n = 0; n < 9; n++) {
-			if (n != j) {
-				Cell c = board.getCell(i, n);
-				if (c.getAvailable(val)) {
-					c.setAvailable(val, false);
-					c.setRank((byte) (c.getRank() - 1));
-					if (c.getRank() == 0) {
-						return false;
-					}
-				}
-			}
+		if (trail != null) {
+			trail.saveFilled(k, board.getCandidates(k));
 		}
+		board.setValue(k, val);
+		board.setCandidates(k, (short) 0);
 
-		// update column
-		for (byte m = 0; m < 9; m++) {
-			if (m != i) {
-				Cell c = board.getCell(m, j);
-				if (c.getAvailable(val)) {
-					c.setAvailable(val, false);
-					c.setRank((byte) (c.getRank() - 1));
-					if (c.getRank() == 0) {
-						return false;
-					}
-				}
+		// update the row, column and box
+		for (int p : Board.PEERS[k]) {
+			if (!eliminate(board, p, bit, trail, stats)) {
+				return false;
 			}
 		}
+		return true;
+	}
 
-		// update box
-		int qRow = i / 3;
-		int qCol = j / 3;
-
-		for (int m = 3 * qRow; m < 3 * qRow + 3; m++) {
-			for (int n = 3 * qCol; n < 3 * qCol + 3; n++) {
-				if (m != i && n != j) {
-					Cell c = board.getCell((byte) m, (byte) n);
-					if (c.getAvailable(val)) {
-						c.setAvailable(val, false);
-						c.setRank((byte) (c.getRank() - 1));
-						if (c.getRank() == 0) {
-							return false;
-						}
-					}
-				}
+	/**
+	 * Remove a value from the available values of a cell.
+	 * 
+	 * @param board
+	 *            the Board to be updated
+	 * @param k
+	 *            cell index in row order
+	 * @param bit
+	 *            candidate mask of the value
+	 * @param trail
+	 *            the Trail to record changes on, or null
+	 * @param stats
+	 *            the collector of search statistics, or null
+	 * @return false if an empty cell is left without available values
+	 */
+	private static boolean eliminate(Board board, int k, short bit,
+			Trail trail, SearchStats stats) {
+		short mask = board.getCandidates(k);
+		if ((mask & bit) != 0) {
+			if (stats != null) {
+				stats.eliminate();
+			}
+			if (trail != null) {
+				trail.saveCandidates(k, mask);
+			}
+			mask &= ~bit;
+			board.setCandidates(k, mask);
+			if (mask == 0) {
+				return false;
 			}
 		}
 		return true;
@@ -264,10 +464,27 @@ public class Solver implements Stoppable {
 	 * @throws Exception
 	 */
 	public static String getSolution(String inputStr) throws Exception {
+		return getSolution(inputStr, Engine.COPY);
+	}
+
+	/**
+	 * Get a solution of a Sudoku puzzle using a given search engine. If there
+	 * are multiple solutions, only one of them is returned.
+	 * 
+	 * @param inputStr
+	 *            a input string listing cell values in row order
+	 * @param engine
+	 *            the search engine
+	 * @return a solution in the form of a string listing cell values in row
+	 *         order. A null value is returned if there is no solution.
+	 * @throws Exception
+	 */
+	public static String getSolution(String inputStr, Engine engine)
+			throws Exception {
 		String ret = null;
 		Board board = new Board(inputStr);
 		Solver solver = new Solver(board);
-		Board result = solver.solve();
+		Board result = solver.solve(engine);
 		if (result != null) {
 			ret = result.toString();
 		}
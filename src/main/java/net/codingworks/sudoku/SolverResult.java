@@ -0,0 +1,148 @@
+package net.codingworks.sudoku;
+
+/**
+ * SolverResult is the outcome of a request to a SolverService: how the search
+ * ended, the solutions found, the report of an analysis and the effort spent.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class SolverResult {
+
+	/**
+	 * How a search ended
+	 */
+	public enum Status {
+
+		/**
+		 * At least one solution was found
+		 */
+		SOLVED,
+
+		/**
+		 * The puzzle has no solution
+		 */
+		NO_SOLUTION,
+
+		/**
+		 * The deadline of the request passed before the search ended
+		 */
+		TIMED_OUT,
+
+		/**
+		 * The request was cancelled
+		 */
+		CANCELLED
+	}
+
+	/**
+	 * How the search ended
+	 */
+	private Status status;
+
+	/**
+	 * The solutions found, at most 2
+	 */
+	private Board[] solutions;
+
+	/**
+	 * The report of an analysis, or null
+	 */
+	private String report;
+
+	/**
+	 * The effort spent by the search
+	 */
+	private SearchStats stats;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param status
+	 *            how the search ended
+	 * @param solutions
+	 *            the solutions found, at most 2
+	 * @param report
+	 *            the report of an analysis, or null
+	 * @param stats
+	 *            the effort spent by the search
+	 */
+	SolverResult(Status status, Board[] solutions, String report,
+			SearchStats stats) {
+		this.status = status;
+		this.solutions = solutions;
+		this.report = report;
+		this.stats = stats;
+	}
+
+	/**
+	 * Get how the search ended.
+	 * 
+	 * @return the status
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Get the first solution found.
+	 * 
+	 * @return the solution, or null if none was found
+	 */
+	public Board getSolution() {
+		return solutions.length > 0 ? solutions[0] : null;
+	}
+
+	/**
+	 * Get the number of solutions found. A solve finds at most 1 and an
+	 * analysis at most 2, so 2 means multiple solutions.
+	 * 
+	 * @return the number of solutions
+	 */
+	public int getSolutionCount() {
+		return solutions.length;
+	}
+
+	/**
+	 * Get a solution found.
+	 * 
+	 * @param i
+	 *            the index of the solution
+	 * @return the solution
+	 */
+	public Board getSolution(int i) {
+		return solutions[i];
+	}
+
+	/**
+	 * Get the report of an analysis, as given by {@link Analyzer#getReport()}.
+	 * 
+	 * @return the report, or null for a solve or an analysis which did not
+	 *         end
+	 */
+	public String getReport() {
+		return report;
+	}
+
+	/**
+	 * Get the effort spent by the search.
+	 * 
+	 * @return the search statistics
+	 */
+	public SearchStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * Get a one-line summary.
+	 * 
+	 * @return a string representation
+	 */
+	public String toString() {
+		StringBuilder sb = new StringBuilder(status.toString());
+		for (Board solution : solutions) {
+			sb.append(' ').append(solution);
+		}
+		return sb.append(" (").append(stats).append(')').toString();
+	}
+}
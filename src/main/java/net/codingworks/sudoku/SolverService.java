@@ -0,0 +1,486 @@
+package net.codingworks.sudoku;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * SolverService solves and analyzes puzzles asynchronously on a fixed pool of
+ * worker threads. Every request returns at once with a CompletableFuture of
+ * its SolverResult, so callers never block on a search. The number of
+ * requests accepted but not finished is bounded: once the workers are busy
+ * and the queue is full, further requests fail at once with a
+ * RejectedExecutionException, which lets a server shed load instead of
+ * piling up work. Each request carries its own deadline, counted from its
+ * submission so that time spent in the queue counts against it, and
+ * cancelling the future of a request stops its search. A cancelled search
+ * still holds its permit until it notices the cancellation, which
+ * {@link #whenIdle()} lets a caller wait for.
+ * <p>
+ * A service created by {@link #withVirtualThreads(int, Engine)} instead runs
+ * every request on its own virtual thread, so that tens of thousands of
+ * requests with deadlines can be in flight at once. Virtual threads are not
+ * preempted, so their searches yield at node boundaries every
+ * {@value CancellationToken#CHECK_INTERVAL} nodes, when they check their
+ * deadline. The library is built for Java 8, so virtual threads are looked up
+ * at run time; before Java 21 such a service falls back to one platform
+ * thread per processor.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class SolverService {
+
+	/**
+	 * Number of services created, used to name their threads
+	 */
+	private static final AtomicInteger SERVICES = new AtomicInteger();
+
+	/**
+	 * The worker threads
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * True if every request runs on its own virtual thread
+	 */
+	private boolean virtual;
+
+	/**
+	 * Permits for requests accepted but not finished
+	 */
+	private Semaphore permits;
+
+	/**
+	 * Maximum number of requests accepted but not finished
+	 */
+	private int limit;
+
+	/**
+	 * Futures to complete once no request is pending, guarded by itself
+	 */
+	private List<CompletableFuture<Void>> idle;
+
+	/**
+	 * The search engine
+	 */
+	private Engine engine;
+
+	/**
+	 * Constructor. Requests are searched by the TRAIL engine.
+	 * 
+	 * @param threads
+	 *            number of worker threads
+	 * @param capacity
+	 *            number of requests which may wait for a worker
+	 */
+	public SolverService(int threads, int capacity) {
+		this(threads, capacity, Engine.TRAIL);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param threads
+	 *            number of worker threads
+	 * @param capacity
+	 *            number of requests which may wait for a worker
+	 * @param engine
+	 *            the search engine
+	 */
+	public SolverService(int threads, int capacity, Engine engine) {
+		if (threads <= 0 || capacity < 0) {
+			throw new IllegalArgumentException(threads + " threads, capacity "
+					+ capacity);
+		}
+		this.limit = threads + capacity;
+		this.permits = new Semaphore(limit);
+		this.idle = new ArrayList<CompletableFuture<Void>>();
+		this.engine = engine;
+		this.executor = newPool(threads);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param executor
+	 *            the executor running the requests
+	 * @param limit
+	 *            maximum number of requests accepted but not finished
+	 * @param engine
+	 *            the search engine
+	 * @param virtual
+	 *            true if the executor runs every request on its own virtual
+	 *            thread
+	 */
+	private SolverService(ExecutorService executor, int limit, Engine engine,
+			boolean virtual) {
+		this.executor = executor;
+		this.limit = limit;
+		this.permits = new Semaphore(limit);
+		this.idle = new ArrayList<CompletableFuture<Void>>();
+		this.engine = engine;
+		this.virtual = virtual;
+	}
+
+	/**
+	 * Create a service running every request on its own virtual thread, with
+	 * the TRAIL engine.
+	 * 
+	 * @param capacity
+	 *            maximum number of requests accepted but not finished
+	 * @return the service
+	 * @see #withVirtualThreads(int, Engine)
+	 */
+	public static SolverService withVirtualThreads(int capacity) {
+		return withVirtualThreads(capacity, Engine.TRAIL);
+	}
+
+	/**
+	 * Create a service running every request on its own virtual thread. If
+	 * the JVM has no virtual threads, the requests run on one platform thread
+	 * per processor.
+	 * 
+	 * @param capacity
+	 *            maximum number of requests accepted but not finished
+	 * @param engine
+	 *            the search engine
+	 * @return the service
+	 */
+	public static SolverService withVirtualThreads(int capacity,
+			Engine engine) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity " + capacity);
+		}
+		ExecutorService executor = newVirtualThreadExecutor();
+		if (executor != null) {
+			return new SolverService(executor, capacity, engine, true);
+		}
+		int threads = Runtime.getRuntime().availableProcessors();
+		return new SolverService(newPool(threads), capacity, engine, false);
+	}
+
+	/**
+	 * Create a fixed pool of daemon platform threads.
+	 * 
+	 * @param threads
+	 *            number of threads
+	 * @return the pool
+	 */
+	private static ExecutorService newPool(int threads) {
+		final String prefix = "sudoku-solver-" + SERVICES.incrementAndGet()
+				+ "-";
+		return new ThreadPoolExecutor(threads, threads, 0,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					private AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, prefix
+								+ count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+	}
+
+	/**
+	 * Create an executor starting a virtual thread per task, through
+	 * reflection since the library is built for Java 8.
+	 * 
+	 * @return the executor, or null if the JVM has no virtual threads
+	 */
+	static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (Exception e) {
+			// before Java 21, or preview features disabled
+			return null;
+		}
+	}
+
+	/**
+	 * Check if every request runs on its own virtual thread.
+	 * 
+	 * @return true for virtual threads and false for a pool of platform
+	 *         threads
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * Solve a puzzle.
+	 * 
+	 * @param input
+	 *            an input Board object, which is copied before the call
+	 *            returns
+	 * @param timeout
+	 *            the time allowed from now, or 0 for no limit
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return the future result, with at most 1 solution. It fails with a
+	 *         RejectedExecutionException if too many requests are pending or
+	 *         the service is shut down.
+	 */
+	public CompletableFuture<SolverResult> solve(Board input, long timeout,
+			TimeUnit unit) {
+		return solve(input, timeout, unit, null);
+	}
+
+	/**
+	 * Solve a puzzle, following the search while it runs.
+	 * 
+	 * @param input
+	 *            an input Board object, which is copied before the call
+	 *            returns
+	 * @param timeout
+	 *            the time allowed from now, or 0 for no limit
+	 * @param unit
+	 *            the unit of the timeout
+	 * @param listener
+	 *            the listener of the statistics of the search, called on the
+	 *            worker thread, or null
+	 * @return the future result, as for {@link #solve(Board, long, TimeUnit)}
+	 */
+	public CompletableFuture<SolverResult> solve(Board input, long timeout,
+			TimeUnit unit, SearchListener listener) {
+		return submit(input, false, timeout, unit, listener);
+	}
+
+	/**
+	 * Analyze a puzzle: find whether it has no, a unique or multiple
+	 * solutions.
+	 * 
+	 * @param input
+	 *            an input Board object, which is copied before the call
+	 *            returns
+	 * @param timeout
+	 *            the time allowed from now, or 0 for no limit
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return the future result, with at most 2 solutions and the report. It
+	 *         fails with a RejectedExecutionException if too many requests
+	 *         are pending or the service is shut down.
+	 */
+	public CompletableFuture<SolverResult> analyze(Board input, long timeout,
+			TimeUnit unit) {
+		return analyze(input, timeout, unit, null);
+	}
+
+	/**
+	 * Analyze a puzzle, following the search while it runs.
+	 * 
+	 * @param input
+	 *            an input Board object, which is copied before the call
+	 *            returns
+	 * @param timeout
+	 *            the time allowed from now, or 0 for no limit
+	 * @param unit
+	 *            the unit of the timeout
+	 * @param listener
+	 *            the listener of the statistics of the search, called on the
+	 *            worker threads, or null
+	 * @return the future result, as for
+	 *         {@link #analyze(Board, long, TimeUnit)}
+	 */
+	public CompletableFuture<SolverResult> analyze(Board input, long timeout,
+			TimeUnit unit, SearchListener listener) {
+		return submit(input, true, timeout, unit, listener);
+	}
+
+	/**
+	 * Accept a request if a permit is available and queue it.
+	 * 
+	 * @param input
+	 *            an input Board object
+	 * @param analyze
+	 *            true to analyze and false to solve
+	 * @param timeout
+	 *            the time allowed from now, or 0 for no limit
+	 * @param unit
+	 *            the unit of the timeout
+	 * @param listener
+	 *            the listener of the statistics of the search, or null
+	 * @return the future result
+	 */
+	private CompletableFuture<SolverResult> submit(Board input,
+			final boolean analyze, long timeout, TimeUnit unit,
+			final SearchListener listener) {
+		final CompletableFuture<SolverResult> future;
+		future = new CompletableFuture<SolverResult>();
+		if (!permits.tryAcquire()) {
+			future.completeExceptionally(new RejectedExecutionException(limit
+					+ " requests pending"));
+			return future;
+		}
+		final Board board = input.copy(false);
+		final CancellationToken token = timeout > 0 ? new CancellationToken(
+				timeout, unit) : new CancellationToken();
+		token.setYielding(virtual);
+		future.whenComplete(new BiConsumer<SolverResult, Throwable>() {
+			public void accept(SolverResult result, Throwable failure) {
+				if (failure instanceof CancellationException) {
+					token.cancel();
+				}
+			}
+		});
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						if (!future.isDone()) {
+							future.complete(execute(board, analyze, token,
+									listener));
+						}
+					} catch (Throwable e) {
+						future.completeExceptionally(e);
+					} finally {
+						release();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			release();
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Give back the permit of a finished request, and complete the futures
+	 * of {@link #whenIdle()} if it was the last one pending.
+	 */
+	private void release() {
+		List<CompletableFuture<Void>> ready = null;
+		synchronized (idle) {
+			permits.release();
+			if (getPending() == 0 && !idle.isEmpty()) {
+				ready = new ArrayList<CompletableFuture<Void>>(idle);
+				idle.clear();
+			}
+		}
+		if (ready != null) {
+			for (CompletableFuture<Void> future : ready) {
+				future.complete(null);
+			}
+		}
+	}
+
+	/**
+	 * Run a request on the current thread.
+	 * 
+	 * @param board
+	 *            the puzzle
+	 * @param analyze
+	 *            true to analyze and false to solve
+	 * @param token
+	 *            the token of the request
+	 * @param listener
+	 *            the listener of the statistics of the search, or null
+	 * @return the result
+	 * @throws Exception
+	 */
+	private SolverResult execute(Board board, boolean analyze,
+			CancellationToken token, SearchListener listener)
+			throws Exception {
+		SearchStats stats = new SearchStats();
+		stats.setListener(listener);
+		Board[] solutions = new Board[0];
+		String report = null;
+		if (!token.check()) {
+			if (analyze) {
+				Analyzer analyzer = new Analyzer(board);
+				analyzer.setStats(stats);
+				analyzer.setToken(token);
+				report = analyzer.getReport(engine);
+				solutions = analyzer.getSolutions();
+			} else {
+				Solver solver = new Solver(board);
+				solver.setStats(stats);
+				solver.setToken(token);
+				Board solution = solver.solve(engine);
+				if (solution != null) {
+					solutions = new Board[] { solution };
+				}
+			}
+		}
+		SolverResult.Status status;
+		if (token.isCancelled()) {
+			boolean expired = token.getRemaining(TimeUnit.NANOSECONDS) == 0;
+			status = expired ? SolverResult.Status.TIMED_OUT
+					: SolverResult.Status.CANCELLED;
+			report = null;
+		} else if (solutions.length == 0) {
+			status = SolverResult.Status.NO_SOLUTION;
+		} else {
+			status = SolverResult.Status.SOLVED;
+		}
+		return new SolverResult(status, solutions, report, stats);
+	}
+
+	/**
+	 * Get the number of requests accepted but not finished.
+	 * 
+	 * @return the number of pending requests
+	 */
+	public int getPending() {
+		return limit - permits.availablePermits();
+	}
+
+	/**
+	 * Get a future completed once no request is pending. The future of a
+	 * cancelled request is done at once, but its search runs until it next
+	 * checks its token and only then gives back its permit; waiting for this
+	 * future avoids a new request being rejected meanwhile.
+	 * 
+	 * @return the future, already completed if no request is pending
+	 */
+	public CompletableFuture<Void> whenIdle() {
+		CompletableFuture<Void> future = new CompletableFuture<Void>();
+		synchronized (idle) {
+			if (getPending() > 0) {
+				idle.add(future);
+				return future;
+			}
+		}
+		future.complete(null);
+		return future;
+	}
+
+	/**
+	 * Stop accepting requests. Requests already accepted are still run.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Wait for the requests accepted to finish after a shutdown.
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return true if all requests finished and false if the timeout elapsed
+	 * @throws InterruptedException
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return executor.awaitTermination(timeout, unit);
+	}
+}
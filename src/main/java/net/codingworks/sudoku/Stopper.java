@@ -8,7 +8,10 @@ import java.util.TimerTask;
  * @author Rongqin Sheng
  * @version 1.0
  * @see java.util.Timer
+ * @deprecated A timer thread stopping many tasks becomes a bottleneck. Give
+ *             the task a {@link CancellationToken} with a deadline instead.
  */
+@Deprecated
 public class Stopper extends TimerTask {
 
 	/**
@@ -0,0 +1,88 @@
+package net.codingworks.sudoku;
+
+/**
+ * Symmetry lists the patterns of givens the Generator can produce. Cells that
+ * are mapped onto each other by a symmetry are removed together.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public enum Symmetry {
+
+	/**
+	 * Givens placed without a pattern
+	 */
+	NONE {
+		int map(int k) {
+			return k;
+		}
+	},
+
+	/**
+	 * Givens unchanged by a half turn about the center cell
+	 */
+	ROTATIONAL {
+		int map(int k) {
+			return Board.CELLS - 1 - k;
+		}
+	},
+
+	/**
+	 * Givens unchanged by a quarter turn about the center cell
+	 */
+	QUARTER {
+		int map(int k) {
+			return Board.SIZE * (k % Board.SIZE) + Board.SIZE - 1 - k
+					/ Board.SIZE;
+		}
+	},
+
+	/**
+	 * Givens unchanged by a reflection about the vertical axis
+	 */
+	MIRROR {
+		int map(int k) {
+			return Board.SIZE * (k / Board.SIZE) + Board.SIZE - 1 - k
+					% Board.SIZE;
+		}
+	},
+
+	/**
+	 * Givens unchanged by a reflection about the main diagonal
+	 */
+	DIAGONAL {
+		int map(int k) {
+			return Board.SIZE * (k % Board.SIZE) + k / Board.SIZE;
+		}
+	};
+
+	/**
+	 * Map a cell to its image under the symmetry.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @return index of the image cell
+	 */
+	abstract int map(int k);
+
+	/**
+	 * Get the cells mapped onto each other by the symmetry, starting from a
+	 * given cell.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @return indices of the cells in the orbit of k, k first
+	 */
+	int[] orbit(int k) {
+		int[] cells = new int[4];
+		int n = 0;
+		int p = k;
+		do {
+			cells[n++] = p;
+			p = map(p);
+		} while (p != k);
+		int[] ret = new int[n];
+		System.arraycopy(cells, 0, ret, 0, n);
+		return ret;
+	}
+}
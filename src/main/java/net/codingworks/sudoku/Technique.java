@@ -0,0 +1,105 @@
+package net.codingworks.sudoku;
+
+/**
+ * Technique lists the logical solving techniques known to the Grader, from
+ * the easiest to the hardest. Each technique has a difficulty, in tenths of
+ * the ratings commonly given to it by human solvers.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public enum Technique {
+
+	/**
+	 * A value with a single place left in a row, column or box
+	 */
+	HIDDEN_SINGLE(12),
+
+	/**
+	 * An empty cell with a single available value
+	 */
+	NAKED_SINGLE(23),
+
+	/**
+	 * The places of a value in a box all lie on one row or column, so the
+	 * value is removed from the rest of that line
+	 */
+	POINTING(26),
+
+	/**
+	 * The places of a value in a row or column all lie in one box, so the
+	 * value is removed from the rest of that box
+	 */
+	BOX_LINE(28),
+
+	/**
+	 * Two cells of a unit with the same two available values, which are
+	 * removed from the other cells of the unit
+	 */
+	NAKED_PAIR(30),
+
+	/**
+	 * A value with two places in each of two rows (columns) sharing the same
+	 * two columns (rows), so the value is removed from the rest of those
+	 * columns (rows)
+	 */
+	X_WING(32),
+
+	/**
+	 * Two values with the same two places left in a unit, so the other
+	 * values are removed from those two cells
+	 */
+	HIDDEN_PAIR(34),
+
+	/**
+	 * Three cells of a unit with three available values between them
+	 */
+	NAKED_TRIPLE(36),
+
+	/**
+	 * The X-wing over three rows and three columns
+	 */
+	SWORDFISH(38),
+
+	/**
+	 * Three values with three places left in a unit between them
+	 */
+	HIDDEN_TRIPLE(40),
+
+	/**
+	 * A cell with values xy seeing cells with values xz and yz, so z is
+	 * removed from the cells seeing both of them
+	 */
+	XY_WING(42),
+
+	/**
+	 * Chains of conjugate places of a value (the only two places in a unit),
+	 * colored alternately. A color is false if two of its cells see each
+	 * other, and a cell seeing both colors cannot hold the value.
+	 */
+	CHAIN(45);
+
+	/**
+	 * The difficulty of the technique
+	 */
+	private final int difficulty;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param difficulty
+	 *            the difficulty of the technique
+	 */
+	private Technique(int difficulty) {
+		this.difficulty = difficulty;
+	}
+
+	/**
+	 * Get the difficulty of the technique.
+	 * 
+	 * @return the difficulty in tenths of a rating
+	 */
+	public int getDifficulty() {
+		return difficulty;
+	}
+}
@@ -0,0 +1,131 @@
+package net.codingworks.sudoku;
+
+/**
+ * Trail is a preallocated undo stack for changes made to a Board during a
+ * search. Each entry records a cell index and the candidate mask the cell had
+ * before it was changed, plus a flag for cells that were filled. Undoing the
+ * entries down to a mark restores the Board as it was when the mark was taken.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class Trail {
+
+	/**
+	 * Default capacity. Along one search path every cell is filled at most
+	 * once and every candidate is removed at most once.
+	 */
+	public static final int CAPACITY = Board.CELLS * (Board.SIZE + 1);
+
+	/**
+	 * Flag for entries of filled cells
+	 */
+	private static final int FILLED = 0x8000;
+
+	/**
+	 * Trail entries. Bits 16 and up hold the cell index, bit 15 the filled
+	 * flag and the low bits the saved candidate mask.
+	 */
+	private int[] entries;
+
+	/**
+	 * Number of entries
+	 */
+	private int size = 0;
+
+	/**
+	 * Constructor
+	 */
+	public Trail() {
+		this(CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity
+	 *            maximum number of entries
+	 */
+	public Trail(int capacity) {
+		entries = new int[capacity];
+	}
+
+	/**
+	 * Get a mark for the current position.
+	 * 
+	 * @return the number of entries
+	 */
+	public int mark() {
+		return size;
+	}
+
+	/**
+	 * Record the candidate mask of a cell before it is changed.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param mask
+	 *            the candidate mask before the change
+	 */
+	void saveCandidates(int k, short mask) {
+		entries[size++] = (k << 16) | mask;
+	}
+
+	/**
+	 * Record the candidate mask of an empty cell before it is filled.
+	 * 
+	 * @param k
+	 *            cell index in row order
+	 * @param mask
+	 *            the candidate mask before the cell is filled
+	 */
+	void saveFilled(int k, short mask) {
+		entries[size++] = (k << 16) | FILLED | mask;
+	}
+
+	/**
+	 * Undo changes to a Board down to a mark.
+	 * 
+	 * @param board
+	 *            the Board the changes were made to
+	 * @param mark
+	 *            a mark obtained from {@link #mark()}
+	 */
+	public void undo(Board board, int mark) {
+		while (size > mark) {
+			int e = entries[--size];
+			int k = e >>> 16;
+			if ((e & FILLED) != 0) {
+				board.setValue(k, (byte) 0);
+			}
+			board.setCandidates(k, (short) (e & Board.ALL));
+		}
+	}
+
+	/**
+	 * Undo changes down to a mark on another Board, keeping the entries. The
+	 * other Board must be a copy of the Board the changes were made to.
+	 * 
+	 * @param board
+	 *            the copy to be restored
+	 * @param mark
+	 *            a mark obtained from {@link #mark()}
+	 */
+	void restore(Board board, int mark) {
+		for (int i = size; i > mark;) {
+			int e = entries[--i];
+			int k = e >>> 16;
+			if ((e & FILLED) != 0) {
+				board.setValue(k, (byte) 0);
+			}
+			board.setCandidates(k, (short) (e & Board.ALL));
+		}
+	}
+
+	/**
+	 * Discard all entries without undoing them.
+	 */
+	public void clear() {
+		size = 0;
+	}
+}
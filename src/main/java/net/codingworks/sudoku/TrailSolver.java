@@ -0,0 +1,256 @@
+package net.codingworks.sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * TrailSolver searches for solutions on a single mutable Board. Filling a cell
+ * records the changes on a preallocated Trail and backtracking undoes them, so
+ * once a TrailSolver has been created the search allocates nothing. The search
+ * keeps its own stack of choice points, which lets it resume after a solution
+ * to look for the next one. Forced moves are applied by the Propagator after
+ * every choice, and cells are selected in constant time from a
+ * RankIndex attached to the working Board. A TrailSolver can be reused for
+ * many puzzles.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class TrailSolver implements Stoppable {
+
+	/**
+	 * The working Board
+	 */
+	private Board board = new Board("");
+
+	/**
+	 * Empty cells of the working Board by rank
+	 */
+	private RankIndex rankIndex = new RankIndex();
+
+	/**
+	 * Source of random tie-breaking, or null
+	 */
+	private Random random;
+
+	/**
+	 * The undo trail
+	 */
+	private Trail trail = new Trail();
+
+	/**
+	 * Cell filled at each depth
+	 */
+	private int[] cells = new int[Board.CELLS];
+
+	/**
+	 * Values not yet tried at each depth
+	 */
+	private short[] remaining = new short[Board.CELLS];
+
+	/**
+	 * Trail mark taken before the cell at each depth was filled
+	 */
+	private int[] marks = new int[Board.CELLS];
+
+	/**
+	 * Number of choice points on the stack
+	 */
+	private int depth = 0;
+
+	/**
+	 * True after a solution has been found, so that the next search resumes
+	 * from it
+	 */
+	private boolean found = false;
+
+	/**
+	 * True if the loaded puzzle was found to have no solution by propagation
+	 */
+	private boolean contradiction = false;
+
+	/**
+	 * Collector of search statistics, or null
+	 */
+	private SearchStats stats;
+
+	/**
+	 * The token telling the solver when to give up
+	 */
+	private CancellationToken token = new CancellationToken();
+
+	/**
+	 * Constructor. Ties between cells of the least rank are broken by cell
+	 * order.
+	 */
+	public TrailSolver() {
+		this(null);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param random
+	 *            source of random tie-breaking between cells of the least
+	 *            rank, or null to break ties by cell order
+	 */
+	public TrailSolver(Random random) {
+		this.random = random;
+		board.setRankIndex(rankIndex);
+	}
+
+	/**
+	 * Load a puzzle and apply forced moves to it. The cells of the input
+	 * Board must have been updated.
+	 * 
+	 * @param input
+	 *            an input Board object, which is not modified
+	 * @see Board#updateCells()
+	 */
+	public void load(Board input) {
+		board.copyFrom(input);
+		trail.clear();
+		depth = 0;
+		found = false;
+		contradiction = !Propagator.propagate(board, trail, stats);
+	}
+
+	/**
+	 * Set the collector of search statistics.
+	 * 
+	 * @param stats
+	 *            the collector, or null to collect nothing
+	 */
+	public void setStats(SearchStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Get the working Board. After a successful search it holds a solution.
+	 * 
+	 * @return the working Board
+	 */
+	public Board getBoard() {
+		return board;
+	}
+
+	/**
+	 * Search for the next solution. The first call finds the first solution;
+	 * each further call resumes the search after the previous one.
+	 * 
+	 * @return true if a solution was found, false if there are no more
+	 *         solutions or the solver was stopped
+	 */
+	public boolean solve() {
+		if (contradiction) {
+			return false;
+		}
+		boolean descend = !found;
+		while (true) {
+			if (token.poll()) {
+				return false;
+			}
+			if (descend) {
+				int k = rankIndex.select(random);
+				if (k < 0) {
+					found = true;
+					return true;
+				}
+				cells[depth] = k;
+				remaining[depth] = board.getCandidates(k);
+				marks[depth] = trail.mark();
+				depth++;
+			}
+			if (depth == 0) {
+				found = false;
+				return false;
+			}
+			int d = depth - 1;
+			trail.undo(board, marks[d]);
+			int rem = remaining[d];
+			if (rem == 0) {
+				depth--;
+				descend = false;
+				continue;
+			}
+			int bit = rem & -rem;
+			remaining[d] = (short) (rem & ~bit);
+			byte v = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+			descend = Solver.updateBoard(board, cells[d], v, trail, stats)
+					&& Propagator.propagate(board, trail, stats);
+			if (stats != null) {
+				stats.node(depth);
+				if (!descend) {
+					stats.backtrack();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Give away the values not yet tried at the shallowest choice point which
+	 * has any, so that their subtrees can be searched elsewhere. The search
+	 * goes on here without them.
+	 * 
+	 * @return the roots of the subtrees given away, each with its value filled
+	 *         and forced moves applied, leaving out those found to have no
+	 *         solution
+	 */
+	List<Board> split() {
+		List<Board> ret = new ArrayList<Board>();
+		for (int d = 0; d < depth; d++) {
+			int rem = remaining[d];
+			if (rem != 0) {
+				remaining[d] = 0;
+				Board base = board.copy(false);
+				trail.restore(base, marks[d]);
+				for (byte v = 1; v <= Board.SIZE; v++) {
+					if ((rem & Board.bit(v)) != 0) {
+						Board b = Analyzer.branch(base, cells[d], v, d, stats);
+						if (b != null) {
+							ret.add(b);
+						}
+					}
+				}
+				break;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Set the token telling the solver when to give up.
+	 * 
+	 * @param token
+	 *            the token, shared with the caller
+	 */
+	public void setToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Get the token telling the solver when to give up.
+	 * 
+	 * @return the token
+	 */
+	public CancellationToken getToken() {
+		return token;
+	}
+
+	/**
+	 * Function called by a different thread to stop the solver.
+	 */
+	public void stop() {
+		token.cancel();
+	}
+
+	/**
+	 * Check if the solver is stopped.
+	 * 
+	 * @return true for stopped and false otherwise
+	 */
+	public boolean stopped() {
+		return token.isCancelled();
+	}
+}
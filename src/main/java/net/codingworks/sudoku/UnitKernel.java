@@ -0,0 +1,31 @@
+package net.codingworks.sudoku;
+
+/**
+ * UnitKernel finds the first unit with duplicates of each grid of a
+ * GridValidator batch. The scalar kernel works on any JVM; the vector kernel,
+ * built from src/main/java17, uses the incubating Vector API and is chosen by
+ * {@link GridValidator#newVectorKernel()} when the JVM provides it.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see GridValidator
+ */
+interface UnitKernel {
+
+	/**
+	 * Find the first unit of each grid whose cells do not hold every value.
+	 * 
+	 * @param bits
+	 *            cell masks, with the bit of the value of cell k of grid g at
+	 *            k * capacity + g, or 0 for an invalid value
+	 * @param capacity
+	 *            maximum number of grids of the batch
+	 * @param n
+	 *            number of grids of the batch
+	 * @param first
+	 *            an array receiving the first unit with duplicates of each
+	 *            grid, rows, then columns, then boxes, or Board.UNITS if there
+	 *            is none
+	 */
+	public void firstUnits(short[] bits, int capacity, int n, short[] first);
+}
@@ -0,0 +1,79 @@
+package net.codingworks.sudoku;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorUnitKernel checks the units of as many grids at once as a vector of
+ * the preferred width holds shorts, 16 with AVX2. The nine cell masks of a
+ * unit are ORed in registers and compared with all values, and the units are
+ * visited from the last so that a blend keeps the first one with duplicates,
+ * with no masks stored in between. It needs the jdk.incubator.vector module
+ * and is loaded only through {@link GridValidator#newVectorKernel()}.
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ * @see UnitKernel
+ */
+class VectorUnitKernel implements UnitKernel {
+
+	/**
+	 * The vector shape used
+	 */
+	private static final VectorSpecies<Short> SPECIES;
+
+	static {
+		SPECIES = ShortVector.SPECIES_PREFERRED;
+	}
+
+	public void firstUnits(short[] bits, int capacity, int n, short[] first) {
+		int bound = SPECIES.loopBound(n);
+		int g = 0;
+		for (; g < bound; g += SPECIES.length()) {
+			ShortVector result = ShortVector.broadcast(SPECIES,
+					(short) Board.UNITS);
+			for (int u = Board.UNITS - 1; u >= 0; u--) {
+				int[] cells = Board.UNIT_CELLS[u];
+				ShortVector mask = ShortVector.fromArray(SPECIES, bits,
+						cells[0] * capacity + g);
+				for (int i = 1; i < Board.SIZE; i++) {
+					mask = mask.or(ShortVector.fromArray(SPECIES, bits,
+							cells[i] * capacity + g));
+				}
+				result = result.blend((short) u,
+						mask.compare(VectorOperators.NE, Board.ALL));
+			}
+			result.intoArray(first, g);
+		}
+		// the grids left over
+		for (; g < n; g++) {
+			int u = 0;
+			while (u < Board.UNITS && mask(bits, capacity, u, g) == Board.ALL) {
+				u++;
+			}
+			first[g] = (short) u;
+		}
+	}
+
+	/**
+	 * Compute the mask of the values of a unit of a grid.
+	 * 
+	 * @param bits
+	 *            cell masks of the batch
+	 * @param capacity
+	 *            maximum number of grids of the batch
+	 * @param u
+	 *            the unit
+	 * @param g
+	 *            the grid
+	 * @return the mask
+	 */
+	private static int mask(short[] bits, int capacity, int u, int g) {
+		int mask = 0;
+		for (int k : Board.UNIT_CELLS[u]) {
+			mask |= bits[k * capacity + g];
+		}
+		return mask;
+	}
+}
@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.concurrent.ForkJoinPool;
+
 import org.junit.Test;
 
 /**
@@ -76,4 +78,105 @@ public class AnalyzerTest {
 			fail(e.getMessage());
 		}
 	}
+
+	@Test
+	public void testEngines() {
+		try {
+			String unique = "009003060"
+			              + "000040100"
+			              + "500100000"
+			              + "090000020"
+			              + "800000400"
+			              + "027006009"
+			              + "000000000"
+			              + "003002070"
+			              + "000850600";
+			String multiple = "000006000"
+			                + "007089100"
+			                + "000000056"
+			                + "010700000"
+			                + "000000300"
+			                + "078460020"
+			                + "600005000"
+			                + "002000000"
+			                + "804301070";
+			String expected = new Analyzer(new Board(unique)).getReport();
+			for (Engine engine : Engine.values()) {
+				assertEquals(expected,
+						new Analyzer(new Board(unique)).getReport(engine));
+				assertTrue(new Analyzer(new Board(multiple)).getReport(engine)
+						.startsWith("Multiple solutions"));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCountSolutions() {
+		try {
+			// an empty board has billions of solutions
+			for (Engine engine : Engine.values()) {
+				Analyzer analyzer = new Analyzer(new Board(""));
+				SearchStats stats = new SearchStats();
+				analyzer.setStats(stats);
+				assertEquals(100, analyzer.countSolutions(100, engine));
+				assertTrue(stats.getNodes() > 0);
+				assertTrue(stats.getMaxDepth() > 0);
+				assertTrue(stats.getMaxDepth() <= 81);
+			}
+
+			String input = "009003060"
+			             + "000040100"
+			             + "500100000"
+			             + "090000020"
+			             + "800000400"
+			             + "027006009"
+			             + "000000000"
+			             + "003002070"
+			             + "000850600";
+			Analyzer analyzer = new Analyzer(new Board(input));
+			assertEquals(1, analyzer.countSolutions(10));
+			assertEquals(0, analyzer.countSolutions(0));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			String unique = "009003060"
+			              + "000040100"
+			              + "500100000"
+			              + "090000020"
+			              + "800000400"
+			              + "027006009"
+			              + "000000000"
+			              + "003002070"
+			              + "000850600";
+			String noSolution = "840009002"
+			                  + "500000070"
+			                  + "007000800"
+			                  + "900030005"
+			                  + "000010730"
+			                  + "260005000"
+			                  + "000860000"
+			                  + "000500040"
+			                  + "008200509";
+			assertEquals(new Analyzer(new Board(unique)).getReport(),
+					new Analyzer(new Board(unique)).getReport(pool));
+			assertEquals("No solution",
+					new Analyzer(new Board(noSolution)).getReport(pool));
+			assertTrue(new Analyzer(new Board("")).getReport(pool)
+					.startsWith("Multiple solutions"));
+			Analyzer analyzer = new Analyzer(new Board(""));
+			assertEquals(1000, analyzer.countSolutions(1000, pool));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		} finally {
+			pool.shutdown();
+		}
+	}
 }
@@ -0,0 +1,127 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for BatchSolver
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class BatchSolverTest {
+
+	private static final String EASY = "003020600900305001001806400"
+			+ "008102900700000008006708200002609500800203009005010300";
+
+	private static final String HARD = "800000000003600000070090200"
+			+ "050007000000045700000100030001000068008500010090000400";
+
+	private static final String MULTIPLE = "000006000007089100000000056"
+			+ "010700000000000300078460020600005000002000000804301070";
+
+	private static final String UNSOLVABLE = "840009002500000070007000800"
+			+ "900030005000010730260005000000860000000500040008200509";
+
+	/**
+	 * Check that a solution is a valid grid keeping the givens of a puzzle.
+	 */
+	private static void assertSolves(String input, Board solution) {
+		assertNotNull(solution);
+		byte[] values = solution.getValues();
+		assertEquals(GridValidator.VALID, GridValidator.check(values));
+		for (int k = 0; k < Board.CELLS; k++) {
+			char ch = input.charAt(k);
+			if (ch >= '1' && ch <= '9') {
+				assertEquals(ch - '0', values[k]);
+			}
+		}
+	}
+
+	@Test
+	public void testSolve() {
+		try {
+			BatchSolver solver = new BatchSolver(8);
+			assertEquals(0, solver.add(new Board(EASY)));
+			assertEquals(1, solver.add(new Board(HARD)));
+			assertEquals(2, solver.add(new Board(UNSOLVABLE)));
+			assertEquals(3, solver.add(new Board(MULTIPLE)));
+			assertEquals(4, solver.add(new Board(EASY)));
+			assertEquals(4, solver.solve());
+			assertEquals(new Solver(new Board(EASY)).solve().toString(),
+					solver.getSolution(0).toString());
+			assertEquals(new Solver(new Board(HARD)).solve().toString(),
+					solver.getSolution(1).toString());
+			assertNull(solver.getSolution(2));
+			assertSolves(MULTIPLE, solver.getSolution(3));
+			assertEquals(solver.getSolution(0).toString(), solver
+					.getSolution(4).toString());
+			assertTrue(solver.getFallbacks() >= 2);
+			assertTrue(solver.getSummary().startsWith("5 puzzles"));
+
+			// singles are enough for the easy puzzle
+			solver.clear();
+			solver.add(new Board(EASY));
+			assertEquals(1, solver.solve());
+			assertEquals(0, solver.getFallbacks());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testRandomPuzzles() {
+		try {
+			String grid = new Solver(new Board(HARD)).solve().toString();
+			Random random = new Random(24);
+			// every round digs 50 puzzles out of one grid, from easy ones
+			// settled by forced moves to ones left to the fallback search
+			BatchSolver solver = new BatchSolver(50);
+			String[] inputs = new String[50];
+			for (int round = 0; round < 5; round++) {
+				solver.clear();
+				for (int p = 0; p < inputs.length; p++) {
+					char[] chars = grid.toCharArray();
+					int holes = 30 + random.nextInt(45);
+					for (int i = 0; i < holes; i++) {
+						chars[random.nextInt(Board.CELLS)] = '0';
+					}
+					inputs[p] = new String(chars);
+					solver.add(new Board(inputs[p]));
+				}
+				assertEquals(inputs.length, solver.solve());
+				for (int p = 0; p < inputs.length; p++) {
+					assertSolves(inputs[p], solver.getSolution(p));
+				}
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testInvalid() {
+		BatchSolver solver = new BatchSolver(1);
+		try {
+			solver.add(new Board("11"));
+			fail("A puzzle with duplicates was accepted");
+		} catch (Exception e) {
+			assertEquals("Duplicates at row 1", e.getMessage());
+		}
+		try {
+			solver.add(new Board(EASY));
+			solver.add(new Board(EASY));
+			fail("A full batch accepted a puzzle");
+		} catch (IllegalStateException e) {
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
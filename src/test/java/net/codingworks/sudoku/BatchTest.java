@@ -0,0 +1,127 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for Batch
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class BatchTest {
+
+	private static final String UNIQUE = "100030080067580000000100200"
+			+ "030060590650070000708000002000094000000050000900000410";
+
+	private static final String SOLUTION = "145236789267589134389147256"
+			+ "431862597652973841798415362513794628824651973976328415";
+
+	private static final String NO_SOLUTION = "100030086067580000000100200"
+			+ "030060590650070000708000002000094000000050000900000410";
+
+	private static final String INVALID = "108030080067580000000100200"
+			+ "030060590650070000708000002000094000000050000900000410";
+
+	@Test
+	public void testSolve() {
+		try {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < 200; i++) {
+				sb.append(i % 3 == 0 ? UNIQUE : i % 3 == 1 ? NO_SOLUTION
+						: INVALID);
+				sb.append(i % 10 == 0 ? "\n\n" : "\n");
+			}
+			StringWriter out = new StringWriter();
+			Batch batch = new Batch(false, Engine.TRAIL, 4);
+			assertEquals(200, batch.run(new BufferedReader(new StringReader(
+					sb.toString())), out));
+			String[] lines = out.toString().split("\n");
+			assertEquals(200, lines.length);
+			for (int i = 0; i < 200; i++) {
+				assertEquals(i % 3 == 0 ? SOLUTION
+						: i % 3 == 1 ? "No solution" : "Duplicates at row 1",
+						lines[i]);
+			}
+			assertTrue(batch.getSummary().startsWith("200 puzzles"));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAnalyze() {
+		try {
+			StringWriter out = new StringWriter();
+			Batch batch = new Batch(true, Engine.DLX, 2);
+			batch.run(new BufferedReader(new StringReader(UNIQUE + "\n"
+					+ NO_SOLUTION + "\n")), out);
+			assertEquals("Unique solution " + SOLUTION + "\nNo solution\n",
+					out.toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCache() {
+		try {
+			// the same puzzle relabeled and permuted, then repeated
+			String other = CanonicalizerTest.transform(UNIQUE, new Random(7));
+			StringWriter out = new StringWriter();
+			Batch batch = new Batch(false, Engine.TRAIL, 1);
+			batch.setCache(new SolutionCache(16));
+			batch.run(new BufferedReader(new StringReader(UNIQUE + "\n"
+					+ other + "\n" + NO_SOLUTION + "\n" + UNIQUE + "\n")), out);
+			assertEquals(SOLUTION + "\n" + Solver.getSolution(other)
+					+ "\nNo solution\n" + SOLUTION + "\n", out.toString());
+			assertEquals(2, batch.getCache().getMisses());
+			assertEquals(2, batch.getCache().getHits());
+
+			out = new StringWriter();
+			batch = new Batch(true, Engine.TRAIL, 1);
+			batch.setCache(new SolutionCache(16));
+			batch.run(new BufferedReader(new StringReader(other + "\n"
+					+ UNIQUE + "\n")), out);
+			String[] lines = out.toString().split("\n");
+			assertEquals("Unique solution " + SOLUTION, lines[1]);
+			assertEquals(1, batch.getCache().getHits());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testFile() {
+		try {
+			File file = File.createTempFile("batch", ".txt");
+			file.deleteOnExit();
+			OutputStream os = new FileOutputStream(file);
+			os.write((UNIQUE + "\n\n" + NO_SOLUTION + "\r\n" + INVALID)
+					.getBytes("US-ASCII"));
+			os.close();
+			StringWriter out = new StringWriter();
+			CorpusReader in = new CorpusReader(file);
+			try {
+				assertEquals(3, new Batch(false, Engine.COPY, 2).run(in, out));
+			} finally {
+				in.close();
+			}
+			assertEquals(SOLUTION + "\nNo solution\nDuplicates at row 1\n",
+					out.toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
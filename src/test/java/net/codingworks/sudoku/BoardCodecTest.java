@@ -0,0 +1,115 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for BoardCodec
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class BoardCodecTest {
+
+	@Test
+	public void testPuzzle() {
+		try {
+			List<String> puzzles = Generator.generate(20, Symmetry.NONE, 0, 1,
+					1);
+			puzzles.add(new Board("").toString());
+			ByteBuffer buf = ByteBuffer.allocate(puzzles.size()
+					* BoardCodec.PUZZLE_BYTES);
+			for (String puzzle : puzzles) {
+				BoardCodec.writePuzzle(new Board(puzzle), buf);
+			}
+			buf.flip();
+			for (String puzzle : puzzles) {
+				assertEquals(puzzle, BoardCodec.readPuzzle(buf).toString());
+			}
+			assertEquals(0, buf.remaining());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSolution() {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			String[] solutions = new String[20];
+			for (int i = 0; i < solutions.length; i++) {
+				Board solution = new Solver(new Board(""), i).solve();
+				solutions[i] = solution.toString();
+				BoardCodec.writeSolution(solution, out);
+			}
+			BoardCodec.writeSolution(null, out);
+			assertEquals((solutions.length + 1) * BoardCodec.SOLUTION_BYTES,
+					out.size());
+			ByteArrayInputStream in = new ByteArrayInputStream(
+					out.toByteArray());
+			for (String solution : solutions) {
+				assertEquals(solution, BoardCodec.readSolution(in).toString());
+			}
+			assertNull(BoardCodec.readSolution(in));
+			try {
+				BoardCodec.readSolution(in);
+				fail("end of stream");
+			} catch (EOFException e) {
+				// expected
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testStream() {
+		try {
+			String puzzle = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			BoardCodec.writePuzzle(new Board(puzzle), out);
+			assertEquals(BoardCodec.PUZZLE_BYTES, out.size());
+			byte[] bytes = out.toByteArray();
+			assertEquals(puzzle, BoardCodec.readPuzzle(
+					new ByteArrayInputStream(bytes)).toString());
+			assertNull(BoardCodec.readPuzzle(new ByteArrayInputStream(
+					new byte[0])));
+			try {
+				BoardCodec.readPuzzle(new ByteArrayInputStream(bytes, 0, 10));
+				fail("truncated");
+			} catch (EOFException e) {
+				// expected
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testInvalid() {
+		try {
+			BoardCodec.writeSolution(new Board("123456789"),
+					ByteBuffer.allocate(BoardCodec.SOLUTION_BYTES));
+			fail("incomplete grid");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			byte[] bytes = new byte[BoardCodec.PUZZLE_BYTES];
+			bytes[3] = (byte) 0xA0;
+			BoardCodec.readPuzzle(ByteBuffer.wrap(bytes));
+			fail("invalid cell value");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for BoardFile and BoardFileWriter
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class BoardFileTest {
+
+	private static final String NO_SOLUTION = "840009002500000070007000800900030005000010730260005000000860000000500040008200509";
+
+	@Test
+	public void testRandomAccess() {
+		try {
+			List<String> puzzles = Generator.generate(100, Symmetry.NONE, 0,
+					1, 2);
+			puzzles.add(NO_SOLUTION);
+			File file = File.createTempFile("puzzles", ".sdkb");
+			file.deleteOnExit();
+			BoardFileWriter out = new BoardFileWriter(file, true, 16);
+			for (String puzzle : puzzles) {
+				out.add(new Board(puzzle), new Solver(new Board(puzzle))
+						.solve(Engine.TRAIL));
+			}
+			out.close();
+			// less than half of a puzzle line and a solution line
+			assertTrue(file.length() < puzzles.size() * 82);
+
+			BoardFile in = new BoardFile(file);
+			try {
+				assertEquals(puzzles.size(), in.size());
+				assertTrue(in.hasSolutions());
+				Random random = new Random(1);
+				for (int n = 0; n < 200; n++) {
+					int i = random.nextInt(puzzles.size());
+					String puzzle = puzzles.get(i);
+					assertEquals(puzzle, in.getPuzzle(i).toString());
+					assertEquals(Solver.getSolution(puzzle, Engine.TRAIL),
+							i == puzzles.size() - 1 ? null : in.getSolution(i)
+									.toString());
+				}
+				assertNull(in.getSolution(puzzles.size() - 1));
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testPuzzlesOnly() {
+		try {
+			File file = File.createTempFile("puzzles", ".sdkb");
+			file.deleteOnExit();
+			BoardFileWriter out = new BoardFileWriter(file, false);
+			out.close();
+			BoardFile in = new BoardFile(file);
+			assertEquals(0, in.size());
+			in.close();
+
+			out = new BoardFileWriter(file, false);
+			out.add(new Board(NO_SOLUTION));
+			out.close();
+			in = new BoardFile(file);
+			try {
+				assertEquals(1, in.size());
+				assertEquals(NO_SOLUTION, in.getPuzzle(0).toString());
+				in.getSolution(0);
+				fail("no solutions");
+			} catch (IllegalStateException e) {
+				// expected
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testRejectedSolution() {
+		try {
+			File file = File.createTempFile("puzzles", ".sdkb");
+			file.deleteOnExit();
+			Board puzzle = new Board(NO_SOLUTION);
+			BoardFileWriter out = new BoardFileWriter(file, true, 4);
+			out.add(puzzle, null);
+			try {
+				// the givens alone are no solved grid
+				out.add(puzzle, new Board(NO_SOLUTION));
+				fail("not a solved grid");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+			out.add(puzzle, null);
+			out.close();
+			BoardFile in = new BoardFile(file);
+			try {
+				assertEquals(2, in.size());
+				assertEquals(NO_SOLUTION, in.getPuzzle(1).toString());
+				assertNull(in.getSolution(1));
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCorruption() {
+		try {
+			File file = File.createTempFile("puzzles", ".sdkb");
+			file.deleteOnExit();
+			BoardFileWriter out = new BoardFileWriter(file, false, 4);
+			for (int i = 0; i < 10; i++) {
+				out.add(new Board(NO_SOLUTION));
+			}
+			out.close();
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			raf.seek(BoardFile.HEADER_BYTES + BoardFile.FRAME_HEADER_BYTES + 5);
+			raf.write(0x11);
+			raf.close();
+			BoardFile in = new BoardFile(file);
+			try {
+				assertEquals(NO_SOLUTION, in.getPuzzle(9).toString());
+				in.getPuzzle(0);
+				fail("corrupt frame");
+			} catch (IOException e) {
+				assertTrue(e.getMessage().startsWith("Checksum"));
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -133,4 +133,80 @@ public class BoardTest {
 				   + "000050000"
 				   + "900000410", "Duplicates in box");
 	}
+
+	@Test
+	public void testValidateKeepsMasks() {
+		Board board = new Board(inputStr);
+		// the first cell is checked first, so the failure comes before any
+		// mask is rebuilt
+		board.setValue(0, (byte) 10);
+		short[] masks = new short[Board.UNITS];
+		for (int u = 0; u < Board.UNITS; u++) {
+			masks[u] = board.getUsed(u);
+		}
+		try {
+			board.validate();
+			fail("Should have thrown Exception");
+		} catch (Exception e) {
+			assertTrue(e.getMessage().startsWith("Invalid cell value 10"));
+		}
+		for (int u = 0; u < Board.UNITS; u++) {
+			assertEquals(masks[u], board.getUsed(u));
+		}
+	}
+
+	@Test
+	public void testCandidates() {
+		try {
+			Board board = new Board(inputStr);
+			board.updateCells();
+			// row 1, column 0 can take 2, 3 or 4
+			assertEquals(0x00E, board.getCandidates(9));
+			assertEquals(3, board.getRank(9));
+			assertEquals(0, board.getCandidates(0));
+			assertEquals(1, board.getValue(0));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCellView() {
+		Board board = new Board(inputStr);
+		Board copy = board.copy(false);
+		copy.getCell(8, 1).setValue((byte) 2);
+		assertEquals(2, copy.getCell(8, 1).getValue());
+		assertEquals(0, board.getCell(8, 1).getValue());
+		assertTrue(board.getCell(8, 1).isEmpty());
+		assertEquals(inputStr, board.toString());
+	}
+
+	@Test
+	public void testPeers() {
+		for (int k = 0; k < Board.CELLS; k++) {
+			int[] peers = Board.PEERS[k];
+			assertEquals(20, peers.length);
+			for (int p : peers) {
+				assertTrue(p != k);
+				assertTrue(Board.ROW[p] == Board.ROW[k]
+						|| Board.COL[p] == Board.COL[k]
+						|| Board.BOX[p] == Board.BOX[k]);
+			}
+		}
+		assertEquals(26, Board.BOX[60]);
+	}
+
+	@Test
+	public void testUsed() {
+		Board board = new Board(inputStr);
+		// row 0 has 1, 3 and 8
+		assertEquals(0x085, board.getUsed(Board.ROW[0]));
+		// column 0 has 1, 6, 7 and 9
+		assertEquals(0x161, board.getUsed(Board.COL[0]));
+		assertEquals(56, board.getNumberOfEmptyCells());
+		board.getCell(0, 0).setValue((byte) 0);
+		assertEquals(0x084, board.getUsed(Board.ROW[0]));
+		assertEquals(0x160, board.getUsed(Board.COL[0]));
+		assertEquals(57, board.getNumberOfEmptyCells());
+	}
 }
@@ -0,0 +1,136 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for CancellationToken
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class CancellationTokenTest {
+
+	@Test
+	public void testCancel() {
+		CancellationToken token = new CancellationToken();
+		CancellationToken fork = token.fork();
+		assertFalse(token.poll());
+		assertFalse(fork.check());
+		assertEquals(Long.MAX_VALUE, token.getRemaining(TimeUnit.SECONDS));
+		fork.stop();
+		assertTrue(token.isCancelled());
+		assertTrue(token.poll());
+		assertTrue(fork.poll());
+	}
+
+	@Test
+	public void testDeadline() {
+		try {
+			CancellationToken token = new CancellationToken(10,
+					TimeUnit.MILLISECONDS);
+			assertFalse(token.check());
+			Thread.sleep(20);
+			assertEquals(0, token.getRemaining(TimeUnit.NANOSECONDS));
+			// the clock is only read every CHECK_INTERVAL polls
+			assertFalse(token.isCancelled());
+			int polls = 0;
+			while (!token.poll()) {
+				polls++;
+			}
+			assertTrue(polls < CancellationToken.CHECK_INTERVAL);
+			assertTrue(token.isCancelled());
+		} catch (InterruptedException e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testTimeout() {
+		try {
+			// an empty board has billions of solutions
+			for (Engine engine : Engine.values()) {
+				Analyzer analyzer = new Analyzer(new Board(""));
+				analyzer.setToken(new CancellationToken(50,
+						TimeUnit.MILLISECONDS));
+				long startTime = System.nanoTime();
+				analyzer.countSolutions(Integer.MAX_VALUE, engine);
+				assertTrue(System.nanoTime() - startTime < 2000000000L);
+				assertTrue(analyzer.stopped());
+			}
+
+			Analyzer analyzer = new Analyzer(new Board(""));
+			analyzer.setToken(new CancellationToken(50, TimeUnit.MILLISECONDS));
+			ForkJoinPool pool = new ForkJoinPool(2);
+			try {
+				analyzer.countSolutions(Integer.MAX_VALUE, pool);
+				assertTrue(analyzer.stopped());
+			} finally {
+				pool.shutdownNow();
+			}
+
+			// a search finishing in time is not cancelled
+			Solver solver = new Solver(new Board(""));
+			solver.setToken(new CancellationToken(10, TimeUnit.SECONDS));
+			assertTrue(solver.solve() != null);
+			assertFalse(solver.stopped());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testStop() {
+		try {
+			Solver solver = new Solver(new Board(""));
+			solver.stop();
+			assertTrue(solver.getToken().isCancelled());
+			for (Engine engine : Engine.values()) {
+				assertNull(solver.solve(engine));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testConcurrent() {
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 400; i++) {
+				results.add(pool.submit(new Callable<Boolean>() {
+					public Boolean call() throws Exception {
+						Analyzer analyzer = new Analyzer(new Board(""));
+						analyzer.setToken(new CancellationToken(5,
+								TimeUnit.MILLISECONDS));
+						analyzer.countSolutions(Integer.MAX_VALUE,
+								Engine.TRAIL);
+						return analyzer.stopped();
+					}
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
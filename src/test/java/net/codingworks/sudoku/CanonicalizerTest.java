@@ -0,0 +1,139 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for Canonicalizer
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class CanonicalizerTest {
+
+	static final String[] PUZZLES = {
+			"800000000003600000070090200050007000000045700000100030001000068008500010090000400",
+			"009003060000040100500100000090000020800000400027006009000000000003002070000850600",
+			"000006000007089100000000056010700000000000300078460020600005000002000000804301070",
+			"840009002500000070007000800900030005000010730260005000000860000000500040008200509",
+			"000000010400000000020000000000050407008000300001090000300400200050100000000806000" };
+
+	/**
+	 * Apply a random transform preserving the solutions to a puzzle.
+	 * 
+	 * @param input
+	 *            a string listing cell values in row order
+	 * @param random
+	 *            the source of the transform
+	 * @return the transformed puzzle
+	 */
+	static String transform(String input, Random random) {
+		int[] rows = lines(random);
+		int[] cols = lines(random);
+		boolean transpose = random.nextBoolean();
+		char[] digits = "123456789".toCharArray();
+		for (int i = digits.length - 1; i > 0; i--) {
+			int r = random.nextInt(i + 1);
+			char t = digits[i];
+			digits[i] = digits[r];
+			digits[r] = t;
+		}
+		char[] out = new char[81];
+		for (int i = 0; i < 9; i++) {
+			for (int j = 0; j < 9; j++) {
+				int k = transpose ? cols[j] * 9 + rows[i] : rows[i] * 9
+						+ cols[j];
+				char c = input.charAt(k);
+				out[i * 9 + j] = c == '0' ? '0' : digits[c - '1'];
+			}
+		}
+		return new String(out);
+	}
+
+	/**
+	 * Draw a random order of lines: bands and lines within bands permuted.
+	 * 
+	 * @param random
+	 *            the source of the order
+	 * @return the source line at each position
+	 */
+	private static int[] lines(Random random) {
+		int[] bands = permutation(random);
+		int[] ret = new int[9];
+		for (int b = 0; b < 3; b++) {
+			int[] p = permutation(random);
+			for (int i = 0; i < 3; i++) {
+				ret[b * 3 + i] = bands[b] * 3 + p[i];
+			}
+		}
+		return ret;
+	}
+
+	private static int[] permutation(Random random) {
+		int[] ret = { 0, 1, 2 };
+		for (int i = 2; i > 0; i--) {
+			int r = random.nextInt(i + 1);
+			int t = ret[i];
+			ret[i] = ret[r];
+			ret[r] = t;
+		}
+		return ret;
+	}
+
+	@Test
+	public void testInvariance() {
+		Random random = new Random(7);
+		Canonicalizer canonicalizer = new Canonicalizer();
+		for (String puzzle : PUZZLES) {
+			String canonical = canonicalizer.canonicalize(new Board(puzzle))
+					.toString();
+			assertTrue(canonicalizer.isExact());
+			for (int i = 0; i < 50; i++) {
+				String other = transform(puzzle, random);
+				assertEquals(canonical,
+						canonicalizer.canonicalize(new Board(other))
+								.toString());
+			}
+		}
+	}
+
+	@Test
+	public void testRestore() {
+		try {
+			Random random = new Random(11);
+			Canonicalizer canonicalizer = new Canonicalizer();
+			for (int i = 0; i < 20; i++) {
+				String puzzle = transform(PUZZLES[i % 2], random);
+				Board canonical = canonicalizer.canonicalize(new Board(puzzle));
+				assertEquals(puzzle, canonicalizer.restore(canonical)
+						.toString());
+				Board solution = new Solver(canonical).solve(Engine.TRAIL);
+				assertEquals(Solver.getSolution(puzzle), canonicalizer
+						.restore(solution).toString());
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testLimit() {
+		Canonicalizer canonicalizer = new Canonicalizer(10);
+		String puzzle = "1";
+		Board canonical = canonicalizer.canonicalize(new Board(puzzle));
+		assertFalse(canonicalizer.isExact());
+		assertEquals(new Board(puzzle).toString(), canonicalizer.restore(
+				canonical).toString());
+		try {
+			new Canonicalizer(0);
+			fail("A limit of 0 was accepted");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+}
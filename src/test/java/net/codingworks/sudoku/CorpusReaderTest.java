@@ -0,0 +1,101 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for CorpusReader
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class CorpusReaderTest {
+
+	private static final String[] PUZZLES = {
+			"100030080067580000000100200030060590650070000708000002000094000000050000900000410",
+			"009003060000040100500100000090000020800000400027006009000000000003002070000850600",
+			"..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3.." };
+
+	private static File write(int n) throws Exception {
+		File file = File.createTempFile("corpus", ".txt");
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			for (int i = 0; i < n; i++) {
+				String line = PUZZLES[i % PUZZLES.length];
+				// mix line endings and blank lines
+				line += i % 5 == 0 ? "\r\n" : "\n";
+				if (i % 7 == 0) {
+					line += "\n";
+				}
+				out.write(line.getBytes("US-ASCII"));
+			}
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	@Test
+	public void testRead() {
+		try {
+			File file = write(100);
+			CorpusReader reader = new CorpusReader(file);
+			try {
+				CorpusRegion[] regions = reader.split(1);
+				assertEquals(1, regions.length);
+				Board board = new Board("");
+				int n = 0;
+				while (regions[0].next(board)) {
+					assertEquals(new Board(PUZZLES[n % PUZZLES.length])
+							.toString(), board.toString());
+					assertEquals(new Board(PUZZLES[n % PUZZLES.length])
+							.getNumberOfEmptyCells(),
+							board.getNumberOfEmptyCells());
+					n++;
+				}
+				assertEquals(100, n);
+			} finally {
+				reader.close();
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSplit() {
+		try {
+			File file = write(100);
+			CorpusReader reader = new CorpusReader(file);
+			try {
+				for (int parts = 1; parts <= 16; parts++) {
+					List<String> boards = new ArrayList<String>();
+					for (CorpusRegion region : reader.split(parts)) {
+						Board board = new Board("");
+						while (region.next(board)) {
+							boards.add(board.toString());
+						}
+					}
+					assertEquals(100, boards.size());
+					for (int i = 0; i < 100; i++) {
+						assertEquals(new Board(PUZZLES[i % PUZZLES.length])
+								.toString(), boards.get(i));
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for DancingLinks
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class DancingLinksTest {
+
+	private static int count(String input, final int limit) throws Exception {
+		Board board = new Board(input);
+		board.validate();
+		DancingLinks dlx = new DancingLinks();
+		dlx.load(board);
+		return dlx.solve(new SolutionVisitor() {
+			private int n = 0;
+
+			public boolean visit(byte[] values) {
+				return ++n < limit;
+			}
+		});
+	}
+
+	@Test
+	public void testUniqueSolution() {
+		try {
+			String input = "009003060"
+			             + "000040100"
+			             + "500100000"
+			             + "090000020"
+			             + "800000400"
+			             + "027006009"
+			             + "000000000"
+			             + "003002070"
+			             + "000850600";
+			assertEquals(1, count(input, 10));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSolution() {
+		try {
+			String input = "100030080"
+			             + "067580000"
+			             + "000100200"
+			             + "030060590"
+			             + "650070000"
+			             + "708000002"
+			             + "000094000"
+			             + "000050000"
+			             + "900000410";
+			String expectedSol = "145236789"
+			                   + "267589134"
+			                   + "389147256"
+			                   + "431862597"
+			                   + "652973841"
+			                   + "798415362"
+			                   + "513794628"
+			                   + "824651973"
+			                   + "976328415";
+			Board result = new Solver(new Board(input)).solve(Engine.DLX);
+			assertEquals(expectedSol, result.toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCount() {
+		try {
+			// an empty board has many solutions; the search stops at the limit
+			assertEquals(50, count("", 50));
+			String input = "000006000"
+			             + "007089100"
+			             + "000000056"
+			             + "010700000"
+			             + "000000300"
+			             + "078460020"
+			             + "600005000"
+			             + "002000000"
+			             + "804301070";
+			assertTrue(count(input, 3) > 1);
+			String noSolution = "840009002"
+			                  + "500000070"
+			                  + "007000800"
+			                  + "900030005"
+			                  + "000010730"
+			                  + "260005000"
+			                  + "000860000"
+			                  + "000500040"
+			                  + "008200509";
+			assertEquals(0, count(noSolution, 10));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReuse() {
+		try {
+			DancingLinks dlx = new DancingLinks();
+			for (int n = 0; n < 2; n++) {
+				Board board = new Board("009003060"
+				                      + "000040100"
+				                      + "500100000"
+				                      + "090000020"
+				                      + "800000400"
+				                      + "027006009"
+				                      + "000000000"
+				                      + "003002070"
+				                      + "000850600");
+				dlx.load(board);
+				assertEquals(1, dlx.solve(new SolutionVisitor() {
+					public boolean visit(byte[] values) {
+						return true;
+					}
+				}));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for GeneralBoard and GeneralSolver
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class GeneralSolverTest {
+
+	private static final String INPUT = "100030080"
+	                                  + "067580000"
+	                                  + "000100200"
+	                                  + "030060590"
+	                                  + "650070000"
+	                                  + "708000002"
+	                                  + "000094000"
+	                                  + "000050000"
+	                                  + "900000410";
+
+	/**
+	 * Make a puzzle from a shuffled valid grid with cells removed.
+	 * 
+	 * @param br
+	 *            number of rows of a box
+	 * @param bc
+	 *            number of columns of a box
+	 * @param removed
+	 *            fraction of the cells removed
+	 * @param random
+	 *            the source of randomness
+	 * @return the puzzle
+	 */
+	static GeneralBoard puzzle(int br, int bc, double removed, Random random) {
+		int n = br * bc;
+		int[] symbols = shuffled(n, random);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			for (int c = 0; c < n; c++) {
+				int v = symbols[(bc * (i % br) + i / br + c) % n] + 1;
+				sb.append(random.nextDouble() < removed ? '0' : (char) (v < 10
+						? '0' + v : 'A' + v - 10));
+			}
+		}
+		return new GeneralBoard(br, bc, sb.toString());
+	}
+
+	private static int[] shuffled(int n, Random random) {
+		int[] a = new int[n];
+		for (int i = 0; i < n; i++) {
+			a[i] = i;
+		}
+		for (int i = n - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+		return a;
+	}
+
+	/**
+	 * Check that a board is a solution of a puzzle.
+	 */
+	private static void assertSolves(GeneralBoard puzzle,
+			GeneralBoard solution) {
+		int n = puzzle.getSize();
+		int br = puzzle.getBoxRows();
+		int bc = puzzle.getBoxColumns();
+		assertEquals(0, solution.getNumberOfEmptyCells());
+		for (int u = 0; u < n; u++) {
+			long row = 0, col = 0, box = 0;
+			for (int j = 0; j < n; j++) {
+				row |= 1L << solution.getValue(u, j);
+				col |= 1L << solution.getValue(j, u);
+				box |= 1L << solution.getValue(br * (u / br) + j / bc, bc
+						* (u % br) + j % bc);
+			}
+			long all = ((1L << n) - 1) << 1;
+			assertEquals(all, row);
+			assertEquals(all, col);
+			assertEquals(all, box);
+		}
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				int v = puzzle.getValue(i, j);
+				assertTrue(v == 0 || v == solution.getValue(i, j));
+			}
+		}
+	}
+
+	@Test
+	public void testStandard() {
+		try {
+			GeneralBoard board = new GeneralBoard(3, 3, INPUT);
+			GeneralBoard solution = new GeneralSolver(board).solve();
+			assertEquals(Solver.getSolution(INPUT), solution.toString());
+			assertEquals(INPUT, board.toString());
+			// the same puzzle searched by the general engine
+			GeneralSolver solver = new GeneralSolver(board);
+			solver.setSpecialized(false);
+			assertEquals(Solver.getSolution(INPUT), solver.solve().toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSixBySix() {
+		try {
+			Random random = new Random(6);
+			for (int i = 0; i < 20; i++) {
+				GeneralBoard board = puzzle(2, 3, 0.6, random);
+				assertSolves(board, new GeneralSolver(board).solve());
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSixteen() {
+		try {
+			Random random = new Random(16);
+			for (int i = 0; i < 10; i++) {
+				GeneralBoard board = puzzle(4, 4, 0.55, random);
+				String input = board.toString();
+				assertSolves(board, new GeneralSolver(board).solve());
+				assertEquals(input, board.toString());
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testTwentyFive() {
+		try {
+			Random random = new Random(25);
+			for (int i = 0; i < 3; i++) {
+				GeneralBoard board = puzzle(5, 5, 0.5, random);
+				assertSolves(board, new GeneralSolver(board).solve());
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		try {
+			GeneralBoard board = new GeneralBoard(4, 4);
+			assertSolves(board, new GeneralSolver(board).solve());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testNoSolution() {
+		try {
+			// 1 and 2 fill the rest of the first row but neither fits the
+			// first cell
+			String input = "0034" + "1000" + "2000" + "0000";
+			assertNull(GeneralSolver.getSolution(2, 2, input));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testDuplicates() {
+		try {
+			new GeneralSolver(new GeneralBoard(4, 4, "GG")).solve();
+			fail("Duplicates not detected");
+		} catch (Exception e) {
+			assertEquals("Duplicates at row 1", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testStopped() {
+		try {
+			GeneralSolver solver = new GeneralSolver(new GeneralBoard(5, 5));
+			solver.stop();
+			assertTrue(solver.stopped());
+			assertNull(solver.solve());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testConversions() {
+		GeneralBoard board = new GeneralBoard(3, 3, INPUT);
+		assertEquals(INPUT, board.toBoard().toString());
+		assertEquals(INPUT, GeneralBoard.fromBoard(new Board(INPUT))
+				.toString());
+		GeneralBoard letters = new GeneralBoard(4, 4, "9aBg.x");
+		assertEquals("9ABG" + repeat('0', 252), letters.toString());
+		assertEquals(11, letters.getValue(0, 2));
+		assertEquals(252, letters.getNumberOfEmptyCells());
+		try {
+			new GeneralBoard(4, 4).toBoard();
+			fail("A 16x16 board converted");
+		} catch (IllegalStateException e) {
+		}
+		try {
+			new GeneralBoard(6, 6);
+			fail("A 36x36 board created");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	private static String repeat(char ch, int n) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			sb.append(ch);
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testStats() {
+		try {
+			SearchStats stats = new SearchStats();
+			GeneralSolver solver = new GeneralSolver(puzzle(4, 4, 0.7,
+					new Random(1)));
+			solver.setStats(stats);
+			assertNotNull(solver.solve());
+			assertTrue(stats.getEliminations() > 0);
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for Generator
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class GeneratorTest {
+
+	@Test
+	public void testUnique() {
+		try {
+			Generator generator = new Generator(Symmetry.NONE, 0, 1);
+			for (int i = 0; i < 20; i++) {
+				Board puzzle = generator.generate();
+				assertEquals(1, new Analyzer(puzzle).countSolutions(2,
+						Engine.DLX));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSolution() {
+		try {
+			Board solution = new Solver(new Board("")).solve();
+			Board puzzle = new Generator(Symmetry.NONE, 0, 2)
+					.generate(solution);
+			assertEquals(solution.toString(),
+					Solver.getSolution(puzzle.toString(), Engine.DLX));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testClues() {
+		try {
+			Generator generator = new Generator(Symmetry.NONE, 26, 3);
+			for (int i = 0; i < 20; i++) {
+				Board puzzle = generator.generate();
+				assertTrue(Board.CELLS - puzzle.getNumberOfEmptyCells() <= 26);
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSymmetry() {
+		try {
+			for (Symmetry symmetry : Symmetry.values()) {
+				Board puzzle = new Generator(symmetry, 0, 4)
+						.generate();
+				for (int k = 0; k < Board.CELLS; k++) {
+					assertEquals(puzzle.getValue(k) == 0,
+							puzzle.getValue(symmetry.map(k)) == 0);
+				}
+				assertEquals(1, new Analyzer(puzzle).countSolutions(2,
+						Engine.DLX));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		try {
+			List<String> puzzles = Generator.generate(10, Symmetry.ROTATIONAL,
+					0, 3);
+			assertEquals(10, puzzles.size());
+			for (String puzzle : puzzles) {
+				assertEquals(1, new Analyzer(new Board(puzzle))
+						.countSolutions(2, Engine.DLX));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSeed() {
+		try {
+			List<String> puzzles = Generator.generate(6, Symmetry.NONE, 0, 2,
+					5);
+			assertEquals(puzzles, Generator.generate(6, Symmetry.NONE, 0, 2,
+					5));
+			assertEquals(new Generator(Symmetry.NONE, 0, 6).generate()
+					.toString(), new Generator(Symmetry.NONE, 0, 6)
+					.generate().toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for Grader
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class GraderTest {
+
+	/**
+	 * Puzzles whose hardest technique is, in order, each Technique
+	 */
+	private static final String[] INPUTS = {
+		"004500076001300900000006130100904600069020000000030080000090000500000010000105400",
+		"070080000000000403004005100000000070003000000090230068000008900056024000910000005",
+		"900000036062010080350200000080000009000605008400000000000000000046081070007064003",
+		"000006000010800009003004080000007800802400001009003600000000540008000060064231000",
+		"000050370809000000006018000057000000100000402000309005080200000000060209000005000",
+		"700040000240700630100060090009086000000300020320000006000400073007000200000010450",
+		"600700210000800000030004009000020870002000400700600001004090030020030000090000600",
+		"500010390200000060970000004000306000053040100000000003000480970000000000008123000",
+		"100000002300510980008200050000706000500000008002800360700000400000600005040000027",
+		"000300004006000109540009030000010590030000070000070000900705400005602000002094000",
+		"069040100002000000000005008800400700000500304070000900100000409700130006030080000",
+		"070000004004200608100000050000000000060070009010439700020500041000000806090028000" };
+
+	@Test
+	public void testTechniques() {
+		try {
+			Grader grader = new Grader();
+			Technique[] techniques = Technique.values();
+			assertEquals(techniques.length, INPUTS.length);
+			for (int i = 0; i < INPUTS.length; i++) {
+				Board board = new Board(INPUTS[i]);
+				Grade grade = grader.grade(board);
+				assertTrue(grade.isSolved());
+				assertEquals(techniques[i], grade.getTechnique());
+				// every empty cell is filled by a single
+				assertEquals(board.getNumberOfEmptyCells(),
+						grade.getSteps(Technique.HIDDEN_SINGLE)
+								+ grade.getSteps(Technique.NAKED_SINGLE));
+				for (int j = i + 1; j < techniques.length; j++) {
+					assertEquals(0, grade.getSteps(techniques[j]));
+				}
+				// the input is not modified, not even its candidates
+				assertEquals(INPUTS[i], board.toString());
+				for (int k = 0; k < Board.CELLS; k++) {
+					assertEquals(0, board.getCandidates(k));
+				}
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testScore() {
+		try {
+			Grade grade = Grader.getGrade(INPUTS[1]);
+			assertEquals(54 * Technique.HIDDEN_SINGLE.getDifficulty() + 4
+					* Technique.NAKED_SINGLE.getDifficulty(), grade.getScore());
+			assertEquals("Solved by NAKED_SINGLE, score 740, "
+					+ "HIDDEN_SINGLE=54, NAKED_SINGLE=4", grade.toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testNotSolved() {
+		try {
+			// needs more than the techniques of the Grader
+			Grade grade = Grader.getGrade("800000000003600000070090200"
+					+ "050007000000045700000100030001000068008500010090000400");
+			assertFalse(grade.isSolved());
+			assertNull(grade.getTechnique());
+			assertEquals(0, grade.getScore());
+
+			// has no solution
+			grade = Grader.getGrade("100030086067580000000100200030060590"
+					+ "650070000708000002000094000000050000900000410");
+			assertFalse(grade.isSolved());
+
+			// solved already
+			grade = Grader.getGrade(Solver.getSolution(INPUTS[0]));
+			assertTrue(grade.isSolved());
+			assertNull(grade.getTechnique());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testInvalid() {
+		try {
+			Grader.getGrade("110000000");
+			fail("Duplicates are not detected");
+		} catch (Exception e) {
+			assertEquals("Duplicates at row 1", e.getMessage());
+		}
+	}
+}
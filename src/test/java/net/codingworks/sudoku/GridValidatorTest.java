@@ -0,0 +1,175 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for GridValidator
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class GridValidatorTest {
+
+	private static final String SOLUTION = "145236789"
+	                                     + "267589134"
+	                                     + "389147256"
+	                                     + "431862597"
+	                                     + "652973841"
+	                                     + "798415362"
+	                                     + "513794628"
+	                                     + "824651973"
+	                                     + "976328415";
+
+	private static byte[] grid() {
+		return new Board(SOLUTION).getValues().clone();
+	}
+
+	@Test
+	public void testCheck() {
+		byte[] grid = grid();
+		assertEquals(GridValidator.VALID, GridValidator.check(grid));
+		// swap the first two cells of row 1: columns 1 and 2 break
+		grid[0] = 4;
+		grid[1] = 1;
+		int code = GridValidator.check(grid);
+		assertEquals(GridValidator.COLUMN, GridValidator.getType(code));
+		assertEquals(0, GridValidator.getIndex(code));
+		assertEquals("Duplicates at column 1", GridValidator.getMessage(code));
+		// a value of another row: row 1 and column 9 break
+		grid = grid();
+		grid[8] = 4;
+		code = GridValidator.check(grid);
+		assertEquals("Duplicates at row 1", GridValidator.getMessage(code));
+		// swap cells of rows 1 and 4 in column 1: the column keeps its
+		// values, rows 1 and 4 and boxes 1 and 4 break, and rows come first
+		grid = grid();
+		grid[0] = 4;
+		grid[27] = 1;
+		code = GridValidator.check(grid);
+		assertEquals(GridValidator.ROW, GridValidator.getType(code));
+		assertEquals(0, GridValidator.getIndex(code));
+		grid = grid();
+		grid[40] = 0;
+		code = GridValidator.check(grid);
+		assertEquals(GridValidator.CELL, GridValidator.getType(code));
+		assertEquals(40, GridValidator.getIndex(code));
+		assertEquals("Invalid cell value at row 5 and column 5",
+				GridValidator.getMessage(code));
+	}
+
+	@Test
+	public void testBoxes() {
+		// rows and columns are permutations but boxes are not
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 9; i++) {
+			for (int j = 0; j < 9; j++) {
+				sb.append((i + j) % 9 + 1);
+			}
+		}
+		int code = GridValidator.check(new Board(sb.toString()).getValues());
+		assertEquals("Duplicates in box 1", GridValidator.getMessage(code));
+	}
+
+	@Test
+	public void testBatch() {
+		Random random = new Random(23);
+		// batches of 1 to 77 grids, so that the loops over the grids end
+		// after any number of whole vectors and with any remainder
+		GridValidator validator = new GridValidator(77);
+		int[] codes = new int[77];
+		for (int round = 0; round < 20; round++) {
+			validator.clear();
+			int n = 1 + random.nextInt(77);
+			byte[][] grids = new byte[n][];
+			for (int g = 0; g < n; g++) {
+				grids[g] = grid();
+				int changes = random.nextInt(3);
+				for (int c = 0; c < changes; c++) {
+					int k = random.nextInt(Board.CELLS);
+					grids[g][k] = (byte) (random.nextInt(20) - 5);
+				}
+				if (random.nextBoolean()) {
+					// swap two cells
+					int a = random.nextInt(Board.CELLS);
+					int b = random.nextInt(Board.CELLS);
+					byte t = grids[g][a];
+					grids[g][a] = grids[g][b];
+					grids[g][b] = t;
+				}
+				assertEquals(g, validator.add(grids[g]));
+			}
+			int invalid = 0;
+			int count = validator.validate(codes);
+			for (int g = 0; g < n; g++) {
+				int expected = GridValidator.check(grids[g]);
+				assertEquals(expected, codes[g]);
+				if (expected != GridValidator.VALID) {
+					invalid++;
+				}
+			}
+			assertEquals(invalid, count);
+		}
+	}
+
+	@Test
+	public void testKernels() {
+		UnitKernel vector = GridValidator.newVectorKernel();
+		assertEquals(vector != null, new GridValidator(1).isVectorized());
+		if (vector == null) {
+			// before Java 17 or without --add-modules jdk.incubator.vector
+			return;
+		}
+		// 40 grids: two full vectors of 16 shorts with AVX2 and 8 left over
+		Random random = new Random(17);
+		GridValidator scalar = new GridValidator(40, new ScalarUnitKernel(40));
+		GridValidator vectorized = new GridValidator(40, vector);
+		assertTrue(vectorized.isVectorized());
+		int[] expected = new int[40];
+		int[] codes = new int[40];
+		for (int round = 0; round < 50; round++) {
+			scalar.clear();
+			vectorized.clear();
+			for (int g = 0; g < 40; g++) {
+				byte[] grid = grid();
+				// one cell set to a value 1-9, which breaks its row, column
+				// and box unless the value is unchanged
+				grid[random.nextInt(Board.CELLS)] = (byte) (1 + random
+						.nextInt(Board.SIZE));
+				scalar.add(grid);
+				vectorized.add(grid);
+			}
+			assertEquals(scalar.validate(expected), vectorized.validate(codes));
+			for (int g = 0; g < 40; g++) {
+				assertEquals(expected[g], codes[g]);
+			}
+		}
+	}
+
+	@Test
+	public void testOutOfRange() {
+		GridValidator validator = new GridValidator(4);
+		byte[] values = { 0, 10, -1, 33 };
+		for (int i = 0; i < values.length; i++) {
+			byte[] grid = grid();
+			grid[80 - i] = values[i];
+			validator.add(grid);
+		}
+		int[] codes = new int[4];
+		assertEquals(4, validator.validate(codes));
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(GridValidator.CELL, GridValidator.getType(codes[i]));
+			assertEquals(80 - i, GridValidator.getIndex(codes[i]));
+		}
+		try {
+			validator.add(grid());
+			fail("A full batch accepted a grid");
+		} catch (IllegalStateException e) {
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for MainGUI, without a window
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class MainGUITest {
+
+	private static final String INPUT = "009003060"
+	                                  + "000040100"
+	                                  + "500100000"
+	                                  + "090000020"
+	                                  + "800000400"
+	                                  + "027006009"
+	                                  + "000000000"
+	                                  + "003002070"
+	                                  + "000850600";
+
+	@Test
+	public void testStep() {
+		try {
+			// the puzzle as read from the cells, solved on the service as
+			// the Step command does
+			Board input = new Board(INPUT);
+			SolverService service = new SolverService(1, 0);
+			SolverResult answer = service.solve(input, 10, TimeUnit.SECONDS)
+					.get();
+			service.shutdown();
+			Board solution = answer.getSolution();
+			int[] idx = MainGUI.step(input, solution);
+			int k = idx[0] * 9 + idx[1];
+			assertEquals('0', INPUT.charAt(k));
+			assertEquals(solution.toString().charAt(k) - '0', idx[2]);
+			// a cell of the least rank is chosen
+			for (int c = 0; c < Board.CELLS; c++) {
+				if (input.getValue(c) == 0) {
+					assertTrue(input.getRank(k) <= input.getRank(c));
+				}
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for Propagator
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class PropagatorTest {
+
+	@Test
+	public void testSingles() {
+		try {
+			String input = "003020600"
+			             + "900305001"
+			             + "001806400"
+			             + "008102900"
+			             + "700000008"
+			             + "006708200"
+			             + "002609500"
+			             + "800203009"
+			             + "005010300";
+			String expectedSol = "483921657"
+			                   + "967345821"
+			                   + "251876493"
+			                   + "548132976"
+			                   + "729564138"
+			                   + "136798245"
+			                   + "372689514"
+			                   + "814253769"
+			                   + "695417382";
+			Board board = new Board(input);
+			board.updateCells();
+			assertTrue(Propagator.propagate(board, null));
+			assertEquals(0, board.getNumberOfEmptyCells());
+			assertEquals(expectedSol, board.toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testHiddenSingle() {
+		try {
+			// 1 can only go to the first cell of row 0
+			Board board = new Board("000000000"
+			                      + "000100000"
+			                      + "000000100"
+			                      + "010000000"
+			                      + "000000000"
+			                      + "000000000"
+			                      + "001000000"
+			                      + "000000000"
+			                      + "000000000");
+			board.updateCells();
+			assertTrue(Propagator.propagate(board, null));
+			assertEquals(1, board.getCell(0, 0).getValue());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testContradiction() {
+		try {
+			// row 0 needs a 9 but no cell of it can take one
+			Board board = new Board("123456700"
+			                      + "000000000"
+			                      + "000000000"
+			                      + "000000000"
+			                      + "000000090"
+			                      + "000000000"
+			                      + "000000009"
+			                      + "000000000"
+			                      + "000000000");
+			board.updateCells();
+			Trail trail = new Trail();
+			String before = board.toString();
+			assertFalse(Propagator.propagate(board, trail));
+			trail.undo(board, 0);
+			assertEquals(before, board.toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for RankIndex
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class RankIndexTest {
+
+	private static final String INPUT = "100030080"
+	                                  + "067580000"
+	                                  + "000100200"
+	                                  + "030060590"
+	                                  + "650070000"
+	                                  + "708000002"
+	                                  + "000094000"
+	                                  + "000050000"
+	                                  + "900000410";
+
+	private static void assertConsistent(Board board, RankIndex index) {
+		int[] counts = new int[10];
+		int min = 10;
+		for (int k = 0; k < Board.CELLS; k++) {
+			if (board.getValue(k) == 0) {
+				counts[board.getRank(k)]++;
+				min = Math.min(min, board.getRank(k));
+			}
+		}
+		for (int r = 0; r <= 9; r++) {
+			assertEquals(counts[r], index.count(r));
+		}
+		int k = index.select(null);
+		if (min == 10) {
+			assertEquals(-1, k);
+		} else {
+			assertEquals(min, board.getRank(k));
+		}
+	}
+
+	@Test
+	public void testSelect() {
+		try {
+			Board board = new Board(INPUT);
+			board.updateCells();
+			RankIndex index = new RankIndex();
+			board.setRankIndex(index);
+			assertConsistent(board, index);
+
+			int k = Solver.selectCell(board, null);
+			assertEquals(board.getRank(k), board.getRank(Solver.selectCell(
+					board, new Random(1))));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testUpdate() {
+		try {
+			Board board = new Board(INPUT);
+			board.updateCells();
+			RankIndex index = new RankIndex();
+			board.setRankIndex(index);
+			Trail trail = new Trail();
+			int mark = trail.mark();
+
+			// fill cells along one path, then undo
+			for (int n = 0; n < 5; n++) {
+				int k = index.select(null);
+				byte v = (byte) (Integer.numberOfTrailingZeros(board
+						.getCandidates(k)) + 1);
+				assertTrue(Solver.updateBoard(board, k, v, trail));
+				assertConsistent(board, index);
+			}
+			trail.undo(board, mark);
+			assertConsistent(board, index);
+			assertEquals(INPUT, board.toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for SearchContext
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class SearchContextTest {
+
+	@Test
+	public void testSeed() {
+		SearchContext first = new SearchContext(1);
+		SearchContext second = new SearchContext(1);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(first.nextLong(), second.nextLong());
+		}
+		assertEquals(1, first.getSeed());
+		first.setSeed(1);
+		second.setSeed(1);
+		assertEquals(first.nextInt(9), second.nextInt(9));
+		assertFalse(new SearchContext(1).nextLong() == new SearchContext(2)
+				.nextLong());
+	}
+
+	@Test
+	public void testNextInt() {
+		SearchContext context = new SearchContext(3);
+		int[] counts = new int[9];
+		for (int i = 0; i < 9000; i++) {
+			counts[context.nextInt(9)]++;
+		}
+		for (int count : counts) {
+			assertTrue(count > 800 && count < 1200);
+		}
+	}
+
+	@Test
+	public void testSplit() {
+		SearchContext first = new SearchContext(4);
+		SearchContext second = new SearchContext(4);
+		SearchContext a = first.split();
+		SearchContext b = second.split();
+		assertEquals(a.nextLong(), b.nextLong());
+		// the parent and each split stream go their own ways
+		SearchContext c = first.split();
+		long x = first.nextLong();
+		long y = a.nextLong();
+		long z = c.nextLong();
+		assertFalse(x == y || y == z || x == z);
+	}
+}
@@ -0,0 +1,144 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for SearchStats
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class SearchStatsTest {
+
+	private static final String INPUT = "800000000"
+	                                  + "003600000"
+	                                  + "070090200"
+	                                  + "050007000"
+	                                  + "000045700"
+	                                  + "000100030"
+	                                  + "001000068"
+	                                  + "008500010"
+	                                  + "090000400";
+
+	@Test
+	public void testCounts() {
+		try {
+			for (Engine engine : Engine.values()) {
+				Solver solver = new Solver(new Board(INPUT), 1);
+				SearchStats stats = new SearchStats();
+				solver.setStats(stats);
+				solver.solve(engine);
+				assertTrue(stats.getNodes() > 0);
+				assertTrue(stats.getBacktracks() <= stats.getNodes());
+				assertTrue(stats.getMaxDepth() > 0);
+				assertTrue(stats.getElapsedTime() > 0);
+				assertTrue(stats.getCpuTime() >= 0);
+				if (engine == Engine.DLX) {
+					assertEquals(0, stats.getEliminations());
+				} else {
+					assertTrue(stats.getEliminations() > 0);
+				}
+				if (engine == Engine.COPY) {
+					assertEquals(stats.getNodes(), stats.getCopies());
+				} else {
+					assertEquals(0, stats.getCopies());
+				}
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testDisabled() {
+		try {
+			Solver solver = new Solver(new Board(INPUT));
+			assertNull(solver.getStats());
+			assertEquals(Solver.getSolution(INPUT), solver.solve().toString());
+			Analyzer analyzer = new Analyzer(new Board(INPUT));
+			assertEquals(1, analyzer.countSolutions(2,
+					ForkJoinPool.commonPool()));
+			assertNull(analyzer.getStats());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testListener() {
+		try {
+			final Analyzer analyzer = new Analyzer(new Board(""));
+			final int[] calls = new int[2];
+			SearchStats stats = new SearchStats();
+			stats.setListener(new SearchListener() {
+				public void progress(SearchStats stats) {
+					calls[0]++;
+					// stop a search which takes too many nodes
+					if (stats.getNodes() >= 2 * SearchStats.PROGRESS_INTERVAL) {
+						analyzer.stop();
+					}
+				}
+
+				public void finished(SearchStats stats) {
+					calls[1]++;
+				}
+			});
+			analyzer.setStats(stats);
+			assertTrue(analyzer.countSolutions(Integer.MAX_VALUE) > 0);
+			assertTrue(analyzer.stopped());
+			assertEquals(2, calls[0]);
+			assertEquals(1, calls[1]);
+			assertEquals(2 * SearchStats.PROGRESS_INTERVAL, stats.getNodes());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		try {
+			Analyzer analyzer = new Analyzer(new Board(""));
+			SearchStats stats = new SearchStats();
+			analyzer.setStats(stats);
+			assertEquals(1000, analyzer.countSolutions(1000, new ForkJoinPool(
+					2)));
+			assertTrue(stats.getNodes() >= 1000);
+			assertEquals(stats.getNodes(), stats.getCopies());
+			assertTrue(stats.getEliminations() > 0);
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testJmx() {
+		try {
+			SearchStats stats = new SearchStats();
+			stats.register("test");
+			Solver solver = new Solver(new Board(INPUT));
+			solver.setStats(stats);
+			solver.solve(Engine.TRAIL);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(
+					"net.codingworks.sudoku:type=SearchStats,name=\"test\"");
+			assertEquals(stats.getNodes(), server.getAttribute(name, "Nodes"));
+			assertEquals(stats.getMaxDepth(), server.getAttribute(name,
+					"MaxDepth"));
+			stats.unregister();
+			assertTrue(!server.isRegistered(name));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
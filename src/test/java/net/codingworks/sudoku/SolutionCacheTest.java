@@ -0,0 +1,95 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for SolutionCache
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class SolutionCacheTest {
+
+	@Test
+	public void testSolution() {
+		try {
+			Random random = new Random(3);
+			SolutionCache cache = new SolutionCache(16);
+			String puzzle = CanonicalizerTest.PUZZLES[0];
+			assertEquals(Solver.getSolution(puzzle), cache.getSolution(puzzle));
+			for (int i = 0; i < 10; i++) {
+				String other = CanonicalizerTest.transform(puzzle, random);
+				assertEquals(Solver.getSolution(other), cache.getSolution(other));
+			}
+			assertNull(cache.getSolution(CanonicalizerTest.PUZZLES[3]));
+			assertEquals(2, cache.getMisses());
+			assertEquals(10, cache.getHits());
+			assertEquals(2, cache.getSize());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReport() {
+		try {
+			Random random = new Random(5);
+			SolutionCache cache = new SolutionCache(16);
+			for (String puzzle : CanonicalizerTest.PUZZLES) {
+				String other = CanonicalizerTest.transform(puzzle, random);
+				String report = new Analyzer(new Board(other)).getReport();
+				if (report.startsWith("Multiple solutions")) {
+					assertTrue(cache.getReport(puzzle).startsWith(
+							"Multiple solutions"));
+					assertTrue(cache.getReport(other).startsWith(
+							"Multiple solutions"));
+				} else {
+					assertEquals(new Analyzer(new Board(puzzle)).getReport(),
+							cache.getReport(puzzle));
+					assertEquals(report, cache.getReport(other));
+				}
+			}
+			assertEquals(5, cache.getMisses());
+			assertEquals(5, cache.getHits());
+
+			// a solve does not search for a second solution, so an analysis
+			// of the same puzzle misses
+			String puzzle = CanonicalizerTest.PUZZLES[0];
+			cache = new SolutionCache(16);
+			cache.getSolution(puzzle);
+			cache.getReport(puzzle);
+			cache.getSolution(puzzle);
+			assertEquals(2, cache.getMisses());
+			assertEquals(1, cache.getHits());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEviction() {
+		try {
+			SolutionCache cache = new SolutionCache(2);
+			cache.getSolution(CanonicalizerTest.PUZZLES[0]);
+			cache.getSolution(CanonicalizerTest.PUZZLES[1]);
+			cache.getSolution(CanonicalizerTest.PUZZLES[0]);
+			cache.getSolution(CanonicalizerTest.PUZZLES[4]);
+			assertEquals(1, cache.getEvictions());
+			assertEquals(2, cache.getSize());
+			// the least recently used puzzle was evicted
+			cache.getSolution(CanonicalizerTest.PUZZLES[0]);
+			assertEquals(2, cache.getHits());
+			cache.getSolution(CanonicalizerTest.PUZZLES[1]);
+			assertEquals(4, cache.getMisses());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
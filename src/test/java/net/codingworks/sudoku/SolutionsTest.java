@@ -0,0 +1,202 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for Solutions
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class SolutionsTest {
+
+	private static final String MULTIPLE = "000006000"
+	                                     + "007089100"
+	                                     + "000000056"
+	                                     + "010700000"
+	                                     + "000000300"
+	                                     + "078460020"
+	                                     + "600005000"
+	                                     + "002000000"
+	                                     + "804301070";
+
+	private static final Function<Board, String> TO_STRING =
+			new Function<Board, String>() {
+				public String apply(Board board) {
+					return board.toString();
+				}
+			};
+
+	/**
+	 * Collect the solutions of a puzzle with a visitor.
+	 */
+	private static Set<String> visitAll(String input) throws Exception {
+		final Set<String> ret = new HashSet<String>();
+		long n = new Solutions(new Board(input)).visit(new SolutionVisitor() {
+			public boolean visit(byte[] values) {
+				ret.add(new Board(values).toString());
+				return true;
+			}
+		});
+		assertEquals(ret.size(), n);
+		return ret;
+	}
+
+	@Test
+	public void testVisit() {
+		try {
+			Set<String> solutions = visitAll(MULTIPLE);
+			Analyzer analyzer = new Analyzer(new Board(MULTIPLE));
+			assertEquals(analyzer.countSolutions(Integer.MAX_VALUE,
+					Engine.TRAIL), solutions.size());
+			assertTrue(solutions.size() > 1);
+			for (String s : solutions) {
+				assertEquals(0, new Board(s).getNumberOfEmptyCells());
+			}
+			assertEquals(1, visitAll("009003060" + "000040100"
+					+ "500100000" + "090000020" + "800000400" + "027006009"
+					+ "000000000" + "003002070" + "000850600").size());
+			assertEquals(0, visitAll("840009002" + "500000070"
+					+ "007000800" + "900030005" + "000010730" + "260005000"
+					+ "000860000" + "000500040" + "008200509").size());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testVisitorStops() {
+		try {
+			final byte[][] seen = new byte[1][];
+			// an empty board has billions of solutions
+			long n = new Solutions(new Board("")).visit(new SolutionVisitor() {
+				private int count = 0;
+
+				public boolean visit(byte[] values) {
+					if (seen[0] != null) {
+						// the array is reused
+						assertSame(seen[0], values);
+					}
+					seen[0] = values;
+					return ++count < 1000;
+				}
+			});
+			assertEquals(1000, n);
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testStream() {
+		try {
+			Set<String> expected = visitAll(MULTIPLE);
+			Set<String> sequential = new Solutions(new Board(MULTIPLE))
+					.stream().map(TO_STRING).collect(Collectors.toSet());
+			assertEquals(expected, sequential);
+			Set<String> parallel = new Solutions(new Board(MULTIPLE))
+					.stream().parallel().map(TO_STRING)
+					.collect(Collectors.toSet());
+			assertEquals(expected, parallel);
+			assertEquals(0, new Solutions(new Board("840009002"
+					+ "500000070" + "007000800" + "900030005" + "000010730"
+					+ "260005000" + "000860000" + "000500040" + "008200509"))
+					.stream().parallel().count());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testInputUnchanged() {
+		try {
+			Board input = new Board(MULTIPLE);
+			Solutions solutions = new Solutions(input);
+			assertTrue(solutions.stream().count() > 1);
+			assertTrue(solutions.visit(new SolutionVisitor() {
+				public boolean visit(byte[] values) {
+					return true;
+				}
+			}) > 1);
+			// the searches ran on copies, so no candidates were computed
+			for (int k = 0; k < Board.CELLS; k++) {
+				assertEquals(0, input.getCandidates(k));
+			}
+			assertEquals(MULTIPLE, input.toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testLimit() {
+		try {
+			// the search stops although there are billions of solutions
+			assertEquals(500, new Solutions(new Board("")).stream().limit(500)
+					.map(TO_STRING).distinct().count());
+			assertEquals(5000, new Solutions(new Board("")).stream()
+					.parallel().limit(5000).map(TO_STRING).distinct().count());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSplit() {
+		try {
+			int total = visitAll(MULTIPLE).size();
+			Spliterator<Board> first = new Solutions(new Board(MULTIPLE))
+					.spliterator();
+			// split a search under way
+			final Set<String> found = new HashSet<String>();
+			Consumer<Board> collector = new Consumer<Board>() {
+				public void accept(Board board) {
+					assertTrue(found.add(board.toString()));
+				}
+			};
+			assertTrue(first.tryAdvance(collector));
+			Spliterator<Board> second = first.trySplit();
+			assertNotNull(second);
+			Spliterator<Board> third = second.trySplit();
+			first.forEachRemaining(collector);
+			second.forEachRemaining(collector);
+			if (third != null) {
+				third.forEachRemaining(collector);
+			}
+			assertEquals(total, found.size());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testStop() {
+		try {
+			Solutions solutions = new Solutions(new Board(""));
+			Spliterator<Board> s = solutions.spliterator();
+			Consumer<Board> ignore = new Consumer<Board>() {
+				public void accept(Board board) {
+				}
+			};
+			assertTrue(s.tryAdvance(ignore));
+			solutions.stop();
+			assertTrue(solutions.stopped());
+			s.forEachRemaining(ignore);
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
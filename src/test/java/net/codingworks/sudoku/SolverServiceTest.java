@@ -0,0 +1,272 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for SolverService
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class SolverServiceTest {
+
+	private static final String INPUT = "800000000"
+	                                  + "003600000"
+	                                  + "070090200"
+	                                  + "050007000"
+	                                  + "000045700"
+	                                  + "000100030"
+	                                  + "001000068"
+	                                  + "008500010"
+	                                  + "090000400";
+
+	@Test
+	public void testSolve() {
+		try {
+			SolverService service = new SolverService(2, 4);
+			SolverResult result = service.solve(new Board(INPUT), 10,
+					TimeUnit.SECONDS).get();
+			assertEquals(SolverResult.Status.SOLVED, result.getStatus());
+			assertEquals(1, result.getSolutionCount());
+			assertEquals(Solver.getSolution(INPUT), result.getSolution()
+					.toString());
+			assertNull(result.getReport());
+			assertTrue(result.getStats().getNodes() > 0);
+
+			String noSolution = "840009002"
+			                  + "500000070"
+			                  + "007000800"
+			                  + "900030005"
+			                  + "000010730"
+			                  + "260005000"
+			                  + "000860000"
+			                  + "000500040"
+			                  + "008200509";
+			result = service.solve(new Board(noSolution), 0, TimeUnit.SECONDS)
+					.get();
+			assertEquals(SolverResult.Status.NO_SOLUTION, result.getStatus());
+			assertNull(result.getSolution());
+
+			try {
+				service.solve(new Board("11"), 0, TimeUnit.SECONDS).get();
+				fail("invalid");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause().getMessage().startsWith("Duplicates"));
+			}
+			service.shutdown();
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAnalyze() {
+		try {
+			SolverService service = new SolverService(2, 4, Engine.COPY);
+			SolverResult result = service.analyze(new Board(INPUT), 10,
+					TimeUnit.SECONDS).get();
+			assertEquals(SolverResult.Status.SOLVED, result.getStatus());
+			assertEquals(1, result.getSolutionCount());
+			assertTrue(result.getReport().startsWith("Unique solution"));
+
+			result = service.analyze(new Board(""), 10, TimeUnit.SECONDS).get();
+			assertEquals(SolverResult.Status.SOLVED, result.getStatus());
+			assertEquals(2, result.getSolutionCount());
+			assertTrue(result.getReport().startsWith("Multiple solutions"));
+			service.shutdown();
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testTimeout() {
+		try {
+			SolverService service = new SolverService(1, 1);
+			SolverResult result = service.analyze(new Board(INPUT), 1,
+					TimeUnit.NANOSECONDS).get();
+			assertEquals(SolverResult.Status.TIMED_OUT, result.getStatus());
+			assertEquals(0, result.getSolutionCount());
+			assertNull(result.getReport());
+			service.shutdown();
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testBackPressure() {
+		try {
+			SolverService service = new SolverService(1, 2);
+			List<CompletableFuture<SolverResult>> futures;
+			futures = new ArrayList<CompletableFuture<SolverResult>>();
+			int rejected = 0;
+			for (int i = 0; i < 1000; i++) {
+				CompletableFuture<SolverResult> future = service.analyze(
+						new Board(INPUT), 0, TimeUnit.SECONDS);
+				assertTrue(service.getPending() <= 3);
+				if (future.isCompletedExceptionally()) {
+					rejected++;
+					try {
+						future.get();
+						fail("accepted");
+					} catch (ExecutionException e) {
+						assertTrue(e.getCause()
+								instanceof RejectedExecutionException);
+					}
+				} else {
+					futures.add(future);
+				}
+			}
+			assertTrue(rejected > 0);
+			for (CompletableFuture<SolverResult> future : futures) {
+				assertEquals(SolverResult.Status.SOLVED, future.get()
+						.getStatus());
+			}
+			service.shutdown();
+			assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+			assertEquals(0, service.getPending());
+			assertTrue(service.solve(new Board(INPUT), 0, TimeUnit.SECONDS)
+					.isCompletedExceptionally());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCancel() {
+		try {
+			SolverService service = new SolverService(1, 8);
+			List<CompletableFuture<SolverResult>> futures;
+			futures = new ArrayList<CompletableFuture<SolverResult>>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(service.analyze(new Board(INPUT), 0,
+						TimeUnit.SECONDS));
+			}
+			for (CompletableFuture<SolverResult> future : futures) {
+				future.cancel(true);
+				assertTrue(future.isCancelled());
+			}
+			service.shutdown();
+			assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+			assertEquals(0, service.getPending());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testWhenIdle() {
+		try {
+			final CountDownLatch started = new CountDownLatch(1);
+			final CountDownLatch resume = new CountDownLatch(1);
+			// the search is held at its end until released, as a cancelled
+			// search is until it checks its token
+			SearchListener listener = new SearchListener() {
+				public void progress(SearchStats stats) {
+				}
+
+				public void finished(SearchStats stats) {
+					started.countDown();
+					try {
+						resume.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			};
+			SolverService service = new SolverService(1, 0);
+			assertTrue(service.whenIdle().isDone());
+			CompletableFuture<SolverResult> future = service.solve(new Board(
+					INPUT), 0, TimeUnit.SECONDS, listener);
+			started.await();
+			future.cancel(true);
+			CompletableFuture<Void> idle = service.whenIdle();
+			assertFalse(idle.isDone());
+			assertTrue(service.solve(new Board(INPUT), 0, TimeUnit.SECONDS)
+					.isCompletedExceptionally());
+			resume.countDown();
+			idle.get(10, TimeUnit.SECONDS);
+			assertEquals(0, service.getPending());
+			assertEquals(SolverResult.Status.SOLVED,
+					service.solve(new Board(INPUT), 0, TimeUnit.SECONDS).get()
+							.getStatus());
+			service.shutdown();
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testListener() {
+		try {
+			final long[] nodes = new long[2];
+			SearchListener listener = new SearchListener() {
+				public void progress(SearchStats stats) {
+					nodes[0] = stats.getNodes();
+				}
+
+				public void finished(SearchStats stats) {
+					nodes[1] = stats.getNodes();
+				}
+			};
+			SolverService service = new SolverService(1, 1);
+			SolverResult result = service.analyze(new Board(""), 10,
+					TimeUnit.SECONDS, listener).get();
+			assertEquals(result.getStats().getNodes(), nodes[1]);
+			assertTrue(nodes[1] > 0);
+			assertTrue(nodes[0] <= nodes[1]);
+			result = service.solve(new Board(INPUT), 10, TimeUnit.SECONDS,
+					listener).get();
+			assertEquals(SolverResult.Status.SOLVED, result.getStatus());
+			assertEquals(result.getStats().getNodes(), nodes[1]);
+			service.shutdown();
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testVirtualThreads() {
+		try {
+			SolverService service = SolverService.withVirtualThreads(1000);
+			ExecutorService executor = SolverService.newVirtualThreadExecutor();
+			try {
+				assertEquals(executor != null, service.isVirtual());
+			} finally {
+				if (executor != null) {
+					executor.shutdown();
+				}
+			}
+			List<CompletableFuture<SolverResult>> futures;
+			futures = new ArrayList<CompletableFuture<SolverResult>>();
+			for (int i = 0; i < 200; i++) {
+				futures.add(service.analyze(new Board(i % 2 == 0 ? INPUT : ""),
+						10, TimeUnit.SECONDS));
+			}
+			for (CompletableFuture<SolverResult> future : futures) {
+				assertEquals(SolverResult.Status.SOLVED, future.get()
+						.getStatus());
+			}
+			service.shutdown();
+			assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -100,4 +100,61 @@ public class SolverTest {
 			fail(e.getMessage());
 		}
 	}
+
+	@Test
+	public void testTrailEngine() {
+		try {
+			String input = "009003060"
+			             + "000040100"
+			             + "500100000"
+			             + "090000020"
+			             + "800000400"
+			             + "027006009"
+			             + "000000000"
+			             + "003002070"
+			             + "000850600";
+			Board board = new Board(input);
+			Board expected = new Solver(board.copy(true)).solve();
+			Board result = new Solver(board).solve(Engine.TRAIL);
+			assertNotNull(result);
+			assertEquals(expected.toString(), result.toString());
+			// the input is not modified
+			assertEquals(input, board.toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSeed() {
+		try {
+			String input = "000000010"
+			             + "400000000"
+			             + "020000000"
+			             + "000050407"
+			             + "008000300"
+			             + "001090000"
+			             + "300400200"
+			             + "050100000"
+			             + "000806000";
+			Solver first = new Solver(new Board(input), 42);
+			first.setStats(new SearchStats());
+			Solver second = new Solver(new Board(input), 42);
+			second.setStats(new SearchStats());
+			assertEquals(first.solve().toString(), second.solve().toString());
+			assertEquals(first.getStats().getNodes(), second.getStats()
+					.getNodes());
+			assertEquals(first.getStats().getBacktracks(), second.getStats()
+					.getBacktracks());
+
+			// an empty board has many solutions, each seed finding its own
+			String grid = new Solver(new Board(""), 7).solve().toString();
+			assertEquals(grid, new Solver(new Board(""), 7).solve()
+					.toString());
+			assertFalse(grid.equals(new Solver(new Board(""), 8).solve()
+					.toString()));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
 }
@@ -0,0 +1,113 @@
+package net.codingworks.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for TrailSolver
+ * 
+ * @author Rongqin Sheng
+ * @version 1.0
+ */
+public class TrailSolverTest {
+
+	private static final String INPUT = "100030080"
+	                                  + "067580000"
+	                                  + "000100200"
+	                                  + "030060590"
+	                                  + "650070000"
+	                                  + "708000002"
+	                                  + "000094000"
+	                                  + "000050000"
+	                                  + "900000410";
+
+	private static final String SOLUTION = "145236789"
+	                                     + "267589134"
+	                                     + "389147256"
+	                                     + "431862597"
+	                                     + "652973841"
+	                                     + "798415362"
+	                                     + "513794628"
+	                                     + "824651973"
+	                                     + "976328415";
+
+	@Test
+	public void testSolve() {
+		try {
+			Board board = new Board(INPUT);
+			board.updateCells();
+			TrailSolver solver = new TrailSolver();
+			solver.load(board);
+			assertTrue(solver.solve());
+			assertEquals(SOLUTION, solver.getBoard().toString());
+			// the solution is unique
+			assertFalse(solver.solve());
+			// the input is not modified
+			assertEquals(INPUT, board.toString());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testNoSolution() {
+		try {
+			Board board = new Board("100030086"
+			                      + "067580000"
+			                      + "000100200"
+			                      + "030060590"
+			                      + "650070000"
+			                      + "708000002"
+			                      + "000094000"
+			                      + "000050000"
+			                      + "900000410");
+			board.updateCells();
+			TrailSolver solver = new TrailSolver();
+			solver.load(board);
+			assertFalse(solver.solve());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReuse() {
+		try {
+			TrailSolver solver = new TrailSolver();
+			for (int n = 0; n < 3; n++) {
+				Board board = new Board(INPUT);
+				board.updateCells();
+				solver.load(board);
+				assertTrue(solver.solve());
+				assertEquals(SOLUTION, solver.getBoard().toString());
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testUndo() {
+		try {
+			Board board = new Board(INPUT);
+			board.updateCells();
+			Board copy = board.copy(true);
+			Trail trail = new Trail();
+			int mark = trail.mark();
+			assertTrue(Solver.updateBoard(copy, new int[] { 1, 0 }, (byte) 2,
+					trail));
+			assertEquals(2, copy.getCell(1, 0).getValue());
+			trail.undo(copy, mark);
+			assertEquals(board.toString(), copy.toString());
+			for (int k = 0; k < Board.CELLS; k++) {
+				assertEquals(board.getCandidates(k), copy.getCandidates(k));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}